@@ -72,6 +72,22 @@ public abstract class Classifier
 	 */
 	public abstract boolean correctlyClassifies(I_Instance inst);
 
+	/**
+	 * Classifies an instance, then trains on it, as in prequential evaluation.
+	 * The prediction is made before training, so is the same as that returned
+	 * by {@link #classify(I_Instance)} before {@link #trainOnInstance(I_Instance)}.
+	 * Classifiers may override this to do both in a single pass.
+	 *
+	 * @param inst the instance to be classified, then trained on.
+	 * @return an integer value representing the predicted class label.
+	 */
+	public int testThenTrain(I_Instance inst)
+	{
+		int predicted = classify(inst);
+		trainOnInstance(inst);
+		return predicted;
+	}
+
 	/**
 	 * Returns index of maximum element in a given array of doubles.
 	 * First maximum is returned.
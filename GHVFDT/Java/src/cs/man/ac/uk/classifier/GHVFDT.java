@@ -28,19 +28,26 @@ package cs.man.ac.uk.classifier;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
+import cs.man.ac.uk.data.ColumnarDataset;
+import cs.man.ac.uk.data.I_File;
 import cs.man.ac.uk.data.I_Instance;
+import cs.man.ac.uk.data.InstanceBlock;
 import cs.man.ac.uk.observers.AttributeClassObserver;
 import cs.man.ac.uk.observers.GHNumericAttributeClassObserver;
 import cs.man.ac.uk.split.AttributeSplitSuggestion;
 import cs.man.ac.uk.split.GHDSplitCriterion;
 import cs.man.ac.uk.split.InstanceConditionalTest;
+import cs.man.ac.uk.split.NumericAttributeBinaryTest;
+import cs.man.ac.uk.tree.CompiledTree;
 import cs.man.ac.uk.tree.Tree;
 import cs.man.ac.uk.tree.nodes.ActiveLearningNode;
 import cs.man.ac.uk.tree.nodes.FoundNode;
 import cs.man.ac.uk.tree.nodes.InactiveLearningNode;
 import cs.man.ac.uk.tree.nodes.LearningNode;
 import cs.man.ac.uk.tree.nodes.Node;
+import cs.man.ac.uk.tree.nodes.NumericBinarySplitNode;
 import cs.man.ac.uk.tree.nodes.SplitNode;
 
 /**
@@ -151,6 +158,32 @@ public class GHVFDT extends Classifier implements Tree
 	 */
 	protected boolean growthAllowed;
 
+	/**
+	 * The number of rows read from a file at a time by {@link #trainOnFile(I_File)}.
+	 */
+	public static final int TRAINING_BATCH_SIZE = 1024;
+
+	/**
+	 * Holds each row of a block as it is trained on, re-used for every row.
+	 */
+	private double[] trainingRow = null;
+
+	/**
+	 * The compiled snapshot of the tree used by the batch prediction methods, else
+	 * null if the tree has been trained or changed since it was last compiled.
+	 */
+	private volatile CompiledTree compiled = null;
+
+	/**
+	 * Holds the result of each search for a leaf, one per thread, so that
+	 * searching the tree creates no objects.
+	 */
+	private final ThreadLocal<FoundNode> foundNodes = new ThreadLocal<FoundNode>()
+	{
+		@Override
+		protected FoundNode initialValue() { return new FoundNode(); }
+	};
+
 	//*****************************************
 	//*****************************************
 	//           Getters & Setters
@@ -204,57 +237,217 @@ public class GHVFDT extends Classifier implements Tree
 			}
 
 			// Find the leaf that the current training instance reaches.
-			FoundNode foundNode = this.treeRoot.filterInstanceToLeaf(inst, null, -1);
-			Node leafNode = foundNode.node; // Obtain the leaf node.
+			FoundNode foundNode = Node.findLeaf(this.treeRoot, inst, this.foundNodes.get());
+			learnAt(foundNode, inst);
+		}
+	}
 
-			// If the leaf hasn't been initialized, then create it.
-			if (leafNode == null)
-			{
-				// Create the new leaf.
-				leafNode = newLearningNode();
+	/**
+	 * Classifies an instance and then trains on it, finding the leaf it reaches
+	 * only once. The prediction and the tree that results are exactly those of
+	 * {@link #classify(I_Instance)} followed by {@link #trainOnInstance(I_Instance)},
+	 * but the votes are not copied.
+	 * @param inst the instance to classify, then train on.
+	 * @return the predicted class label.
+	 */
+	@Override
+	public int testThenTrain(I_Instance inst) 
+	{
+		// An empty tree predicts class zero, having no votes.
+		if (this.treeRoot == null)
+		{
+			trainOnInstance(inst);
+			return 0;
+		}
 
-				// Give the leaf a pointer to its parent node.
-				foundNode.parent.setChild(foundNode.parentBranch, leafNode);
-				this.activeLeafNodeCount++;
-			}
+		FoundNode foundNode = Node.findLeaf(this.treeRoot, inst, this.foundNodes.get());
+		int predicted = votingNode(foundNode).getMajorityClass();
 
-			// If the leaf node is capable of learning...
-			if (leafNode instanceof LearningNode) 
-			{
-				// Cast the node to a learning node to access it.
-				LearningNode learningNode = (LearningNode) leafNode;
+		if (inst.weight() > 0.0 && !inst.classIsMissing())
+			learnAt(foundNode, inst);
 
-				// instruct the leaf to learn from the latest training instance.
-				learningNode.learnFromInstance(inst, this);
+		return predicted;
+	}
 
-				// If the tree is permitted to grow (i.e. memory limits haven't been
-				// reached, and the leaf is a learning node, check if this node should be split.
-				if (this.growthAllowed && (learningNode instanceof ActiveLearningNode)) 
-				{
-					ActiveLearningNode activeLearningNode = (ActiveLearningNode) learningNode;
-
-					// Get the weights seen at the node, i.e. the distribution of examples
-					// reaching the node. The distribution is stored in an array [c_1,c_2,...,c_n]
-					// such that c_1 is the count of class zero examples, c_2 the count of class 1 examples,
-					// and so on until class n.
-					double weightSeen = activeLearningNode.getWeightSeen();
-
-
-					// If the learning node has seen more examples than the grace period, then
-					// try to split. Basically the grace period is used to prevent the tree from
-					// attempting to split on each example seen. This is useful for streams as
-					// the computational overhead of trying to split on each example can be costly.
-					// So if the grace period is 100, then after this node has seen 100 examples,
-					// it will then attempt to split.
-					if (weightSeen - activeLearningNode.getWeightSeenAtLastSplitEvaluation() >= gracePeriod) 
-					{
-						// SPlit the node if possible.
-						split(activeLearningNode, foundNode.parent,foundNode.parentBranch);
+	/**
+	 * Learns from a training instance at the leaf it has reached, then attempts
+	 * to split the leaf.
+	 * @param foundNode the node found by filtering the instance down the tree.
+	 * @param inst the instance to learn from.
+	 */
+	private void learnAt(FoundNode foundNode, I_Instance inst) 
+	{
+		this.compiled = null;
+		Node leafNode = leafFor(foundNode);
 
-						// Update the weight (total number of examples) seen by this learning node.
-						activeLearningNode.setWeightSeenAtLastSplitEvaluation(weightSeen);
-					}
-				}
+		// If the leaf node is capable of learning...
+		if (leafNode instanceof LearningNode) 
+		{
+			// Cast the node to a learning node to access it.
+			LearningNode learningNode = (LearningNode) leafNode;
+
+			// instruct the leaf to learn from the latest training instance.
+			learningNode.learnFromInstance(inst, this);
+
+			attemptToSplit(learningNode, foundNode);
+		}
+	}
+
+	/**
+	 * Trains the tree using a row of feature values, with a weight of one, see
+	 * {@link #trainOnValues(double[], int, int, double)}.
+	 * @param values the feature values, which may be followed by the class label.
+	 * @param n the number of features, i.e. the first n elements of values.
+	 * @param label the class label, the row is not learnt from if this is missing (-1).
+	 */
+	public void trainOnValues(double[] values, int n, int label) { trainOnValues(values, n, label, 1.0); }
+
+	/**
+	 * Trains the tree using a weighted row of feature values. This gives exactly the
+	 * same tree as training using an instance holding the same values and weight,
+	 * but as the values are passed straight to the split tests and the attribute
+	 * observers, no instance needs to be created for each row.
+	 * @param values the feature values, which may be followed by the class label.
+	 * @param n the number of features, i.e. the first n elements of values.
+	 * @param label the class label, the row is not learnt from if this is missing (-1).
+	 * @param weight the training weight, the row is not learnt from unless this is positive.
+	 */
+	public void trainOnValues(double[] values, int n, int label, double weight) 
+	{
+		if (label == -1 || !(weight > 0.0))
+			return;
+
+		this.compiled = null;
+
+		// If the tree hasn't been initialized, create the root node.
+		if (this.treeRoot == null) 
+		{
+			this.treeRoot = newLearningNode();
+			this.activeLeafNodeCount = 1;
+		}
+
+		FoundNode foundNode = Node.findLeaf(this.treeRoot, values, n, this.foundNodes.get());
+		Node leafNode = leafFor(foundNode);
+
+		if (leafNode instanceof LearningNode) 
+		{
+			LearningNode learningNode = (LearningNode) leafNode;
+			learningNode.learnFromValues(values, n, label, weight, this);
+			attemptToSplit(learningNode, foundNode);
+		}
+	}
+
+	/**
+	 * Trains the tree using every row of a block, in order, each with its weight,
+	 * see {@link #trainOnValues(double[], int, int, double)}.
+	 * @param block the block of rows.
+	 */
+	public void trainOnBlock(InstanceBlock block) 
+	{
+		int n = block.getFeatureCount();
+		double[] values = block.getValues();
+		int[] labels = block.getLabels();
+
+		if (this.trainingRow == null || this.trainingRow.length < n + 1)
+			this.trainingRow = new double[n + 1];
+
+		for (int r = 0; r < block.size(); r++)
+		{
+			// As when read from a file, the class label follows the features of the row.
+			System.arraycopy(values, r * n, this.trainingRow, 0, n);
+			this.trainingRow[n] = labels[r];
+			trainOnValues(this.trainingRow, n, labels[r], block.getWeight(r));
+		}
+	}
+
+	/**
+	 * Trains the tree using every remaining instance of a file. The file parses each
+	 * batch of rows straight in to a re-used block, and the rows are passed straight
+	 * to the tree, so no instance is created for any row.
+	 * @param file the file to train on.
+	 * @return the number of rows read from the file.
+	 */
+	public int trainOnFile(I_File file) 
+	{
+		int rows = 0;
+
+		InstanceBlock block;
+		while ((block = file.getNextBatch(TRAINING_BATCH_SIZE)) != null)
+		{
+			trainOnBlock(block);
+			rows += block.size();
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Gets the node whose votes are used to classify an example.
+	 * @param foundNode the node found by filtering the example down the tree.
+	 * @return the node found, else its parent if the node is uninitialized.
+	 */
+	private Node votingNode(FoundNode foundNode) 
+	{
+		return foundNode.node != null ? foundNode.node : foundNode.parent;
+	}
+
+	/**
+	 * Gets the leaf a training example has reached, creating it if it hasn't been initialized.
+	 * @param foundNode the node found by filtering the example down the tree.
+	 * @return the leaf node.
+	 */
+	private Node leafFor(FoundNode foundNode) 
+	{
+		Node leafNode = foundNode.node; // Obtain the leaf node.
+
+		// If the leaf hasn't been initialized, then create it.
+		if (leafNode == null)
+		{
+			// Create the new leaf.
+			leafNode = newLearningNode();
+
+			// Give the leaf a pointer to its parent node.
+			foundNode.parent.setChild(foundNode.parentBranch, leafNode);
+			this.activeLeafNodeCount++;
+		}
+
+		return leafNode;
+	}
+
+	/**
+	 * Attempts to split a leaf that has just learnt from a training example, if it has
+	 * seen enough examples since a split was last considered.
+	 * @param learningNode the leaf node.
+	 * @param foundNode the node found by filtering the example down the tree.
+	 */
+	private void attemptToSplit(LearningNode learningNode, FoundNode foundNode) 
+	{
+		// If the tree is permitted to grow (i.e. memory limits haven't been
+		// reached, and the leaf is a learning node, check if this node should be split.
+		if (this.growthAllowed && (learningNode instanceof ActiveLearningNode)) 
+		{
+			ActiveLearningNode activeLearningNode = (ActiveLearningNode) learningNode;
+
+			// Get the weights seen at the node, i.e. the distribution of examples
+			// reaching the node. The distribution is stored in an array [c_1,c_2,...,c_n]
+			// such that c_1 is the count of class zero examples, c_2 the count of class 1 examples,
+			// and so on until class n.
+			double weightSeen = activeLearningNode.getWeightSeen();
+
+
+			// If the learning node has seen more examples than the grace period, then
+			// try to split. Basically the grace period is used to prevent the tree from
+			// attempting to split on each example seen. This is useful for streams as
+			// the computational overhead of trying to split on each example can be costly.
+			// So if the grace period is 100, then after this node has seen 100 examples,
+			// it will then attempt to split.
+			if (weightSeen - activeLearningNode.getWeightSeenAtLastSplitEvaluation() >= gracePeriod) 
+			{
+				// SPlit the node if possible.
+				split(activeLearningNode, foundNode.parent,foundNode.parentBranch);
+
+				// Update the weight (total number of examples) seen by this learning node.
+				activeLearningNode.setWeightSeenAtLastSplitEvaluation(weightSeen);
 			}
 		}
 	}
@@ -270,15 +463,10 @@ public class GHVFDT extends Classifier implements Tree
 		if (this.treeRoot != null) 
 		{
 			// Get the leaf node that the instance reaches.
-			FoundNode foundNode = this.treeRoot.filterInstanceToLeaf(inst,null, -1);
-			Node leafNode = foundNode.node;
-
-			// If the node is uninitialized... 
-			if (leafNode == null)
-				leafNode = foundNode.parent; // use the parent of the node found instead.
+			FoundNode foundNode = Node.findLeaf(this.treeRoot, inst, this.foundNodes.get());
 
 			// Get the prediction votes.
-			return leafNode.getClassVotes(inst, this);
+			return votingNode(foundNode).getClassVotes(inst, this);
 		}
 
 		// Else return empty votes.
@@ -290,7 +478,45 @@ public class GHVFDT extends Classifier implements Tree
 	 */
 	public int classify(I_Instance inst)
 	{
-		return this.maxIndex(predict(inst));
+		// An empty tree predicts class zero, having no votes.
+		if (this.treeRoot == null)
+			return 0;
+
+		return votingNode(Node.findLeaf(this.treeRoot, inst, this.foundNodes.get())).getMajorityClass();
+	}
+
+	/**
+	 * Writes the votes for each class for a row of feature values in to an array
+	 * supplied by the caller. The votes are exactly those returned by {@link #predict(I_Instance)}
+	 * for an instance holding the same values, but no objects are created.
+	 * @param x the feature values, laid out as in the array backing a {@link cs.man.ac.uk.data.DenseInstance}.
+	 * @param votesOut the array to write the votes to, entries beyond the votes written are set to zero.
+	 * @return the number of classes voted for, which may exceed the number of votes
+	 * written if the array is too short, zero if the tree is empty.
+	 */
+	public int predictInto(double[] x, double[] votesOut)
+	{
+		if (this.treeRoot == null)
+		{
+			Arrays.fill(votesOut, 0.0);
+			return 0;
+		}
+
+		return votingNode(Node.findLeaf(this.treeRoot, x, x.length, this.foundNodes.get())).getClassVotes(votesOut);
+	}
+
+	/**
+	 * Predicts the class label for a row of feature values, without creating any
+	 * objects, as {@link #classify(I_Instance)} does for an instance holding the same values.
+	 * @param x the feature values, laid out as in the array backing a {@link cs.man.ac.uk.data.DenseInstance}.
+	 * @return the predicted class label.
+	 */
+	public int classify(double[] x)
+	{
+		if (this.treeRoot == null)
+			return 0;
+
+		return votingNode(Node.findLeaf(this.treeRoot, x, x.length, this.foundNodes.get())).getMajorityClass();
 	}
 		
 	/* (non-Javadoc)
@@ -298,8 +524,91 @@ public class GHVFDT extends Classifier implements Tree
 	 */
 	public boolean correctlyClassifies(I_Instance inst) 
 	{
-		return this.maxIndex(predict(inst)) == (int) inst.classValue();
+		return classify(inst) == (int) inst.classValue();
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.tree.Tree#compile()
+	 */
+	public CompiledTree compile() { return new CompiledTree(this.treeRoot); }
+
+	/**
+	 * Gets the compiled snapshot of the tree used by the batch prediction methods,
+	 * compiling the tree only if it has been trained or changed since it was last
+	 * compiled, so scoring many batches with an unchanged tree compiles it once.
+	 * @return the compiled snapshot of the tree as it is now.
+	 */
+	private CompiledTree compiled()
+	{
+		CompiledTree c = this.compiled;
+
+		if (c == null)
+			this.compiled = c = compile();
+
+		return c;
 	}
+
+	/**
+	 * Classifies every row of a block, and/or scores every row by the fraction of
+	 * votes for one class, in parallel. The rows are scored by a read-only
+	 * {@link #compile() compiled} snapshot of the tree, so the tree must not be
+	 * trained while this runs. The snapshot is kept, and only compiled again once
+	 * the tree has been trained, so scoring many batches with a frozen tree
+	 * compiles it once.
+	 * @param block the rows to classify.
+	 * @param positiveClass the class whose fraction of the votes is the score.
+	 * @param labels written with the class of each row, as {@link #classify(double[])} gives, may be null.
+	 * @param scores written with the score of each row, may be null.
+	 * @param pool the pool to score on, may be null to use the default pool.
+	 */
+	public void predictBatch(InstanceBlock block, int positiveClass, int[] labels, double[] scores, ForkJoinPool pool)
+	{
+		compiled().predict(block, positiveClass, labels, scores, pool);
+	}
+
+	/**
+	 * Classifies every row of a data set, and/or scores every row by the fraction
+	 * of votes for one class, in parallel, see {@link #predictBatch(InstanceBlock, int, int[], double[], ForkJoinPool)}.
+	 * @param data the rows to classify.
+	 * @param positiveClass the class whose fraction of the votes is the score.
+	 * @param labels written with the class of each row, may be null.
+	 * @param scores written with the score of each row, may be null.
+	 * @param pool the pool to score on, may be null to use the default pool.
+	 */
+	public void predictBatch(ColumnarDataset data, int positiveClass, int[] labels, double[] scores, ForkJoinPool pool)
+	{
+		compiled().predict(data, positiveClass, labels, scores, pool);
+	}
+
+	/**
+	 * @param data the rows to classify.
+	 * @param pool the pool to classify on, may be null to use the default pool.
+	 * @return the class of each row, see {@link #predictBatch(ColumnarDataset, int, int[], double[], ForkJoinPool)}.
+	 */
+	public int[] classifyBatch(ColumnarDataset data, ForkJoinPool pool) { return compiled().classify(data, pool); }
+
+	/**
+	 * @param block the rows to classify.
+	 * @param pool the pool to classify on, may be null to use the default pool.
+	 * @return the class of each row, see {@link #predictBatch(InstanceBlock, int, int[], double[], ForkJoinPool)}.
+	 */
+	public int[] classifyBatch(InstanceBlock block, ForkJoinPool pool) { return compiled().classify(block, pool); }
+
+	/**
+	 * @param data the rows to score.
+	 * @param positiveClass the class whose fraction of the votes is the score.
+	 * @param pool the pool to score on, may be null to use the default pool.
+	 * @return the score of each row, see {@link #predictBatch(ColumnarDataset, int, int[], double[], ForkJoinPool)}.
+	 */
+	public double[] scoreBatch(ColumnarDataset data, int positiveClass, ForkJoinPool pool) { return compiled().score(data, positiveClass, pool); }
+
+	/**
+	 * @param block the rows to score.
+	 * @param positiveClass the class whose fraction of the votes is the score.
+	 * @param pool the pool to score on, may be null to use the default pool.
+	 * @return the score of each row, see {@link #predictBatch(InstanceBlock, int, int[], double[], ForkJoinPool)}.
+	 */
+	public double[] scoreBatch(InstanceBlock block, int positiveClass, ForkJoinPool pool) { return compiled().score(block, positiveClass, pool); }
 	
 	/**
 	 * Computes the Hoeffding bound, used to statistically select optimal
@@ -326,6 +635,8 @@ public class GHVFDT extends Classifier implements Tree
 	 */
 	public void split(ActiveLearningNode node, SplitNode parent, int parentIndex) 
 	{
+		this.compiled = null;
+
 		// If a node has witnessed an impure distribution.
 		if (!node.observedClassDistributionIsPure()) 
 		{
@@ -400,6 +711,10 @@ public class GHVFDT extends Classifier implements Tree
 	 */
 	public SplitNode newSplitNode(InstanceConditionalTest splitTest,double[] classObservations, int size) 
 	{
+		// Numeric binary splits, the only kind made, are tested inline.
+		if (splitTest instanceof NumericAttributeBinaryTest && size == 2)
+			return new NumericBinarySplitNode((NumericAttributeBinaryTest) splitTest, classObservations);
+
 		return new SplitNode(splitTest, classObservations, size);
 	}
 	
@@ -436,6 +751,7 @@ public class GHVFDT extends Classifier implements Tree
 		else
 			parent.setChild(parentBranch, newLeaf);
 
+		this.compiled = null;
 		this.activeLeafNodeCount--;
 		this.inactiveLeafNodeCount++;
 	}
@@ -452,6 +768,7 @@ public class GHVFDT extends Classifier implements Tree
 		else
 			parent.setChild(parentBranch, newLeaf);
 
+		this.compiled = null;
 		this.activeLeafNodeCount++;
 		this.inactiveLeafNodeCount--;
 	}
@@ -521,6 +838,7 @@ public class GHVFDT extends Classifier implements Tree
 	public void resetLearning()
 	{
 		this.treeRoot = null;
+		this.compiled = null;
 		this.decisionNodeCount = 0;
 		this.activeLeafNodeCount = 0;
 		this.inactiveLeafNodeCount = 0;
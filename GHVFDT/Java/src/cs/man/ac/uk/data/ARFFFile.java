@@ -30,16 +30,41 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.List;
-import java.util.TreeMap;
 
 /**
- * Represents a data file in WEKA ARFF format.
+ * Represents a data file in WEKA ARFF format. Rows may be dense, listing every
+ * value, or sparse, listing only the non-zero values with their attribute indices,
+ * e.g. <i>{1 0.5, 4 2.0, 9 1}</i>. The class label is the last attribute declared
+ * in the header, so reading sparse rows requires the header's attribute declarations.
+ * Sparse rows are read as {@link SparseInstance}s.
  * 
  * @author Rob Lyon
  */
 public class ARFFFile extends DataFile implements I_File
 {
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The number of attributes declared in the header, including the class.
+	 */
+	private int attributes = 0;
+
+	/**
+	 * Holds the most recent sparse row parsed, re-used for each row.
+	 */
+	private SparseInstance sparseBuffer = new SparseInstance(0);
+
+	/**
+	 * Holds each value of a sparse row as it is parsed.
+	 */
+	private double[] sparseValue = new double[1];
+
 	/**
 	 *	Constructor
 	 */
@@ -53,9 +78,66 @@ public class ARFFFile extends DataFile implements I_File
 	public ARFFFile(String pth, boolean inc, boolean v) 
 	{
 		super(pth, inc, v);
+		this.countAttributes();
 		this.checkValidity();
 	}
 
+	/**
+	 * Creates a new ARFF file instance, which may be streamed. A streamed file is not
+	 * scanned in full when opened, instead only the first rows are checked against the
+	 * attributes declared in the header, and the remaining rows are validated as they
+	 * are read. The example count and class distribution then describe the rows read so far.
+	 * @param pth the full path to the file.
+	 * @param inc incremental read flag.
+	 * @param stream true to stream the file, false to scan it in full when opened.
+	 * @param v the verbose logging flag.
+	 */
+	public ARFFFile(String pth, boolean inc, boolean stream, boolean v) 
+	{
+		super(pth, inc, stream, v);
+		this.countAttributes();
+
+		if(stream)
+			this.checkHeader();
+		else
+			this.checkValidity();
+	}
+
+	/**
+	 * Creates a new ARFF file that is opened using its sidecar index (see {@link DataFileIndex}),
+	 * so that it is not scanned when opened. If the file has no index, or has changed since
+	 * it was indexed, it is scanned and a new index is written. Instances can then be read
+	 * from part way through the file using {@link #seek(int)} and {@link #read(int, int)}.
+	 * @param pth the full path to the file.
+	 * @param inc incremental read flag.
+	 * @param stride the number of instances between the offsets recorded in a new index.
+	 * @param v the verbose logging flag.
+	 */
+	public ARFFFile(String pth, boolean inc, int stride, boolean v) 
+	{
+		super(pth, inc, v);
+		this.countAttributes();
+		this.checkIndexedValidity(stride);
+	}
+
+	/**
+	 * Creates a new ARFF file that reads from a stream, such as standard input or a
+	 * named pipe, which may be gzip compressed. The stream is read once, and each row
+	 * is validated as it is read. The example count and class distribution describe
+	 * the rows read so far.
+	 * @param in the stream to read from.
+	 * @param v the verbose logging flag.
+	 */
+	public ARFFFile(InputStream in, boolean v) { super(in, v); }
+
+	/**
+	 * Creates a new ARFF file that reads from a channel, which may be gzip compressed.
+	 * The channel is read once, as for {@link #ARFFFile(InputStream, boolean)}.
+	 * @param channel the channel to read from.
+	 * @param v the verbose logging flag.
+	 */
+	public ARFFFile(ReadableByteChannel channel, boolean v) { this(Channels.newInputStream(channel), v); }
+
 	/**
 	 *	Methods
 	 */
@@ -88,7 +170,7 @@ public class ARFFFile extends DataFile implements I_File
 	 * @see cs.man.ac.uk.data.I_File#getClassDistribution()
 	 */
 	@Override
-	public int[] getClassDistribution() { return this.classDist; }
+	public int[] getClassDistribution() { return this.classDistribution(); }
 
 	/* (non-Javadoc)
 	 * @see cs.man.ac.uk.data.I_File#getFeatureCount()
@@ -124,7 +206,7 @@ public class ARFFFile extends DataFile implements I_File
 					try{ inst.addFeature(Double.parseDouble(components[i])); }
 			catch(NumberFormatException nfe)
 			{ 
-				this.processError(nfe,"NumberFormatException in public I_Instance createInstance(String line).");
+				this.processRejectedLine(nfe,"NumberFormatException in public I_Instance createInstance(String line).",line);
 				return null; // If we can't read data attributes, return null.
 			}
 
@@ -132,7 +214,7 @@ public class ARFFFile extends DataFile implements I_File
 			try{ inst.setClasslabel(Integer.parseInt(components[components.length-1])); }
 			catch(NumberFormatException nfe)
 			{ 
-				this.processError(nfe,"NumberFormatException in public I_Instance createInstance(String line).");
+				this.processRejectedLine(nfe,"NumberFormatException in public I_Instance createInstance(String line).",line);
 				inst.setClasslabel(-2);
 			}
 
@@ -142,6 +224,9 @@ public class ARFFFile extends DataFile implements I_File
 			return null;
 	}
 
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.DataFile#createInstance(double[])
+	 */
 	@Override
 	public I_Instance createInstance(double[] data) 
 	{
@@ -152,107 +237,210 @@ public class ARFFFile extends DataFile implements I_File
 			return null;
 		}
 
-
-		I_Instance inst = new Instance();
-
 		// if the line string contains no comma separated information...
-		if(data != null)
+		if(data != null && data.length > 0)
 		{
-			if(data.length > 1)
-				for (int i=0; i< data.length-1;i++)
-					inst.addFeature(data[i]); 
-
-			// Class label is last item.
-			inst.setClasslabel((int)data[data.length-1]);
-
-			return inst;
+			// Wrap the data directly, the class label is the last item and
+			// is excluded from the features.
+			return new DenseInstance(data, data.length-1, (int)data[data.length-1]);
 		}
 		else
 			return null;
 	}
 
+
 	/* (non-Javadoc)
-	 * @see cs.man.ac.uk.data.DataFile#checkValidity()
+	 * @see cs.man.ac.uk.data.DataFile#isHeaderOrComment(java.lang.String)
 	 */
 	@Override
-	public boolean checkValidity()
+	protected boolean isHeaderOrComment(String line)
 	{
-		try
-		{
-			// If the reader hasn't been initialized...
-			if(br==null)
-				br = new BufferedReader( new FileReader(this.path)); 
+		if(line.startsWith("@"))
+			return true;
+		else if(line.isEmpty())
+			return true;
+		else if(line.startsWith("\n"))
+			return true;
+		else if(line.startsWith("\r"))
+			return true;
+		else if(line.startsWith("%"))
+			return true;
+		else
+			return false;
+	}
 
-			String line;
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.DataFile#isHeaderOrComment(char[],int,int)
+	 */
+	@Override
+	protected boolean isHeaderOrComment(char[] chars, int start, int end)
+	{
+		if(start == end)
+			return true;
 
-			int ftCount = 0;
-			TreeMap<Integer,Integer> cDist = new TreeMap<Integer,Integer>();
-			int ex = 0;
+		char first = chars[start];
+		return first == '@' || first == '\n' || first == '\r' || first == '%';
+	}
 
-			int lineNumber = 0;
-			while ((line = br.readLine()) != null)
-			{
-				lineNumber++;
-				
-				// This if else ignores comments.
-				if(line.startsWith("@"))
-					continue;
-				else if(line.isEmpty())
-					continue;
-				else if(line.startsWith("\n"))
-					continue;
-				else if(line.startsWith("\r"))
-					continue;
-				else if(line.startsWith("%"))
-					continue;	
-				
-				double[] data = doesLineContainValidData(line);
-
-				if(data != null)
-				{
-					ex++;
-					int tempFeatureCount = data.length-1;
-					int clazz = (int)data[data.length-1];
-
-					int currentClassCount = 0;
-
-					// Get the class count
-					if(cDist.get(clazz) != null) // No examples seen so far.
-						currentClassCount = cDist.get(clazz);
-
-					currentClassCount++;
-					cDist.put(clazz,currentClassCount);
-
-					if(ftCount == 0)
-						ftCount=tempFeatureCount;
-					else if(ftCount != tempFeatureCount)
-					{
-						// Discrepancy between feature lengths, report error.
-						String msg = "Error reading data on line " + lineNumber + " discrepency between number of features on each line.";
-						this.processError(msg);
-						return false;
-					}
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.DataFile#isSparseLine(char[],int,int)
+	 */
+	@Override
+	protected boolean isSparseLine(char[] chars, int start, int end)
+	{
+		while(start < end && chars[start] <= ' ')
+			start++;
 
-				}
+		return start < end && chars[start] == '{';
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.DataFile#isSparseLine(java.lang.String)
+	 */
+	@Override
+	protected boolean isSparseLine(String line)
+	{
+		int start = 0;
+		while(start < line.length() && line.charAt(start) <= ' ')
+			start++;
+
+		return start < line.length() && line.charAt(start) == '{';
+	}
+
+	/**
+	 * Parses a sparse row, such as <i>{1 0.5, 4 2.0, 9 1}</i>, where each entry is an
+	 * attribute index followed by its value. The indices must be in ascending order,
+	 * and any attribute not listed is zero, including the class attribute.
+	 * @param chars the characters of the line.
+	 * @param start the index of the first character of the line.
+	 * @param end the index after the last character of the line.
+	 * @return an instance holding the row, which is re-used for the next row parsed,
+	 * else null if the row is not valid or no attributes are declared in the header.
+	 */
+	@Override
+	protected SparseInstance parseSparseLine(char[] chars, int start, int end)
+	{
+		if(this.attributes == 0)
+			return null;
+
+		int open = start;
+		while(chars[open] != '{')
+			open++;
+
+		int close = open + 1;
+		while(close < end && chars[close] != '}')
+			close++;
+
+		if(close == end)
+			return null;
+
+		// Only a comment may follow the row.
+		for(int i = close + 1; i < end && chars[i] != '%'; i++)
+			if(chars[i] > ' ')
+				return null;
+
+		int classIndex = this.attributes - 1;
+		int clazz = 0;
+		int last = -1;
+		this.sparseBuffer.clear(classIndex);
+
+		for(int from = open + 1; ; )
+		{
+			int to = from;
+			while(to < close && chars[to] != ',')
+				to++;
+
+			int i = from;
+			while(i < to && chars[i] <= ' ')
+				i++;
+
+			if(i == to)
+			{
+				// Only an empty row, i.e. "{}", may have an empty entry.
+				if(last == -1 && to == close)
+					break;
 				else
-				{
-					// Construct informative error message.
-					String msg = "Error reading data on line " + lineNumber + " data could not be read as double[].";
-					this.processError(msg);
-					return false;
-				}
+					return null;
 			}
 
-			this.features = ftCount;
-			this.examples = ex;
-			this.classDist = this.toPrimitiveInt(cDist);
-			this.isValid = true;
+			int index = 0;
+			int digits = 0;
+			while(i < to && chars[i] >= '0' && chars[i] <= '9' && digits < 10)
+			{
+				index = index * 10 + (chars[i++] - '0');
+				digits++;
+			}
 
-			return this.isValid;
+			// The index must be followed by whitespace then the value.
+			if(digits == 0 || i == to || chars[i] > ' ' || index <= last || index > classIndex)
+				return null;
 
+			if(!NumberParser.parse(chars, i, to, this.sparseValue, 0))
+				return null;
+
+			if(index == classIndex)
+				clazz = (int)this.sparseValue[0];
+			else
+				this.sparseBuffer.append(index, this.sparseValue[0]);
+
+			last = index;
+
+			if(to == close)
+				break;
+
+			from = to + 1;
+		}
+
+		this.sparseBuffer.setClasslabel(clazz);
+		return this.sparseBuffer;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.DataFile#readHeaderLine(char[],int,int)
+	 */
+	@Override
+	protected void readHeaderLine(char[] chars, int start, int end)
+	{
+		// The header of a file on disk is read when it is opened, that of a stream as it is read.
+		if(this.singlePass && end - start >= 10 && new String(chars, start, 10).equalsIgnoreCase("@attribute"))
+			this.attributes++;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.DataFile#declaredFeatures()
+	 */
+	@Override
+	protected int declaredFeatures() { return this.attributes - 1; }
+
+	/**
+	 * Counts the attributes declared in the header of the file, which are needed
+	 * to read sparse rows.
+	 */
+	private void countAttributes()
+	{
+		BufferedReader reader = null;
+
+		try
+		{
+			reader = new BufferedReader( new FileReader(this.path));
+			String line;
+
+			while ((line = reader.readLine()) != null)
+			{
+				if(line.regionMatches(true, 0, "@attribute", 0, 10))
+					this.attributes++;
+				else if(line.regionMatches(true, 0, "@data", 0, 5) || !isHeaderOrComment(line))
+					break;
+			}
+		}
+		catch (FileNotFoundException e) { } // Reported when the file is checked.
+		catch (IOException e) { this.processError(e,"IOException in private void countAttributes()."); }
+		finally
+		{
+			if(reader != null)
+				try { reader.close(); } 
+				catch (IOException e) { e.printStackTrace();}
 		}
-		catch (IOException e) { this.processError(e,"IOException in public boolean checkValidity()."); return false; }
-		finally { closeFile(); prepareFile();  }
 	}
 
 	/* (non-Javadoc)
@@ -264,6 +452,11 @@ public class ARFFFile extends DataFile implements I_File
 		if(line == null)
 			return null;
 		
+		// Parse the line directly where possible, as this avoids creating
+		// a string for each value and an exception for each invalid value.
+		if(this.canParseLinesDirectly())
+			return this.parseLine(line);
+		
 		// Get string components with comments removed (if there are any).
 		String[] components = this.removeComment(this.commentSymbol, line).split(this.separator);
 
@@ -316,7 +509,8 @@ public class ARFFFile extends DataFile implements I_File
 	@Override
 	public void prepareFile()
 	{
-		if(this.readIncrementally)
+		// A stream cannot be re-opened.
+		if(this.readIncrementally && !this.singlePass)
 		{	
 			try { br = new BufferedReader( new FileReader(this.path)); }
 			catch (FileNotFoundException fnf)
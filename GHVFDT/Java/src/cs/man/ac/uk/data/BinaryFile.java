@@ -0,0 +1,440 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	BinaryFile.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import cs.man.ac.uk.obj.BaseObject;
+
+/**
+ * Reads a binary data file, written by {@link BinaryFileConverter}. As no text
+ * has to be parsed, binary files can be replayed far faster than the ARFF or
+ * CSV files they were converted from. The format is (all values little-endian):
+ *
+ * <pre>
+ * Header:  int magic number, int version, int feature count, int class count,
+ *          int example count, int reserved (zero).
+ * Rows:    one per example, the features followed by the class label, each an 8 byte double.
+ * Trailer: int count of each class, i.e. the class distribution.
+ * </pre>
+ *
+ * The file is memory mapped, and each instance returned is a {@link BinaryInstance}
+ * view of a row in the mapped buffer, so no data is copied. Files larger than the
+ * mapping window are mapped a window at a time.
+ */
+public class BinaryFile extends BaseObject implements I_File
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The magic number identifying a binary data file ("GHVB").
+	 */
+	public static final int MAGIC = 0x47485642;
+
+	/**
+	 * The version of the binary format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The size of the header in bytes, a multiple of eight so rows are aligned.
+	 */
+	public static final int HEADER_SIZE = 24;
+
+	/**
+	 * The default size of the region of the file mapped at any one time (256MB).
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+
+	/**
+	 * Path to the data file (absolute path).
+	 */
+	protected String path = "";
+
+	/**
+	 * Number of examples in the data file.
+	 */
+	protected int examples = 0;
+
+	/**
+	 * Number of features (data attributes) in the file.
+	 */
+	protected int features = 0;
+
+	/**
+	 * The class distribution of the data in the file.
+	 */
+	protected int[] classDist;
+
+	/**
+	 * Flag that indicates the validity of the file, invalid
+	 * files cannot be processed.
+	 */
+	protected boolean isValid = false;
+
+	/**
+	 * The channel the file is mapped from.
+	 */
+	protected FileChannel channel = null;
+
+	/**
+	 * The number of bytes in each row.
+	 */
+	protected int rowSize = 0;
+
+	/**
+	 * The maximum number of rows mapped at any one time.
+	 */
+	protected int windowRows = 0;
+
+	/**
+	 * The currently mapped region of the file.
+	 */
+	protected ByteBuffer window = null;
+
+	/**
+	 * The index of the first row in the mapped region.
+	 */
+	protected int windowStart = 0;
+
+	/**
+	 * The index of the next row to be read.
+	 */
+	protected int next = 0;
+
+	/**
+	 * The block returned by {@link #getNextBatch(int)}, re-used by each call.
+	 */
+	private InstanceBlock batch = null;
+
+	/**
+	 * Holds the values of the row most recently read, re-used for each row.
+	 */
+	private double[] row = null;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Opens a binary data file.
+	 * @param pth the full path to the file.
+	 * @param v the verbose logging flag.
+	 */
+	public BinaryFile(String pth, boolean v)
+	{
+		this(pth, DEFAULT_WINDOW_SIZE, v);
+	}
+
+	/**
+	 * Opens a binary data file.
+	 * @param pth the full path to the file.
+	 * @param window the maximum number of bytes to map at any one time.
+	 * @param v the verbose logging flag.
+	 */
+	public BinaryFile(String pth, int window, boolean v)
+	{
+		super(v);
+		this.path = pth;
+
+		try
+		{
+			this.channel = new RandomAccessFile(this.path, "r").getChannel();
+
+			if(this.checkHeader())
+			{
+				this.windowRows = Math.max(1, window / this.rowSize);
+				this.rewind();
+			}
+		}
+		catch (IOException e) { this.processError(e,"IOException in public BinaryFile(String pth, int window, boolean v)."); }
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#isValid()
+	 */
+	@Override
+	public boolean isValid() { return this.isValid;}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#countExamples()
+	 */
+	@Override
+	public int countExamples() { return this.examples; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getAll()
+	 */
+	@Override
+	public List<I_Instance> getAll()
+	{
+		if(!this.isValid)
+			return null;
+
+		try
+		{
+			List<I_Instance> instances = new ArrayList<I_Instance>(this.examples);
+
+			rewind();
+
+			I_Instance inst;
+			while((inst = readNext()) != null)
+				instances.add(inst);
+
+			return instances;
+		}
+		catch (IOException e) { this.processError(e,"IOException in public List<I_Instance> getAll()"); return null; }
+		finally
+		{
+			try { rewind(); }
+			catch (IOException e) { this.processError(e,"IOException in public List<I_Instance> getAll()"); }
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNext()
+	 */
+	@Override
+	public I_Instance getNext()
+	{
+		if(!this.isValid)
+			return null;
+
+		try { return readNext(); }
+		catch (IOException e) { this.processError(e,"IOException in public I_Instance getNext()"); return null; }
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNext(cs.man.ac.uk.data.I_Instance)
+	 */
+	@Override
+	public boolean getNext(I_Instance into)
+	{
+		if(!this.isValid || this.next >= this.examples)
+			return false;
+
+		try
+		{
+			double[] data = readRow();
+			DenseInstance.copy(into, data, this.features, (int)data[this.features]);
+			return true;
+		}
+		catch (IOException e) { this.processError(e,"IOException in public boolean getNext(I_Instance into)"); return false; }
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNextBatch(int)
+	 */
+	@Override
+	public InstanceBlock getNextBatch(int n)
+	{
+		if(!this.isValid || this.next >= this.examples)
+			return null;
+
+		this.batch = InstanceBlock.reuse(this.batch, n, this.features);
+
+		try
+		{
+			while(!this.batch.isFull() && this.next < this.examples)
+			{
+				double[] data = readRow();
+				this.batch.add(data, this.features, (int)data[this.features]);
+			}
+		}
+		catch (IOException e) { this.processError(e,"IOException in public InstanceBlock getNextBatch(int n)"); }
+
+		return this.batch.size() == 0 ? null : this.batch;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getClassDistribution()
+	 */
+	@Override
+	public int[] getClassDistribution() { return this.classDist; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getFeatureCount()
+	 */
+	@Override
+	public int getFeatureCount() { return this.features; }
+
+	/**
+	 * Explicitly closes the data file. No further instances can be read.
+	 */
+	public void closeFile()
+	{
+		this.window = null;
+
+		if(this.channel != null)
+			try { this.channel.close(); }
+			catch (IOException e) { e.printStackTrace();}
+	}
+
+	/**
+	 * Reads and checks the header and class distribution of the file.
+	 * @return true if valid, else false.
+	 * @throws IOException if the file cannot be read.
+	 */
+	protected boolean checkHeader() throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		if(this.channel.size() < HEADER_SIZE || this.channel.read(header, 0) != HEADER_SIZE)
+		{
+			this.processError("Error reading binary file " + this.path + " file is too short to contain a header.");
+			return false;
+		}
+
+		if(header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+		{
+			this.processError("Error reading binary file " + this.path + " file is not a binary data file, or is an unsupported version.");
+			return false;
+		}
+
+		int ftCount = header.getInt(8);
+		int classes = header.getInt(12);
+		int ex = header.getInt(16);
+
+		this.rowSize = (ftCount + 1) * 8;
+		long rowsEnd = HEADER_SIZE + (long) ex * this.rowSize;
+
+		if(ftCount < 0 || classes < 0 || ex < 0 || this.channel.size() != rowsEnd + classes * 4L)
+		{
+			this.processError("Error reading binary file " + this.path + " file size does not match the header.");
+			return false;
+		}
+
+		ByteBuffer trailer = ByteBuffer.allocate(classes * 4).order(ByteOrder.LITTLE_ENDIAN);
+		while(trailer.hasRemaining())
+			if(this.channel.read(trailer, rowsEnd + trailer.position()) < 0)
+				break;
+
+		int[] cDist = new int[classes];
+		for(int i = 0; i < classes; i++)
+			cDist[i] = trailer.getInt(i * 4);
+
+		this.features = ftCount;
+		this.examples = ex;
+		this.classDist = cDist;
+		this.isValid = true;
+
+		return this.isValid;
+	}
+
+	/**
+	 * Reads the next instance from the file.
+	 * @return the next instance, else null if there are no more instances.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	protected I_Instance readNext() throws IOException
+	{
+		if(this.next >= this.examples)
+			return null;
+
+		if(this.next - this.windowStart >= this.windowRows)
+			map(this.next);
+
+		int offset = (this.next - this.windowStart) * this.rowSize;
+		this.next++;
+
+		return new BinaryInstance(this.window, offset, this.features);
+	}
+
+	/**
+	 * Copies the next row in to the row buffer, mapping the next window if required.
+	 * The caller must check there is a next row.
+	 * @return the row buffer, holding the features followed by the class label.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	private double[] readRow() throws IOException
+	{
+		if(this.row == null)
+			this.row = new double[this.features + 1];
+
+		if(this.next - this.windowStart >= this.windowRows)
+			map(this.next);
+
+		int offset = (this.next - this.windowStart) * this.rowSize;
+		for(int i = 0; i <= this.features; i++)
+			this.row[i] = this.window.getDouble(offset + i * 8);
+
+		this.next++;
+		return this.row;
+	}
+
+	/**
+	 * Moves back to the start of the file.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	protected void rewind() throws IOException
+	{
+		map(0);
+		this.next = 0;
+	}
+
+	/**
+	 * Maps the region of the file starting at the supplied row.
+	 * @param row the index of the first row to map.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	protected void map(int row) throws IOException
+	{
+		int rows = Math.min(this.windowRows, this.examples - row);
+		MappedByteBuffer mapped = this.channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + (long) row * this.rowSize, (long) rows * this.rowSize);
+
+		this.window = mapped.order(ByteOrder.LITTLE_ENDIAN);
+		this.windowStart = row;
+	}
+
+	/**
+	 * Over-ridden toString method.
+	 * @return a string describing this class.
+	 */
+	public String toString()
+	{
+		String message = "\nFile:\t" + this.path + "\nExamples:\t" + this.examples +
+				 "\nFeatures:\t" + this.features + "\nClass dist:\n\t";
+
+		if(this.classDist != null)
+			for(int i=0;i<this.classDist.length;i++)
+				message += "Class "+i+ ":\t" + this.classDist[i] + "\n\t";
+		else
+			message += " empty\n";
+
+		message += "\n";
+
+		return message;
+	}
+}
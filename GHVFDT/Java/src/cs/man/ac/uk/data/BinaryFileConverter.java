@@ -0,0 +1,168 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	BinaryFileConverter.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.TreeMap;
+
+import cs.man.ac.uk.obj.BaseObject;
+
+/**
+ * Converts the instances read from a data file (e.g. an {@link ARFFFile} or
+ * {@link CSVFile}) in to the binary format read by {@link BinaryFile}. A data
+ * set that will be replayed many times need then only be parsed once.
+ */
+public class BinaryFileConverter extends BaseObject
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The size of the buffer rows are written through.
+	 */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Default constructor.
+	 * @param v the verbose logging flag.
+	 */
+	public BinaryFileConverter(boolean v) { super(v); }
+
+	/**
+	 *	Methods
+	 */
+
+	/**
+	 * Writes every remaining instance in the source file to a binary data file.
+	 * The source should be freshly opened, so that all of its instances are written.
+	 * @param source the file to convert, which must be read incrementally.
+	 * @param destination the full path of the binary file to write, any existing file is replaced.
+	 * @return true if the file was converted, else false.
+	 */
+	public boolean convert(I_File source, String destination)
+	{
+		if(!source.isValid())
+		{
+			this.processError("Error converting data file, the source file is not valid.");
+			return false;
+		}
+
+		// The number of features of a streamed file is not known until its first row is read.
+		I_Instance inst = source.getNext();
+		int ftCount = inst != null ? inst.numAttributes() : source.getFeatureCount();
+		int rowSize = (ftCount + 1) * 8;
+		int ex = 0;
+		TreeMap<Integer,Integer> cDist = new TreeMap<Integer,Integer>();
+
+		RandomAccessFile file = null;
+
+		try
+		{
+			file = new RandomAccessFile(destination, "rw");
+			file.setLength(0);
+
+			FileChannel channel = file.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, rowSize)).order(ByteOrder.LITTLE_ENDIAN);
+
+			// Rows follow the header, which is written last once the counts are known.
+			channel.position(BinaryFile.HEADER_SIZE);
+
+			for(; inst != null; inst = source.getNext())
+			{
+				if(inst.numAttributes() != ftCount)
+				{
+					this.processError("Error converting data file, instance " + (ex + 1) + " has " + inst.numAttributes() + " features, expected " + ftCount + ".");
+					return false;
+				}
+
+				if(buffer.remaining() < rowSize)
+					write(channel, buffer);
+
+				for(int i = 0; i < ftCount; i++)
+					buffer.putDouble(inst.value(i));
+
+				int clazz = inst.getClassLabel();
+				buffer.putDouble(clazz);
+
+				Integer currentClassCount = cDist.get(clazz);
+				cDist.put(clazz, currentClassCount == null ? 1 : currentClassCount + 1);
+				ex++;
+			}
+
+			int[] classDist = this.toPrimitiveInt(cDist);
+
+			for(int i = 0; i < classDist.length; i++)
+			{
+				if(buffer.remaining() < 4)
+					write(channel, buffer);
+
+				buffer.putInt(classDist[i]);
+			}
+
+			write(channel, buffer);
+
+			buffer.putInt(BinaryFile.MAGIC);
+			buffer.putInt(BinaryFile.VERSION);
+			buffer.putInt(ftCount);
+			buffer.putInt(classDist.length);
+			buffer.putInt(ex);
+			buffer.putInt(0);
+
+			channel.position(0);
+			write(channel, buffer);
+
+			return true;
+		}
+		catch (IOException e) { this.processError(e,"IOException in public boolean convert(I_File source, String destination)"); return false; }
+		finally
+		{
+			if(file != null)
+				try { file.close(); }
+				catch (IOException e) { e.printStackTrace();}
+		}
+	}
+
+	/**
+	 * Writes the contents of the buffer to the channel, leaving the buffer empty.
+	 * @param channel the channel to write to.
+	 * @param buffer the buffer to write.
+	 * @throws IOException if the data cannot be written.
+	 */
+	private void write(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+
+		buffer.clear();
+	}
+}
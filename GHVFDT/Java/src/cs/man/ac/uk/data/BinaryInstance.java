@@ -0,0 +1,207 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	BinaryInstance.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.nio.ByteBuffer;
+import java.util.Vector;
+
+/**
+ * A read only data instance that is a view of a single row in a {@link BinaryFile}.
+ * Feature values are read straight out of the (memory mapped) buffer holding
+ * the row, so creating an instance copies no data. As the file is mapped read
+ * only, the methods that modify an instance throw an UnsupportedOperationException.
+ */
+public class BinaryInstance implements I_Instance
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The little-endian buffer containing the row.
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * The position of the first byte of the row in the buffer.
+	 */
+	private final int offset;
+
+	/**
+	 * The number of features possessed by this instance.
+	 */
+	private final int featureCount;
+
+	/**
+	 * The class label for this instance, stored after the features.
+	 */
+	private final int classLabel;
+
+	/**
+	 * The training weight for this instance, which is not stored in the binary row.
+	 */
+	private double weight = 1.0;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Creates a new view of a row of binary data.
+	 * @param buffer the little-endian buffer containing the row.
+	 * @param offset the position of the first byte of the row in the buffer.
+	 * @param n the number of features in the row.
+	 */
+	public BinaryInstance(ByteBuffer buffer, int offset, int n)
+	{
+		this.buffer = buffer;
+		this.offset = offset;
+		this.featureCount = n;
+		this.classLabel = (int) buffer.getDouble(offset + n * 8);
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#getClassLabel()
+	 */
+	@Override
+	public int getClassLabel() { return this.classLabel;}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#getFeature(int)
+	 */
+	@Override
+	public double getFeature(int f)
+	{
+		if(f >= 0 && f < this.featureCount)
+			return this.value(f);
+		else
+			return Double.NaN;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#getFeatures()
+	 */
+	@Override
+	public Vector<Double> getFeatures()
+	{
+		Vector<Double> features = new Vector<Double>(this.featureCount);
+
+		for(int i=0;i<this.featureCount;i++)
+			features.add(this.value(i));
+
+		return features;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setClasslabel(int)
+	 */
+	@Override
+	public void setClasslabel(int i) { throw new UnsupportedOperationException("Binary instances are read only."); }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setFeature(int, double)
+	 */
+	@Override
+	public boolean setFeature(int f, double value) { throw new UnsupportedOperationException("Binary instances are read only."); }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setFeatures(double[])
+	 */
+	@Override
+	public boolean setFeatures(double[] data) { throw new UnsupportedOperationException("Binary instances are read only."); }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#addFeature(double)
+	 */
+	@Override
+	public void addFeature(double f) { throw new UnsupportedOperationException("Binary instances are read only."); }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#removeFeature(int)
+	 */
+	@Override
+	public void removeFeature(int f) { throw new UnsupportedOperationException("Binary instances are read only."); }
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString()
+	{
+		StringBuilder value = new StringBuilder();
+
+		for (int i=0;i<this.featureCount;i++)
+			value.append(this.value(i)).append(',');
+
+		value.append(this.classLabel);
+
+		return value.toString();
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#getFeatureCount()
+	 */
+	@Override
+	public int getFeatureCount() { return this.featureCount; }
+
+	/*
+	 *	MOA METHODS COMPATIBILITY.
+	 */
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#weight()
+	 */
+	public double weight(){ return this.weight; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setWeight(double)
+	 */
+	public void setWeight(double w) { this.weight = w; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#classIsMissing()
+	 */
+	public boolean classIsMissing() { return this.classLabel == -1; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#isMissing(int)
+	 */
+	public boolean isMissing(int attIndex) { return Double.isNaN(this.value(attIndex)); }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#numAttributes()
+	 */
+	public int numAttributes() { return this.featureCount; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#classValue()
+	 */
+	public double classValue() { return (double) this.classLabel; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#value(int)
+	 */
+	public double value(int attIndex) { return this.buffer.getDouble(this.offset + attIndex * 8); }
+}
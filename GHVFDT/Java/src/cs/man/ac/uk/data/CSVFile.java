@@ -29,9 +29,10 @@ package cs.man.ac.uk.data;
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.List;
-import java.util.TreeMap;
 
 /**
  * Represents a data file in comma separated value (CSV) format.
@@ -56,6 +57,60 @@ public class CSVFile extends DataFile implements I_File
 		this.checkValidity();
 	}
 
+	/**
+	 * Creates a new CSV file instance, which may be streamed. A streamed file is not
+	 * scanned in full when opened, instead only the first rows are checked, and the
+	 * remaining rows are validated as they are read. The example count and class
+	 * distribution then describe the rows read so far.
+	 * @param pth the full path to the file.
+	 * @param inc incremental read flag.
+	 * @param stream true to stream the file, false to scan it in full when opened.
+	 * @param v the verbose logging flag.
+	 */
+	public CSVFile(String pth, boolean inc, boolean stream, boolean v) 
+	{
+		super(pth, inc, stream, v);
+
+		if(stream)
+			this.checkHeader();
+		else
+			this.checkValidity();
+	}
+
+	/**
+	 * Creates a new CSV file that is opened using its sidecar index (see {@link DataFileIndex}),
+	 * so that it is not scanned when opened. If the file has no index, or has changed since
+	 * it was indexed, it is scanned and a new index is written. Instances can then be read
+	 * from part way through the file using {@link #seek(int)} and {@link #read(int, int)}.
+	 * @param pth the full path to the file.
+	 * @param inc incremental read flag.
+	 * @param stride the number of instances between the offsets recorded in a new index.
+	 * @param v the verbose logging flag.
+	 */
+	public CSVFile(String pth, boolean inc, int stride, boolean v) 
+	{
+		super(pth, inc, v);
+		this.checkIndexedValidity(stride);
+	}
+
+	/**
+	 * Creates a new CSV file that reads from a stream, such as standard input or a
+	 * named pipe, which may be gzip compressed. The stream is read once, and each row
+	 * is validated as it is read. The example count and class distribution describe
+	 * the rows read so far.
+	 * @param in the stream to read from.
+	 * @param v the verbose logging flag.
+	 */
+	public CSVFile(InputStream in, boolean v) { super(in, v); }
+
+	/**
+	 * Creates a new CSV file that reads from a channel, which may be gzip compressed.
+	 * The channel is read once, as for {@link #CSVFile(InputStream, boolean)}.
+	 * @param channel the channel to read from.
+	 * @param v the verbose logging flag.
+	 */
+	public CSVFile(ReadableByteChannel channel, boolean v) { this(Channels.newInputStream(channel), v); }
+
 	/**
 	 *	Methods
 	 */
@@ -88,7 +143,7 @@ public class CSVFile extends DataFile implements I_File
 	 * @see cs.man.ac.uk.data.I_File#getClassDistribution()
 	 */
 	@Override
-	public int[] getClassDistribution() { return this.classDist; }
+	public int[] getClassDistribution() { return this.classDistribution(); }
 
 	/* (non-Javadoc)
 	 * @see cs.man.ac.uk.data.I_File#getFeatureCount()
@@ -124,7 +179,7 @@ public class CSVFile extends DataFile implements I_File
 					try{ inst.addFeature(Double.parseDouble(components[i])); }
 			catch(NumberFormatException nfe)
 			{ 
-				this.processError(nfe,"NumberFormatException in public I_Instance createInstance(String line).");
+				this.processRejectedLine(nfe,"NumberFormatException in public I_Instance createInstance(String line).",line);
 				return null; // If we can't read data attributes, return null.
 			}
 
@@ -132,7 +187,7 @@ public class CSVFile extends DataFile implements I_File
 			try{ inst.setClasslabel(Integer.parseInt(components[components.length-1])); }
 			catch(NumberFormatException nfe)
 			{ 
-				this.processError(nfe,"NumberFormatException in public I_Instance createInstance(String line).");
+				this.processRejectedLine(nfe,"NumberFormatException in public I_Instance createInstance(String line).",line);
 				inst.setClasslabel(-2);
 			}
 
@@ -142,6 +197,9 @@ public class CSVFile extends DataFile implements I_File
 			return null;
 	}
 
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.DataFile#createInstance(double[])
+	 */
 	@Override
 	public I_Instance createInstance(double[] data) 
 	{
@@ -152,95 +210,17 @@ public class CSVFile extends DataFile implements I_File
 			return null;
 		}
 
-
-		I_Instance inst = new Instance();
-
 		// if the line string contains no comma separated information...
-		if(data != null)
+		if(data != null && data.length > 0)
 		{
-			if(data.length > 1)
-				for (int i=0; i< data.length-1;i++)
-					inst.addFeature(data[i]); 
-
-			// Class label is last item.
-			inst.setClasslabel((int)data[data.length-1]);
-
-			return inst;
+			// Wrap the data directly, the class label is the last item and
+			// is excluded from the features.
+			return new DenseInstance(data, data.length-1, (int)data[data.length-1]);
 		}
 		else
 			return null;
 	}
 
-	/* (non-Javadoc)
-	 * @see cs.man.ac.uk.data.DataFile#checkValidity()
-	 */
-	@Override
-	public boolean checkValidity()
-	{
-		try
-		{
-			// If the reader hasn't been initialized...
-			if(br==null)
-				br = new BufferedReader( new FileReader(this.path)); 
-
-			String line;
-
-			int ftCount = 0;
-			TreeMap<Integer,Integer> cDist = new TreeMap<Integer,Integer>();
-			int ex = 0;
-
-			int lineNumber = 0;
-			while ((line = br.readLine()) != null)
-			{
-				lineNumber++;
-				double[] data = doesLineContainValidData(line);
-
-				if(data != null)
-				{
-					ex++;
-					int tempFeatureCount = data.length-1;
-					int clazz = (int)data[data.length-1];
-
-					int currentClassCount = 0;
-
-					// Get the class count
-					if(cDist.get(clazz) != null) // No examples seen so far.
-						currentClassCount = cDist.get(clazz);
-
-					currentClassCount++;
-					cDist.put(clazz,currentClassCount);
-
-					if(ftCount == 0)
-						ftCount=tempFeatureCount;
-					else if(ftCount != tempFeatureCount)
-					{
-						// Discrepancy between feature lengths, report error.
-						String msg = "Error reading data on line " + lineNumber + " discrepency between number of features on each line.";
-						this.processError(msg);
-						return false;
-					}
-
-				}
-				else
-				{
-					// Construct informative error message.
-					String msg = "Error reading data on line " + lineNumber + " data could not be read as double[].";
-					this.processError(msg);
-					return false;
-				}
-			}
-
-			this.features = ftCount;
-			this.examples = ex;
-			this.classDist = this.toPrimitiveInt(cDist);
-			this.isValid = true;
-
-			return this.isValid;
-
-		}
-		catch (IOException e) { this.processError(e,"IOException in public boolean checkValidity()."); return false; }
-		finally { closeFile(); prepareFile();  }
-	}
 
 	/* (non-Javadoc)
 	 * @see cs.man.ac.uk.data.DataFile#doesLineContainValidData(java.lang.String)
@@ -248,6 +228,14 @@ public class CSVFile extends DataFile implements I_File
 	@Override
 	public double[] doesLineContainValidData(String line)
 	{
+		if(line == null)
+			return null;
+		
+		// Parse the line directly where possible, as this avoids creating
+		// a string for each value and an exception for each invalid value.
+		if(this.canParseLinesDirectly())
+			return this.parseLine(line);
+		
 		// Get string components with comments removed (if there are any).
 		String[] components = this.removeComment(this.commentSymbol, line).split(this.separator);
 
@@ -300,7 +288,8 @@ public class CSVFile extends DataFile implements I_File
 	@Override
 	public void prepareFile()
 	{
-		if(this.readIncrementally)
+		// A stream cannot be re-opened.
+		if(this.readIncrementally && !this.singlePass)
 		{	
 			try { br = new BufferedReader( new FileReader(this.path)); }
 			catch (FileNotFoundException fnf)
@@ -0,0 +1,561 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	ColumnarDataset.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.Vector;
+
+import cs.man.ac.uk.obj.ErrorChannel;
+
+/**
+ * An in-memory data set stored by column, with one primitive double[] per feature
+ * and an int[] of class labels. Unlike the list of {@link Instance} objects returned
+ * by {@link DataFile#read()}, where each value is a boxed Double held in a Vector,
+ * each value here takes only eight bytes. Scanning a feature over every row reads
+ * a single contiguous array.
+ *
+ * The rows can be read as {@link I_Instance} views, see {@link #get(int)}. Views hold
+ * no data of their own: reading a view reads the data set, and setting a feature or
+ * class label of a view writes to the data set. Rows have a training weight of
+ * 1.0 unless added with another weight, in which case the weights are stored in a
+ * further array.
+ */
+public class ColumnarDataset implements Iterable<I_Instance>
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The number of rows read from a file at a time when loading.
+	 */
+	private static final int LOAD_BATCH_SIZE = 1024;
+
+	/**
+	 * The initial number of rows held, when the number of rows is not known.
+	 */
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * The values of each feature, one array per feature, indexed by row.
+	 */
+	private double[][] columns;
+
+	/**
+	 * The class label of each row.
+	 */
+	private int[] labels;
+
+	/**
+	 * The training weight of each row, null until a row with a weight other than 1.0 is added.
+	 */
+	private double[] weights = null;
+
+	/**
+	 * The number of features in each row.
+	 */
+	private final int featureCount;
+
+	/**
+	 * The number of rows in the data set.
+	 */
+	private int size = 0;
+
+	/**
+	 *	Constructors
+	 */
+
+	/**
+	 * Creates a new empty data set.
+	 * @param n the number of features in each row.
+	 */
+	public ColumnarDataset(int n)
+	{
+		this(n, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new empty data set.
+	 * @param n the number of features in each row.
+	 * @param capacity the number of rows to allocate space for, the data set grows beyond this if needed.
+	 */
+	public ColumnarDataset(int n, int capacity)
+	{
+		this.featureCount = n;
+		this.columns = new double[n][Math.max(capacity, 1)];
+		this.labels = new int[Math.max(capacity, 1)];
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/**
+	 * Loads every remaining instance of a file in to a new data set. The instances
+	 * are read in batches, so no objects are created per instance for files that
+	 * support batched reads.
+	 * @param file the file to load.
+	 * @return the data set, else null if the file is not valid.
+	 */
+	public static ColumnarDataset load(I_File file)
+	{
+		if(!file.isValid())
+			return null;
+
+		// The feature and example counts of a streamed file are only complete once it
+		// has been read, so the data set is sized from the first block read.
+		InstanceBlock block = file.getNextBatch(LOAD_BATCH_SIZE);
+		int features = block != null ? block.getFeatureCount() : file.getFeatureCount();
+		ColumnarDataset dataset = new ColumnarDataset(features, Math.max(file.countExamples(), DEFAULT_CAPACITY));
+
+		for(; block != null; block = file.getNextBatch(LOAD_BATCH_SIZE))
+		{
+			if(!dataset.add(block))
+				ErrorChannel.getDefault().report(ColumnarDataset.class.getSimpleName(), "Error loading data set, a block has " +
+						block.getFeatureCount() + " features, expected " + features + ", the block is skipped.", null);
+		}
+
+		dataset.trim();
+		return dataset;
+	}
+
+	/**
+	 * Adds a row to the data set.
+	 * @param data the feature values, only the first n are copied.
+	 * @param n the number of features, must equal the feature count of the data set.
+	 * @param label the class label.
+	 * @return true if the row was added, else false if it has the wrong number of features.
+	 */
+	public boolean add(double[] data, int n, int label)
+	{
+		if(n != this.featureCount)
+			return false;
+
+		ensureCapacity(this.size + 1);
+
+		for(int f = 0; f < n; f++)
+			this.columns[f][this.size] = data[f];
+
+		if(this.weights != null)
+			this.weights[this.size] = 1.0;
+
+		this.labels[this.size++] = label;
+		return true;
+	}
+
+	/**
+	 * Adds a copy of an instance to the data set.
+	 * @param inst the instance, which must have the same number of features as the data set.
+	 * @return true if the instance was added, else false if it has the wrong number of features.
+	 */
+	public boolean add(I_Instance inst)
+	{
+		if(inst.numAttributes() != this.featureCount)
+			return false;
+
+		ensureCapacity(this.size + 1);
+
+		for(int f = 0; f < this.featureCount; f++)
+			this.columns[f][this.size] = inst.value(f);
+
+		this.labels[this.size] = inst.getClassLabel();
+		setWeight(this.size++, inst.weight());
+		return true;
+	}
+
+	/**
+	 * Adds a copy of every row in a block to the data set. The block is read one
+	 * feature at a time, so each column is written sequentially.
+	 * @param block the block, which must have the same number of features as the data set.
+	 * @return true if the rows were added, else false if the block has the wrong number of features.
+	 */
+	public boolean add(InstanceBlock block)
+	{
+		if(block.getFeatureCount() != this.featureCount)
+			return false;
+
+		int rows = block.size();
+		ensureCapacity(this.size + rows);
+
+		double[] values = block.getValues();
+
+		for(int f = 0; f < this.featureCount; f++)
+		{
+			double[] column = this.columns[f];
+
+			for(int r = 0, i = f; r < rows; r++, i += this.featureCount)
+				column[this.size + r] = values[i];
+		}
+
+		System.arraycopy(block.getLabels(), 0, this.labels, this.size, rows);
+
+		if(block.isWeighted() || this.weights != null)
+			for(int r = 0; r < rows; r++)
+				setWeight(this.size + r, block.getWeight(r));
+
+		this.size += rows;
+		return true;
+	}
+
+	/**
+	 * @return the number of rows in the data set.
+	 */
+	public int size() { return this.size; }
+
+	/**
+	 * @return the number of features in each row.
+	 */
+	public int getFeatureCount() { return this.featureCount; }
+
+	/**
+	 * @param row the row.
+	 * @param f the feature.
+	 * @return the value of the feature in the row.
+	 */
+	public double value(int row, int f) { return this.columns[f][row]; }
+
+	/**
+	 * @param row the row.
+	 * @return the class label of the row.
+	 */
+	public int getClassLabel(int row) { return this.labels[row]; }
+
+	/**
+	 * @param row the row.
+	 * @return the training weight of the row.
+	 */
+	public double getWeight(int row) { return this.weights == null ? 1.0 : this.weights[row]; }
+
+	/**
+	 * Sets the training weight of a row, only allocating storage for the weights
+	 * once a weight other than 1.0 is used.
+	 * @param row the row.
+	 * @param weight the training weight.
+	 */
+	public void setWeight(int row, double weight)
+	{
+		if(this.weights == null)
+		{
+			if(weight == 1.0)
+				return;
+
+			this.weights = new double[this.labels.length];
+			Arrays.fill(this.weights, 1.0);
+		}
+
+		this.weights[row] = weight;
+	}
+
+	/**
+	 * @param f the feature.
+	 * @return the array holding the value of the feature in each row, only the
+	 * first {@link #size()} values are valid.
+	 */
+	public double[] getColumn(int f) { return this.columns[f]; }
+
+	/**
+	 * @return the array holding the class label of each row, only the first
+	 * {@link #size()} labels are valid.
+	 */
+	public int[] getLabels() { return this.labels; }
+
+	/**
+	 * @return the number of rows with each class label, in ascending order of label.
+	 */
+	public int[] getClassDistribution()
+	{
+		TreeMap<Integer,Integer> cDist = new TreeMap<Integer,Integer>();
+
+		for(int r = 0; r < this.size; r++)
+		{
+			Integer currentClassCount = cDist.get(this.labels[r]);
+			cDist.put(this.labels[r], currentClassCount == null ? 1 : currentClassCount + 1);
+		}
+
+		int[] dist = new int[cDist.size()];
+		int i = 0;
+
+		for(Integer count : cDist.values())
+			dist[i++] = count;
+
+		return dist;
+	}
+
+	/**
+	 * @param row the row.
+	 * @return a view of the row.
+	 */
+	public I_Instance get(int row)
+	{
+		if(row < 0 || row >= this.size)
+			throw new IndexOutOfBoundsException("Row " + row + " of " + this.size);
+
+		return new Row(row);
+	}
+
+	/**
+	 * @return a view of the data set as a list of instances, in place of the list
+	 * returned by {@link I_File#getAll()}. Each element is a view of a row.
+	 */
+	public List<I_Instance> asList()
+	{
+		return new AbstractList<I_Instance>()
+		{
+			@Override
+			public I_Instance get(int index) { return ColumnarDataset.this.get(index); }
+
+			@Override
+			public int size() { return ColumnarDataset.this.size; }
+		};
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<I_Instance> iterator()
+	{
+		return new Iterator<I_Instance>()
+		{
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() { return this.next < size; }
+
+			@Override
+			public I_Instance next()
+			{
+				if(this.next >= size)
+					throw new NoSuchElementException();
+
+				return new Row(this.next++);
+			}
+
+			@Override
+			public void remove() { throw new UnsupportedOperationException(); }
+		};
+	}
+
+	/**
+	 * Frees the space allocated for rows beyond the size of the data set.
+	 */
+	public void trim()
+	{
+		if(this.labels.length > this.size)
+			resize(Math.max(this.size, 1));
+	}
+
+	/**
+	 * Grows the columns so that they can hold at least the requested number of rows.
+	 * @param rows the number of rows required.
+	 */
+	private void ensureCapacity(int rows)
+	{
+		if(rows > this.labels.length)
+			resize(Math.max(rows, this.labels.length + (this.labels.length >> 1)));
+	}
+
+	/**
+	 * Re-allocates the columns to hold the requested number of rows.
+	 * @param rows the number of rows.
+	 */
+	private void resize(int rows)
+	{
+		for(int f = 0; f < this.featureCount; f++)
+			this.columns[f] = Arrays.copyOf(this.columns[f], rows);
+
+		this.labels = Arrays.copyOf(this.labels, rows);
+
+		if(this.weights != null)
+			this.weights = Arrays.copyOf(this.weights, rows);
+	}
+
+	/**
+	 * Over-ridden toString method.
+	 * @return a string describing this class.
+	 */
+	public String toString()
+	{
+		return "\nRows:\t" + this.size + "\nFeatures:\t" + this.featureCount +
+				"\nClass dist:\t" + Arrays.toString(getClassDistribution()) + "\n";
+	}
+
+	/**
+	 * A view of a single row of the data set. The number of features of a view
+	 * cannot be changed, as every row has the same number of features.
+	 */
+	private class Row implements I_Instance
+	{
+		/**
+		 * The row viewed.
+		 */
+		private final int row;
+
+		/**
+		 * @param row the row viewed.
+		 */
+		Row(int row) { this.row = row; }
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#getClassLabel()
+		 */
+		@Override
+		public int getClassLabel() { return labels[this.row]; }
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#getFeature(int)
+		 */
+		@Override
+		public double getFeature(int f)
+		{
+			if(f >= 0 && f < featureCount)
+				return columns[f][this.row];
+			else
+				return Double.NaN;
+		}
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#getFeatures()
+		 */
+		@Override
+		public Vector<Double> getFeatures()
+		{
+			Vector<Double> features = new Vector<Double>(featureCount);
+
+			for(int f = 0; f < featureCount; f++)
+				features.add(columns[f][this.row]);
+
+			return features;
+		}
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#setClasslabel(int)
+		 */
+		@Override
+		public void setClasslabel(int i) { labels[this.row] = i; }
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#setFeature(int, double)
+		 */
+		@Override
+		public boolean setFeature(int f, double value)
+		{
+			if(f < 0 || f >= featureCount)
+				return false;
+
+			columns[f][this.row] = value;
+			return true;
+		}
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#setFeatures(double[])
+		 */
+		@Override
+		public boolean setFeatures(double[] values)
+		{
+			if(values.length != featureCount)
+				return false;
+
+			for(int f = 0; f < featureCount; f++)
+				columns[f][this.row] = values[f];
+
+			return true;
+		}
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#addFeature(double)
+		 */
+		@Override
+		public void addFeature(double f) { throw new UnsupportedOperationException("The rows of a data set have a fixed number of features."); }
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#removeFeature(int)
+		 */
+		@Override
+		public void removeFeature(int f) { throw new UnsupportedOperationException("The rows of a data set have a fixed number of features."); }
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#getFeatureCount()
+		 */
+		@Override
+		public int getFeatureCount() { return featureCount; }
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		public String toString()
+		{
+			StringBuilder value = new StringBuilder();
+
+			for (int f=0;f<featureCount;f++)
+				value.append(columns[f][this.row]).append(',');
+
+			value.append(labels[this.row]);
+
+			return value.toString();
+		}
+
+		/*
+		 *	MOA METHODS COMPATIBILITY.
+		 */
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#weight()
+		 */
+		public double weight(){ return getWeight(this.row); }
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#setWeight(double)
+		 */
+		public void setWeight(double w) { ColumnarDataset.this.setWeight(this.row, w); }
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#classIsMissing()
+		 */
+		public boolean classIsMissing() { return labels[this.row] == -1; }
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#isMissing(int)
+		 */
+		public boolean isMissing(int attIndex) { return Double.isNaN(columns[attIndex][this.row]); }
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#numAttributes()
+		 */
+		public int numAttributes() { return featureCount; }
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#classValue()
+		 */
+		public double classValue() { return (double) labels[this.row]; }
+
+		/* (non-Javadoc)
+		 * @see cs.man.ac.uk.data.I_Instance#value(int)
+		 */
+		public double value(int attIndex) { return columns[attIndex][this.row]; }
+	}
+}
@@ -26,12 +26,21 @@
  */
 package cs.man.ac.uk.data;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
 
 import cs.man.ac.uk.obj.BaseObject;
 
@@ -93,6 +102,163 @@ public abstract class DataFile extends BaseObject
 	 * Used to read in the file.
 	 */
 	protected BufferedReader br = null;
+	
+	/**
+	 * Flag that indicates the file is streamed. When streaming, only the first
+	 * row is checked when the file is opened, and every other row is validated
+	 * as it is read. The example count and class distribution are then accumulated
+	 * as the file is consumed, rather than computed up front.
+	 */
+	protected boolean streaming = false;
+	
+	/**
+	 * The number of instances between the offsets recorded in the sidecar index of the
+	 * file, or zero if the file is not indexed. See {@link DataFileIndex}.
+	 */
+	protected int indexStride = 0;
+	
+	/**
+	 * The sidecar index of the file, or null if the file is not indexed.
+	 */
+	protected DataFileIndex index = null;
+	
+	/**
+	 * Flag that indicates the data is read from a stream rather than a file on disk.
+	 * A stream can only be read once, as it cannot be re-opened.
+	 */
+	protected boolean singlePass = false;
+	
+	/**
+	 * The number of rows streamed so far with each class label, indexed by label, so
+	 * that counting a row creates no objects. The array grows as labels are seen.
+	 */
+	protected int[] streamedDist = new int[2];
+	
+	/**
+	 * The number of rows streamed so far with each class label that is negative, or
+	 * too large to index {@link #streamedDist} by.
+	 */
+	protected TreeMap<Integer,Integer> streamedOtherDist = new TreeMap<Integer,Integer>();
+	
+	/**
+	 * Class labels from zero up to this value are counted in {@link #streamedDist}.
+	 */
+	private static final int MAX_INDEXED_LABEL = 1 << 16;
+	
+	/**
+	 * The number of lines read in the current pass over a streamed file.
+	 */
+	protected int streamedLines = 0;
+	
+	/**
+	 * The number of valid rows read in the current pass over a streamed file.
+	 */
+	protected int streamedRows = 0;
+	
+	/**
+	 * The number of rows rejected in the current pass over a streamed file.
+	 */
+	protected int streamedRejected = 0;
+	
+	/**
+	 * Characters that have a special meaning in a regular expression. A separator
+	 * containing one of these cannot be parsed directly by {@link NumberParser}.
+	 */
+	private static final String REGEX_CHARACTERS = ".$|()[]{}^?*+\\";
+	
+	/**
+	 * Buffer the characters of each line are copied in to, so they can be parsed
+	 * without splitting the line in to separate strings.
+	 */
+	private char[] lineBuffer = new char[256];
+	
+	/**
+	 * Buffer each line is parsed in to, before being copied to an array of the right size.
+	 */
+	private double[] valueBuffer = new double[32];
+	
+	/**
+	 * The block returned by {@link #getNextBatch(int)}, re-used by each call.
+	 */
+	private InstanceBlock batch = null;
+	
+	/**
+	 * Splits the characters read by {@link #br} in to lines, without creating a String per line.
+	 */
+	private LineReader lines = null;
+	
+	/**
+	 * Flags the columns of the file kept by the projection, including the class
+	 * column, else null if every column is kept. See {@link #setProjection(int[])}.
+	 */
+	private boolean[] projection = null;
+	
+	/**
+	 * The position of each column of the file in a projected row, else -1 if the
+	 * column is not kept.
+	 */
+	private int[] projectedColumns = null;
+	
+	/**
+	 * Returned in place of the number of values read, when a row does not have
+	 * the same number of columns as the projection.
+	 */
+	private static final int DISCREPANCY = -3;
+	
+	/**
+	 * The number of rows checked when a streamed file is opened. A single row cannot
+	 * be trusted to give the number of features, as it may itself be malformed.
+	 */
+	private static final int HEADER_ROWS = 3;
+	
+	/**
+	 * Holds the row most recently read when it is sparse, else null when the row
+	 * is dense and held in the value buffer.
+	 */
+	private SparseInstance sparseRow = null;
+	
+	/**
+	 * Flag that indicates the number of features is known. When reading from a stream
+	 * it is taken from the header if it declares the attributes, else from the first
+	 * valid row read.
+	 */
+	private boolean featuresKnown = true;
+	
+	/**
+	 * The single byte character set used when indexing the file, so that the offset
+	 * of each character read is the offset of its byte in the file.
+	 */
+	private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+	
+	/**
+	 * The size of the buffers used when reading from a stream.
+	 */
+	private static final int STREAM_BUFFER_SIZE = 1 << 16;
+	
+	/**
+	 * The default shortest time waited for new lines, when following the file (ms).
+	 */
+	public static final long DEFAULT_FOLLOW_MIN_WAIT = 1;
+	
+	/**
+	 * The default longest time waited for new lines, when following the file (ms).
+	 */
+	public static final long DEFAULT_FOLLOW_MAX_WAIT = 10;
+	
+	/**
+	 * Flag that indicates the file is followed as it grows, see {@link #setFollow(boolean)}.
+	 */
+	private volatile boolean follow = false;
+	
+	/**
+	 * The shortest time waited for new lines, when following the file (ms).
+	 */
+	private long followMinWait = DEFAULT_FOLLOW_MIN_WAIT;
+	
+	/**
+	 * The longest time waited for new lines, when following the file (ms).
+	 */
+	private long followMaxWait = DEFAULT_FOLLOW_MAX_WAIT;
     
     /**
 	 *	Constructor 
@@ -116,6 +282,70 @@ public abstract class DataFile extends BaseObject
 		catch (FileNotFoundException e){ e.printStackTrace(); }
 	}
 	
+	/**
+	 * Creates a data file that may be streamed.
+	 * @param pth the full path to the file on disk.
+	 * @param inc a boolean flag that indicates whether or not to read the
+	 * file incrementally. True means read incrementally.
+	 * @param stream true if the file should be streamed, i.e. validated as it is read
+	 * rather than scanned in full when opened.
+	 * @param v the verbose logging flag
+	 */
+	public DataFile(String pth,boolean inc,boolean stream,boolean v)
+	{
+		this(pth,inc,v);
+		this.streaming = stream;
+	}
+	
+	/**
+	 * Creates a data file that reads from a stream, such as standard input or a named
+	 * pipe. Gzip compressed data is detected and decompressed. The stream is read once,
+	 * without being scanned first, so every row is validated as it is read. The number
+	 * of features is taken from the header if it declares the attributes, as in ARFF
+	 * streams, else from the first valid row.
+	 * @param in the stream to read from.
+	 * @param v the verbose logging flag
+	 */
+	public DataFile(InputStream in,boolean v)
+	{
+		super(v);
+		this.path = "(stream)";
+		this.readIncrementally = true;
+		this.streaming = true;
+		this.singlePass = true;
+		this.featuresKnown = false;
+		
+		try
+		{
+			br = new BufferedReader( new InputStreamReader(decompress(in)), STREAM_BUFFER_SIZE);
+			this.isValid = true;
+		}
+		catch (IOException e) { this.processError(e,"IOException in public DataFile(InputStream in,boolean v)."); }
+	}
+	
+	/**
+	 * Wraps a stream so that gzip compressed data is decompressed as it is read.
+	 * Compressed data is recognised by the gzip magic number at its start, any
+	 * other data is read unchanged.
+	 * @param in the stream to wrap.
+	 * @return a stream that reads the decompressed data.
+	 * @throws IOException if the start of the stream cannot be read.
+	 */
+	public static InputStream decompress(InputStream in) throws IOException
+	{
+		BufferedInputStream buffered = new BufferedInputStream(in, STREAM_BUFFER_SIZE);
+		
+		buffered.mark(2);
+		int first = buffered.read();
+		int second = buffered.read();
+		buffered.reset();
+		
+		if(first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8))
+			return new GZIPInputStream(buffered, STREAM_BUFFER_SIZE);
+		else
+			return buffered;
+	}
+	
 	/**
 	 * Processes the data file, and extracts all possible data instances.
 	 * @return a list of data instances, else null if there are any errors.
@@ -127,24 +357,22 @@ public abstract class DataFile extends BaseObject
         	if(!this.isValid)
         		return null;
         	
-        	// First make sure any previously opened file is closed.
-        	closeFile();
-        	
         	// The set of instances found.
         	List<I_Instance> instances = new ArrayList<I_Instance>();
         	
-        	// Re-initialize the buffered reader.
-            br = new BufferedReader( new FileReader(this.path));
+        	// A stream cannot be re-opened, so only the remaining instances are read.
+        	if(!this.singlePass)
+        	{
+        		// First make sure any previously opened file is closed.
+        		closeFile();
+        		
+        		// Re-initialize the buffered reader.
+        		br = new BufferedReader( new FileReader(this.path));
+        	}
             
-            // Stores the next line.
-        	String line = "";
-        	
-            while ((line = br.readLine()) != null)
-            {
-            	double[] data = doesLineContainValidData(line);
-            	if(data != null)
-            		instances.add(createInstance(data));
-            }
+            I_Instance inst;
+            while ((inst = readNext()) != null)
+            	instances.add(inst);
             
             return instances;
         }
@@ -152,49 +380,335 @@ public abstract class DataFile extends BaseObject
         finally { closeFile(); prepareFile(); }
 	}
 	
+	/**
+	 * Reads a shard of the file, i.e. a run of consecutive instances. Afterwards
+	 * reading continues from the instance after the shard.
+	 * @param from the index of the first instance to read, from zero.
+	 * @param count the maximum number of instances to read.
+	 * @return the instances read, else null if the shard cannot be read.
+	 */
+	public List<I_Instance> read(int from, int count)
+	{
+		if(!seek(from))
+			return null;
+		
+		List<I_Instance> instances = new ArrayList<I_Instance>(Math.max(0, Math.min(count, this.examples - from)));
+		
+		I_Instance inst;
+		while (instances.size() < count && (inst = readNext()) != null)
+			instances.add(inst);
+		
+		return instances;
+	}
+	
+	/**
+	 * Moves to an instance in the file, so that it is the next instance read. If
+	 * the file is indexed, reading starts from the closest instance whose offset
+	 * is recorded, so at most the index stride of instances are skipped. Otherwise
+	 * reading starts from the beginning of the file.
+	 * @param instance the index of the instance, from zero.
+	 * @return true if the instance is the next to be read, else false if it
+	 * does not exist, or the file is streamed.
+	 */
+	public boolean seek(int instance)
+	{
+		if(!this.isValid || this.streaming || instance < 0 || instance > this.examples)
+		{
+			String msg = "Cannot seek to instance " + instance + " of " + this.examples + ", seek is only possible in valid files that are not streamed.";
+			this.processError(msg);
+			return false;
+		}
+		
+		try
+		{
+			if (br != null)
+				br.close();
+			
+			long offset = 0;
+			int skip = instance;
+			
+			if(this.index != null)
+			{
+				offset = this.index.offset(instance);
+				skip = instance - this.index.nearest(instance);
+			}
+			
+			FileInputStream in = new FileInputStream(this.path);
+			in.getChannel().position(offset);
+			br = new BufferedReader( new InputStreamReader(in));
+			
+			while(skip > 0 && readNextRow() >= 0)
+				skip--;
+			
+			return skip == 0;
+		}
+		catch (IOException e) { this.processError(e,"IOException in public boolean seek(int instance)"); return false; }
+	}
+	
 	/**
 	 * Reads the next individual instance from the data file.
 	 * @return the next I_Instance example from the file, else null
 	 * if there is an error.
 	 */
 	public I_Instance readNext()
+	{
+		int count = readNextRow();
+		
+		if(count < 0)
+			return null;
+		else if(this.sparseRow != null)
+			return new SparseInstance(this.sparseRow);
+		else
+			return createInstance(Arrays.copyOf(this.valueBuffer, count));
+	}
+	
+	/**
+	 * Reads the next individual instance from the data file in to an existing
+	 * instance, which is overwritten. When the instance is a {@link DenseInstance},
+	 * or a {@link SparseInstance} and the row read is sparse, no objects are created
+	 * per instance read.
+	 * @param into the instance to overwrite, which must be modifiable.
+	 * @return true if an instance was read, else false if there are no more
+	 * instances or there is an error.
+	 */
+	public boolean getNext(I_Instance into)
+	{
+		int count = readNextRow();
+		
+		if(count < 0)
+			return false;
+		
+		if(this.sparseRow != null && into instanceof SparseInstance)
+			((SparseInstance)into).set(this.sparseRow);
+		else
+		{
+			count = toDense(count);
+			DenseInstance.copy(into, this.valueBuffer, count-1, (int)this.valueBuffer[count-1]);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Reads up to <i>n</i> of the next instances in to a block, which is re-used
+	 * by subsequent calls.
+	 * @param n the maximum number of instances to read.
+	 * @return a block holding the next instances, else null if there are no more.
+	 */
+	public InstanceBlock getNextBatch(int n)
+	{
+		if(n <= 0)
+			return null;
+		
+		// The first row is read before the block is sized, as the number
+		// of features is not known until then when reading from a stream.
+		int count = toDense(readNextRow());
+		
+		if(count < 0)
+			return null;
+		
+		this.batch = InstanceBlock.reuse(this.batch, n, this.features);
+		
+		do
+			this.batch.add(this.valueBuffer, count-1, (int)this.valueBuffer[count-1]);
+		while(!this.batch.isFull() && (count = toDense(readNextRow())) > 0);
+		
+		return this.batch;
+	}
+	
+	/**
+	 * Reads the data on the next valid line of the data file.
+	 * @return the features followed by the class label, else null if there
+	 * are no more valid lines or there is an error.
+	 */
+	protected double[] readNextData()
+	{
+		int count = toDense(readNextRow());
+		
+		if(count < 0)
+			return null;
+		else
+			return Arrays.copyOf(this.valueBuffer, count);
+	}
+	
+	/**
+	 * Reads the data on the next valid line of the data file in to the value buffer,
+	 * or in to {@link #sparseRow} if the line is sparse. Where possible, the data is
+	 * parsed directly from the characters read, so no objects are created per line.
+	 * @return the number of values read (the features followed by the class label),
+	 * else -1 if there are no more valid lines or there is an error.
+	 */
+	private int readNextRow()
 	{
         try
         {
         	if(!this.isValid)
-        		return null;
+        		return -1;
         	
         	// If the reader hasn't been initialized...
         	if(br == null)
         		br = new BufferedReader( new FileReader(this.path)); 
         	
-            String line = br.readLine();
-            
+        	// The reader is replaced each time the file is prepared.
+        	if(this.lines == null || this.lines.getSource() != br)
+        		this.lines = new LineReader(br);
+        	
+        	boolean direct = this.canParseLinesDirectly();
+        	
             // This while loop added to accommodate files with headers.
             // In other words if reading incrementally, keep reading until
             // the next valid data instance is found.
-            while( line!= null && doesLineContainValidData(line) == null)
-            	line = br.readLine();
-            
-            if(line == null)
+            while(nextLine())
             {
-            	if (br != null)
-                    br.close();// must be a problem with the file.
+            	int count;
+            	this.sparseRow = null;
             	
-            	return null;
-            }
-            else
-            {
-            	double[] data = doesLineContainValidData(line);
-            	
-            	if(data != null)
-            		return createInstance(data);
+            	if(isSparseLine(this.lines.buffer(), this.lines.start(), this.lines.end()))
+            	{
+            		if(this.streaming)
+            			this.streamedLines++;
+            		
+            		this.sparseRow = parseSparseLine(this.lines.buffer(), this.lines.start(), this.lines.end());
+            		count = this.sparseRow == null ? NumberParser.INVALID : projectSparseRow();
+            		
+            		if(this.streaming && !acceptStreamedRow(count, count < 0 ? 0 : this.sparseRow.getClassLabel()))
+            			continue;
+            		else if(count < 0)
+            			continue;
+            	}
+            	else if(direct && this.streaming)
+            	{
+            		this.streamedLines++;
+            		
+            		if(isHeaderOrComment(this.lines.buffer(), this.lines.start(), this.lines.end()))
+            		{
+            			readHeaderLine(this.lines.buffer(), this.lines.start(), this.lines.end());
+            			continue;
+            		}
+            		
+            		count = parseRow(this.lines.buffer(), this.lines.start(), this.lines.end());
+            		
+            		if(!acceptStreamedRow(count, count < 0 ? 0 : (int)this.valueBuffer[count-1]))
+            			continue;
+            	}
+            	else if(direct)
+            	{
+            		count = parseRow(this.lines.buffer(), this.lines.start(), this.lines.end());
+            		
+            		if(count < 0)
+            			continue;
+            	}
             	else
-            		return null;
+            	{
+            		String line = this.lines.line();
+            		double[] data = this.streaming ? validateStreamedLine(line) : doesLineContainValidData(line);
+            		
+            		if(data == null)
+            			continue;
+            		
+            		count = project(data);
+            		
+            		if(count < 0)
+            			continue;
+            	}
+            	
+            	return count;
             }
             
+            br.close();
+            return -1;
         }
-        catch (IOException e) { this.processError(e,"IOException in public I_Instance readNext()"); return null; }
+        catch (IOException e) { this.processError(e,"IOException in private int readNextRow()"); return -1; }
+	}
+	
+	/**
+	 * Moves to the next complete line of the file. When following the file, this waits
+	 * for more lines to be written at the end of the file, backing off from the shortest
+	 * to the longest wait while none are.
+	 * @return true if there is another line, else false at the end of the file, or if the
+	 * thread is interrupted while waiting.
+	 * @throws IOException if the file cannot be read.
+	 */
+	private boolean nextLine() throws IOException
+	{
+		for(int waits = 0; ; waits++)
+		{
+			this.lines.setFollow(this.follow);
+			
+			if(this.lines.next())
+				return true;
+			else if(!this.follow)
+				return false;
+			
+			try { Thread.sleep(Math.min(this.followMinWait << Math.min(waits, 20), this.followMaxWait)); }
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+	}
+	
+	/**
+	 * Sets whether the file is followed as it grows, for files that are appended to
+	 * while they are read. When following, reaching the end of the file does not end
+	 * it, instead reading waits for new lines to be written. A final line without a
+	 * line terminator is not read until it is complete. Following may be stopped from
+	 * another thread, after which reading ends at the current end of the file, as does
+	 * interrupting a thread waiting for new lines. A final line that is still incomplete
+	 * then is not read.
+	 * 
+	 * Only streamed files can be followed, as rows appended after the file is opened
+	 * must be validated as they are read.
+	 * @param f true to follow the file, else false.
+	 * @return true if following was set, else false if the file is not streamed.
+	 */
+	public boolean setFollow(boolean f)
+	{
+		if(f && !this.streaming)
+		{
+			this.processError("Only streamed files can be followed.");
+			return false;
+		}
+		
+		this.follow = f;
+		return true;
+	}
+	
+	/**
+	 * Sets how long to wait for new lines when following the file. The wait starts at
+	 * the shortest, and doubles each time no new lines are found, up to the longest.
+	 * @param minWait the shortest wait (ms), at least one.
+	 * @param maxWait the longest wait (ms), at least the shortest wait.
+	 */
+	public void setFollowBackoff(long minWait, long maxWait)
+	{
+		this.followMinWait = Math.max(1, minWait);
+		this.followMaxWait = Math.max(this.followMinWait, maxWait);
+	}
+	
+	/**
+	 * @return true if the file is followed as it grows, else false.
+	 */
+	public boolean isFollowing() { return this.follow; }
+	
+	/**
+	 * Ensures the row most recently read is held in the value buffer, writing out
+	 * every feature of a sparse row, for readers that require dense rows.
+	 * @param count the number of values read, as returned by {@link #readNextRow()}.
+	 * @return the number of values in the value buffer, else count if it is negative.
+	 */
+	private int toDense(int count)
+	{
+		if(count < 0 || this.sparseRow == null)
+			return count;
+		
+		if(count > this.valueBuffer.length)
+			this.valueBuffer = new double[count];
+		
+		this.sparseRow.toDoubleArray(this.valueBuffer);
+		this.valueBuffer[count-1] = this.sparseRow.getClassLabel();
+		return count;
 	}
 	
 	/**
@@ -203,12 +717,488 @@ public abstract class DataFile extends BaseObject
 	 */
 	public void closeFile()
 	{
+		// Any subsequent read starts a new pass over the file.
+		this.streamedLines = 0;
+		this.streamedRows = 0;
+		this.streamedRejected = 0;
+		
 		if(this.readIncrementally)
 			if (br != null)
 				try { br.close(); } 
 				catch (IOException e) { e.printStackTrace();}
 	}
 	
+	/**
+	 * Checks the first rows of data in the file only, used when the file is streamed.
+	 * The number of features is taken from the header if it declares the attributes,
+	 * else from the first row, and each of the first rows checked must have the same
+	 * number. The remaining rows are validated as they are read.
+	 * @return true if valid, else false.
+	 */
+	public boolean checkHeader()
+	{
+		try
+		{
+			// If the reader hasn't been initialized...
+			if(br==null)
+				br = new BufferedReader( new FileReader(this.path)); 
+
+			// A final line without a line terminator is not checked, as it may still be being written.
+			LineReader reader = new LineReader(br);
+			reader.setFollow(true);
+			
+			String line;
+			int lineNumber = 0;
+			int rows = 0;
+			
+			// If there is no header, the number of features is taken from the first row read.
+			int declared = this.declaredFeatures();
+			this.features = Math.max(0, declared);
+			this.featuresKnown = declared >= 0;
+			
+			while (rows < HEADER_ROWS && reader.next())
+			{
+				lineNumber++;
+				line = reader.line();
+				
+				if(isHeaderOrComment(line))
+					continue;
+				
+				double[] data = null;
+				SparseInstance row = null;
+				
+				if(isSparseLine(line))
+					row = parseSparseLine(line);
+				else
+					data = doesLineContainValidData(line);
+				
+				if(data == null && row == null)
+				{
+					// Construct informative error message.
+					String msg = "Error reading data on line " + lineNumber + " data could not be read as double[].";
+					this.processRejectedLine(msg, line);
+					return false;
+				}
+				
+				int tempFeatureCount = row == null ? data.length-1 : row.numAttributes();
+				
+				if(!this.featuresKnown)
+				{
+					this.features = tempFeatureCount;
+					this.featuresKnown = true;
+				}
+				else if(this.features != tempFeatureCount)
+				{
+					// Discrepancy between feature lengths, report error.
+					String msg = "Error reading data on line " + lineNumber + " discrepency between number of features on each line.";
+					this.processRejectedLine(msg, line);
+					return false;
+				}
+				
+				rows++;
+			}
+			
+			this.isValid = true;
+			
+			return this.isValid;
+		}
+		catch (IOException e) { this.processError(e,"IOException in public boolean checkHeader()."); return false; }
+		finally { closeFile(); prepareFile();  }
+	}
+	
+	/**
+	 * Validates a line read from a streamed file. Rows that cannot be read, or that
+	 * have a different number of features to the first row, are reported and skipped.
+	 * The first time a row is read, it is added to the example count and the class
+	 * distribution.
+	 * @param line the line of data from the data file.
+	 * @return the numerical data if valid (including the class label), else null.
+	 */
+	protected double[] validateStreamedLine(String line)
+	{
+		this.streamedLines++;
+		
+		if(isHeaderOrComment(line))
+		{
+			readHeaderLine(toChars(line), 0, line.length());
+			return null;
+		}
+		
+		double[] data = doesLineContainValidData(line);
+		int count = data == null ? NumberParser.INVALID : this.projection == null ? data.length : 
+			data.length == this.projection.length ? this.features + 1 : DISCREPANCY;
+		
+		if(!acceptStreamedRow(count, count < 0 ? 0 : (int)data[data.length-1]))
+			return null;
+		
+		return data;
+	}
+	
+	/**
+	 * Checks a row parsed from the current line of a streamed file, reporting it if it
+	 * cannot be read, or has a different number of features to the first row.
+	 * @param count the number of values parsed, else a negative value if the line is invalid.
+	 * @param clazz the class label of the row.
+	 * @return true if the row is valid, else false.
+	 */
+	private boolean acceptStreamedRow(int count, int clazz)
+	{
+		if(count == DISCREPANCY)
+		{
+			String msg = "Error reading data on line " + this.streamedLines + " discrepency between number of features on each line.";
+			this.processRejectedLine(msg, this.lines.line());
+			this.streamedRejected++;
+			return false;
+		}
+		else if(count < 0)
+		{
+			String msg = "Error reading data on line " + this.streamedLines + " data could not be read as double[].";
+			this.processRejectedLine(msg, this.lines.line());
+			this.streamedRejected++;
+			return false;
+		}
+		
+		// A stream's header is read as it is streamed, so is complete by the first row.
+		if(!this.featuresKnown)
+		{
+			int declared = this.declaredFeatures();
+			this.features = declared >= 0 ? declared : count-1;
+			this.featuresKnown = true;
+		}
+		
+		if(count-1 != this.features)
+		{
+			String msg = "Error reading data on line " + this.streamedLines + " discrepency between number of features on each line.";
+			this.processRejectedLine(msg, this.lines.line());
+			this.streamedRejected++;
+			return false;
+		}
+		
+		this.streamedRows++;
+		
+		// Rows are only counted the first time they are read.
+		if(this.streamedRows > this.examples)
+		{
+			countStreamedClass(clazz);
+			this.examples = this.streamedRows;
+			this.classDist = null;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Counts a streamed row with a class label.
+	 * @param clazz the class label of the row.
+	 */
+	private void countStreamedClass(int clazz)
+	{
+		if(clazz < 0 || clazz >= MAX_INDEXED_LABEL)
+		{
+			Integer currentClassCount = this.streamedOtherDist.get(clazz);
+			this.streamedOtherDist.put(clazz, currentClassCount == null ? 1 : currentClassCount + 1);
+			return;
+		}
+		
+		if(clazz >= this.streamedDist.length)
+			this.streamedDist = Arrays.copyOf(this.streamedDist, Math.min(Math.max(clazz + 1, this.streamedDist.length * 2), MAX_INDEXED_LABEL));
+		
+		this.streamedDist[clazz]++;
+	}
+	
+	/**
+	 * @return the number of rows rejected in the current pass over a streamed file,
+	 * i.e. those that cannot be read, or have a different number of features.
+	 */
+	public int countRejected() { return this.streamedRejected; }
+	
+	/**
+	 * @return the class distribution, when streaming this is the distribution of
+	 * the rows read so far.
+	 */
+	protected int[] classDistribution()
+	{
+		if(this.streaming && this.classDist == null)
+		{
+			// Only the labels seen are included, in ascending order of label.
+			TreeMap<Integer,Integer> dist = new TreeMap<Integer,Integer>(this.streamedOtherDist);
+			
+			for(int c = 0; c < this.streamedDist.length; c++)
+				if(this.streamedDist[c] > 0)
+					dist.put(c, this.streamedDist[c]);
+			
+			this.classDist = this.toPrimitiveInt(dist);
+		}
+		
+		return this.classDist;
+	}
+	
+	/**
+	 * Parses a line of separated numerical data directly, without splitting it in to
+	 * separate strings, or throwing exceptions for invalid values. This gives exactly
+	 * the same result as removing the comment, splitting the line using the separator,
+	 * and parsing each component with Double.parseDouble.
+	 * @param line the line of data from the data file.
+	 * @return the data on the line, or null if the line does not contain valid data.
+	 */
+	protected double[] parseLine(String line)
+	{
+		int count = parseLine(toChars(line), 0, line.length());
+		
+		if(count == NumberParser.INVALID)
+			return null;
+		
+		return Arrays.copyOf(this.valueBuffer, count);
+	}
+	
+	/**
+	 * Parses a line of separated numerical data in to the value buffer, growing
+	 * the buffer if required.
+	 * @param chars the characters of the line.
+	 * @param start the index of the first character of the line.
+	 * @param end the index after the last character of the line.
+	 * @return the number of values parsed, else NumberParser.INVALID.
+	 */
+	private int parseLine(char[] chars, int start, int end)
+	{
+		int count;
+		while((count = NumberParser.parseLine(chars, start, end, this.separator.charAt(0), '%', this.valueBuffer)) == NumberParser.OVERFLOW)
+			this.valueBuffer = new double[this.valueBuffer.length * 2];
+		
+		return count;
+	}
+	
+	/**
+	 * Parses a row of data in to the value buffer, keeping only the columns in the
+	 * projection if one is set, see {@link #setProjection(int[])}.
+	 * @param chars the characters of the line.
+	 * @param start the index of the first character of the line.
+	 * @param end the index after the last character of the line.
+	 * @return the number of values kept, else NumberParser.INVALID, or DISCREPANCY
+	 * if the row does not have the same number of columns as the projection.
+	 */
+	private int parseRow(char[] chars, int start, int end)
+	{
+		if(this.projection == null)
+			return parseLine(chars, start, end);
+		
+		int columns;
+		while((columns = NumberParser.parseLine(chars, start, end, this.separator.charAt(0), '%', this.projection, this.valueBuffer)) == NumberParser.OVERFLOW)
+			this.valueBuffer = new double[this.valueBuffer.length * 2];
+		
+		if(columns < 0)
+			return columns;
+		
+		return columns == this.projection.length ? this.features + 1 : DISCREPANCY;
+	}
+	
+	/**
+	 * Copies a row of data in to the value buffer, keeping only the columns in the
+	 * projection if one is set.
+	 * @param data the features followed by the class label.
+	 * @return the number of values kept, else DISCREPANCY if the row does not have
+	 * the same number of columns as the projection.
+	 */
+	private int project(double[] data)
+	{
+		if(this.projection != null && data.length != this.projection.length)
+			return DISCREPANCY;
+		
+		int count = this.projection == null ? data.length : this.features + 1;
+		
+		if(count > this.valueBuffer.length)
+			this.valueBuffer = new double[count];
+		
+		if(this.projection == null)
+			System.arraycopy(data, 0, this.valueBuffer, 0, count);
+		else
+			for(int i = 0; i < data.length; i++)
+				if(this.projection[i])
+					this.valueBuffer[this.projectedColumns[i]] = data[i];
+		
+		return count;
+	}
+	
+	/**
+	 * Removes the features of the current sparse row that are not in the projection,
+	 * if one is set.
+	 * @return the number of values in the row (the features followed by the class label),
+	 * else DISCREPANCY if the row does not have the same number of columns as the projection.
+	 */
+	private int projectSparseRow()
+	{
+		if(this.projection == null)
+			return this.sparseRow.numAttributes() + 1;
+		else if(this.sparseRow.numAttributes() + 1 != this.projection.length)
+			return DISCREPANCY;
+		
+		this.sparseRow.project(this.projectedColumns, this.features);
+		return this.features + 1;
+	}
+	
+	/**
+	 * Projects the instances read on to some of the features, so that only those
+	 * features are parsed. The values of the other features are skipped without
+	 * being parsed, and the instances read hold only the features kept, in the order
+	 * they appear in the file, followed by the class label. The example count and
+	 * class distribution are unchanged, but the feature count becomes the number of
+	 * features kept. As the values skipped are not parsed, invalid values in those
+	 * features are not reported when the file is streamed.
+	 * @param keep the indices of the features to keep, from zero, else null to keep every feature.
+	 * @return true if the projection was set, else false if the number of features
+	 * is not yet known, or an index is out of range.
+	 */
+	public boolean setProjection(int[] keep)
+	{
+		int columns = this.projection == null ? this.features + 1 : this.projection.length;
+		
+		if(keep == null)
+		{
+			this.projection = null;
+			this.projectedColumns = null;
+			this.features = columns - 1;
+			return true;
+		}
+		else if(!this.isValid || !this.featuresKnown)
+		{
+			String msg = "Cannot project the features of the file, as the number of features is not yet known.";
+			this.processError(msg);
+			return false;
+		}
+		
+		boolean[] mask = new boolean[columns];
+		
+		for(int f : keep)
+		{
+			if(f < 0 || f >= columns - 1)
+			{
+				String msg = "Cannot project on to feature " + f + ", the file has " + (columns - 1) + " features.";
+				this.processError(msg);
+				return false;
+			}
+			
+			mask[f] = true;
+		}
+		
+		// The class label is always kept.
+		mask[columns - 1] = true;
+		
+		int[] positions = new int[columns];
+		int kept = 0;
+		
+		for(int i = 0; i < columns; i++)
+			positions[i] = mask[i] ? kept++ : -1;
+		
+		this.projection = mask;
+		this.projectedColumns = positions;
+		this.features = kept - 1;
+		return true;
+	}
+	
+	/**
+	 * @return true if a projection is set, see {@link #setProjection(int[])}.
+	 */
+	public boolean isProjected() { return this.projection != null; }
+	
+	/**
+	 * @return true if lines can be parsed using {@link #parseLine(String)}, i.e. the
+	 * separator is a single character that is not a regular expression, and
+	 * the comment symbol is the default.
+	 */
+	protected boolean canParseLinesDirectly()
+	{
+		return this.separator.length() == 1 && REGEX_CHARACTERS.indexOf(this.separator.charAt(0)) == -1
+				&& "%".equals(this.commentSymbol);
+	}
+	
+	/**
+	 * @return true if this file is streamed, i.e. validated as it is read.
+	 */
+	public boolean isStreaming() { return this.streaming; }
+	
+	/**
+	 * Checks if a line is a header line or comment, which contains no data and
+	 * should be skipped. By default no lines are skipped.
+	 * @param line the line of data from the data file.
+	 * @return true if the line should be skipped, else false.
+	 */
+	protected boolean isHeaderOrComment(String line) { return false; }
+	
+	/**
+	 * Checks if a line is a header line or comment, in the same way as
+	 * {@link #isHeaderOrComment(String)}. By default no lines are skipped.
+	 * @param chars the characters of the line.
+	 * @param start the index of the first character of the line.
+	 * @param end the index after the last character of the line.
+	 * @return true if the line should be skipped, else false.
+	 */
+	protected boolean isHeaderOrComment(char[] chars, int start, int end) { return false; }
+	
+	/**
+	 * Called with each header line or comment skipped while streaming, so that
+	 * information in the header can be read from streams, which are not read
+	 * before the first row is. By default header lines are ignored.
+	 * @param chars the characters of the line.
+	 * @param start the index of the first character of the line.
+	 * @param end the index after the last character of the line.
+	 */
+	protected void readHeaderLine(char[] chars, int start, int end) { }
+	
+	/**
+	 * Gets the number of features declared in the header of the file, which is
+	 * used in place of the first row's when streaming. By default files have no header.
+	 * @return the number of features declared, else -1 if there are no declarations.
+	 */
+	protected int declaredFeatures() { return -1; }
+	
+	/**
+	 * Checks if a line holds a sparse row, i.e. only the non-zero values and their
+	 * indices. By default files have no sparse rows.
+	 * @param chars the characters of the line.
+	 * @param start the index of the first character of the line.
+	 * @param end the index after the last character of the line.
+	 * @return true if the line is sparse, else false.
+	 */
+	protected boolean isSparseLine(char[] chars, int start, int end) { return false; }
+	
+	/**
+	 * Parses a sparse row, for files that have them.
+	 * @param chars the characters of the line.
+	 * @param start the index of the first character of the line.
+	 * @param end the index after the last character of the line.
+	 * @return an instance holding the row, which may be re-used for the next row parsed,
+	 * else null if the row is not valid.
+	 */
+	protected SparseInstance parseSparseLine(char[] chars, int start, int end) { return null; }
+	
+	/**
+	 * Checks if a line holds a sparse row, see {@link #isSparseLine(char[], int, int)}.
+	 * @param line the line of data from the data file.
+	 * @return true if the line is sparse, else false.
+	 */
+	protected boolean isSparseLine(String line) { return isSparseLine(toChars(line), 0, line.length()); }
+	
+	/**
+	 * Parses a sparse row, see {@link #parseSparseLine(char[], int, int)}.
+	 * @param line the line of data from the data file.
+	 * @return an instance holding the row, else null if the row is not valid.
+	 */
+	protected SparseInstance parseSparseLine(String line) { return parseSparseLine(toChars(line), 0, line.length()); }
+	
+	/**
+	 * Copies a line in to the line buffer, growing the buffer if required.
+	 * @param line the line to copy.
+	 * @return the line buffer.
+	 */
+	private char[] toChars(String line)
+	{
+		if(line.length() > this.lineBuffer.length)
+			this.lineBuffer = new char[Math.max(line.length(), this.lineBuffer.length * 2)];
+		
+		line.getChars(0, line.length(), this.lineBuffer, 0);
+		return this.lineBuffer;
+	}
+	
 	/**
 	 * @return the symbol which signifies the start of a comment in the data file.
 	 */
@@ -240,18 +1230,155 @@ public abstract class DataFile extends BaseObject
 	public abstract I_Instance createInstance(String line);
 	
 	/**
-	 * Creates a new data instance.
-	 * @param data the numerical data.
+	 * Creates a new data instance. Implementations may wrap the supplied
+	 * array rather than copy it, so it should not be modified afterwards.
+	 * @param data the numerical data (features followed by the class label).
 	 * @return a new instance object created from the line, else null if there
 	 * are any errors.
 	 */
 	public abstract I_Instance createInstance(double[] data);
 	
 	/**
-	 * Checks the validity of the file.
+	 * Checks the validity of the file, by scanning every line. This counts the examples
+	 * and the class distribution, and checks every row has the same number of features.
+	 * If the file is indexed, the byte offset of every stride-th instance is recorded
+	 * as it is scanned, and then the index is written next to the file.
+	 * @return true if valid, else false.
+	 */
+	public boolean checkValidity()
+	{
+		try
+		{
+			File file = new File(this.path);
+			long size = file.length();
+			long modified = file.lastModified();
+			
+			// When indexing, the file is read as single byte characters so that the offset of each
+			// line is its offset in bytes. Line breaks and numbers are the same in any character
+			// set that extends ASCII, so this does not change which rows are valid.
+			if(this.indexStride > 0)
+			{
+				if(br != null)
+					br.close();
+				
+				br = new BufferedReader( new InputStreamReader(new FileInputStream(this.path), LATIN1));
+			}
+			// If the reader hasn't been initialized...
+			else if(br==null)
+				br = new BufferedReader( new FileReader(this.path)); 
+
+			LineReader reader = new LineReader(br);
+			long[] offsets = new long[16];
+			int offsetCount = 0;
+
+			int ftCount = 0;
+			TreeMap<Integer,Integer> cDist = new TreeMap<Integer,Integer>();
+			int ex = 0;
+
+			int lineNumber = 0;
+			while (reader.next())
+			{
+				lineNumber++;
+				String line = reader.line();
+				
+				// This ignores the header and comments.
+				if(isHeaderOrComment(line))
+					continue;
+				
+				double[] data = null;
+				SparseInstance row = null;
+
+				if(isSparseLine(line))
+					row = parseSparseLine(line);
+				else
+					data = doesLineContainValidData(line);
+
+				if(data != null || row != null)
+				{
+					if(this.indexStride > 0 && ex % this.indexStride == 0)
+					{
+						if(offsetCount == offsets.length)
+							offsets = Arrays.copyOf(offsets, offsets.length * 2);
+						
+						offsets[offsetCount++] = reader.offset();
+					}
+					
+					ex++;
+					int tempFeatureCount = row == null ? data.length-1 : row.numAttributes();
+					int clazz = row == null ? (int)data[data.length-1] : row.getClassLabel();
+
+					int currentClassCount = 0;
+
+					// Get the class count
+					if(cDist.get(clazz) != null) // No examples seen so far.
+						currentClassCount = cDist.get(clazz);
+
+					currentClassCount++;
+					cDist.put(clazz,currentClassCount);
+
+					if(ftCount == 0)
+						ftCount=tempFeatureCount;
+					else if(ftCount != tempFeatureCount)
+					{
+						// Discrepancy between feature lengths, report error.
+						String msg = "Error reading data on line " + lineNumber + " discrepency between number of features on each line.";
+						this.processRejectedLine(msg, line);
+						return false;
+					}
+
+				}
+				else
+				{
+					// Construct informative error message.
+					String msg = "Error reading data on line " + lineNumber + " data could not be read as double[].";
+					this.processRejectedLine(msg, line);
+					return false;
+				}
+			}
+
+			this.features = ftCount;
+			this.examples = ex;
+			this.classDist = this.toPrimitiveInt(cDist);
+			this.isValid = true;
+			
+			if(this.indexStride > 0)
+			{
+				this.index = new DataFileIndex(size, modified, ftCount, ex, this.indexStride, this.classDist, Arrays.copyOf(offsets, offsetCount));
+				
+				try { this.index.write(this.path); }
+				catch (IOException e) { this.processError(e,"IOException writing the index in public boolean checkValidity()."); }
+			}
+
+			return this.isValid;
+
+		}
+		catch (IOException e) { this.processError(e,"IOException in public boolean checkValidity()."); return false; }
+		finally { closeFile(); prepareFile();  }
+	}
+	
+	/**
+	 * Checks the validity of the file using its sidecar index, so that the file does
+	 * not have to be scanned. If the file has no index, or has changed since it was
+	 * indexed, it is scanned and a new index is written. An existing index is used
+	 * even if its stride differs from that requested.
+	 * @param stride the number of instances between the offsets recorded in a new index.
 	 * @return true if valid, else false.
 	 */
-	public abstract boolean checkValidity();
+	public boolean checkIndexedValidity(int stride)
+	{
+		this.indexStride = Math.max(1, stride);
+		this.index = DataFileIndex.read(this.path);
+		
+		if(this.index == null)
+			return checkValidity();
+		
+		this.features = this.index.getFeatureCount();
+		this.examples = this.index.countExamples();
+		this.classDist = this.index.getClassDistribution();
+		this.isValid = true;
+		
+		return this.isValid;
+	}
 	
 	/**
 	 * Checks if a line of data from the file represented by this class,
@@ -0,0 +1,287 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	DataFileIndex.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A sidecar index for a data file, stored next to it with the extension ".idx".
+ * The index holds the results of scanning the file, i.e. the number of examples,
+ * the number of features and the class distribution, so that the file can be
+ * opened without scanning it again. It also holds the byte offset of every
+ * <i>stride</i>-th instance, so that reading can start part way through the file.
+ *
+ * An index records the size and modification time of the file it describes, and
+ * is ignored if the file has changed since. The format is (all values big-endian):
+ *
+ * <pre>
+ * Header:  int magic number, int version, long file size, long file modification time,
+ *          int feature count, int example count, int stride.
+ * Classes: int class count, then the int count of each class.
+ * Offsets: int offset count, then the long byte offset of instances 0, stride, 2 * stride...
+ * </pre>
+ */
+public class DataFileIndex
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The magic number identifying an index file ("GHVI").
+	 */
+	public static final int MAGIC = 0x47485649;
+
+	/**
+	 * The version of the index format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The default number of instances between the offsets recorded.
+	 */
+	public static final int DEFAULT_STRIDE = 1024;
+
+	/**
+	 * The extension added to the path of a data file to give the path of its index.
+	 */
+	public static final String EXTENSION = ".idx";
+
+	/**
+	 * The size of the data file when indexed (bytes).
+	 */
+	private final long size;
+
+	/**
+	 * The modification time of the data file when indexed.
+	 */
+	private final long modified;
+
+	/**
+	 * The number of features in the data file.
+	 */
+	private final int features;
+
+	/**
+	 * The number of examples in the data file.
+	 */
+	private final int examples;
+
+	/**
+	 * The number of instances between the offsets recorded.
+	 */
+	private final int stride;
+
+	/**
+	 * The class distribution of the data file.
+	 */
+	private final int[] classDist;
+
+	/**
+	 * The byte offset of the line holding every stride-th instance.
+	 */
+	private final long[] offsets;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Creates a new index.
+	 * @param size the size of the data file (bytes).
+	 * @param modified the modification time of the data file.
+	 * @param features the number of features in the data file.
+	 * @param examples the number of examples in the data file.
+	 * @param stride the number of instances between the offsets recorded.
+	 * @param classDist the class distribution of the data file.
+	 * @param offsets the byte offset of every stride-th instance.
+	 */
+	public DataFileIndex(long size, long modified, int features, int examples, int stride, int[] classDist, long[] offsets)
+	{
+		this.size = size;
+		this.modified = modified;
+		this.features = features;
+		this.examples = examples;
+		this.stride = stride;
+		this.classDist = classDist;
+		this.offsets = offsets;
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/**
+	 * @param dataPath the path to a data file.
+	 * @return the path to the index of the data file.
+	 */
+	public static String indexPath(String dataPath) { return dataPath + EXTENSION; }
+
+	/**
+	 * Reads the index of a data file, if it has one that is up to date.
+	 * @param dataPath the path to the data file.
+	 * @return the index, else null if there is no index, it cannot be read,
+	 * or the data file has changed since it was indexed.
+	 */
+	public static DataFileIndex read(String dataPath)
+	{
+		File data = new File(dataPath);
+		File index = new File(indexPath(dataPath));
+
+		if(!data.isFile() || !index.isFile())
+			return null;
+
+		DataInputStream in = null;
+
+		try
+		{
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)));
+
+			if(in.readInt() != MAGIC || in.readInt() != VERSION)
+				return null;
+
+			long size = in.readLong();
+			long modified = in.readLong();
+
+			if(size != data.length() || modified != data.lastModified())
+				return null;
+
+			int features = in.readInt();
+			int examples = in.readInt();
+			int stride = in.readInt();
+
+			if(features < 0 || examples < 0 || stride <= 0)
+				return null;
+
+			// Counts are checked before anything is allocated, so a damaged count
+			// cannot ask for a negative or huge array.
+			int classes = in.readInt();
+			if(classes < 0 || classes * 4L > index.length())
+				return null;
+
+			int[] classDist = new int[classes];
+			for(int i = 0; i < classDist.length; i++)
+				if((classDist[i] = in.readInt()) < 0)
+					return null;
+
+			int count = in.readInt();
+			if(count != (examples + (long)stride - 1) / stride || count * 8L > index.length())
+				return null;
+
+			long[] offsets = new long[count];
+			for(int i = 0; i < offsets.length; i++)
+				offsets[i] = in.readLong();
+
+			return new DataFileIndex(size, modified, features, examples, stride, classDist, offsets);
+		}
+		catch (IOException e) { return null; } // A damaged index is rebuilt.
+		finally
+		{
+			if(in != null)
+				try { in.close(); }
+				catch (IOException e) { e.printStackTrace();}
+		}
+	}
+
+	/**
+	 * Writes this index next to the data file. The index is written to a temporary
+	 * file first and then moved in to place, so other processes never read a
+	 * partially written index.
+	 * @param dataPath the path to the data file.
+	 * @throws IOException if the index cannot be written.
+	 */
+	public void write(String dataPath) throws IOException
+	{
+		File index = new File(indexPath(dataPath));
+		File temp = new File(index.getPath() + ".tmp");
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+
+		try
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(this.size);
+			out.writeLong(this.modified);
+			out.writeInt(this.features);
+			out.writeInt(this.examples);
+			out.writeInt(this.stride);
+
+			out.writeInt(this.classDist.length);
+			for(int count : this.classDist)
+				out.writeInt(count);
+
+			out.writeInt(this.offsets.length);
+			for(long offset : this.offsets)
+				out.writeLong(offset);
+		}
+		finally { out.close(); }
+
+		Files.move(temp.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @return the number of features in the data file.
+	 */
+	public int getFeatureCount() { return this.features; }
+
+	/**
+	 * @return the number of examples in the data file.
+	 */
+	public int countExamples() { return this.examples; }
+
+	/**
+	 * @return the class distribution of the data file.
+	 */
+	public int[] getClassDistribution() { return this.classDist; }
+
+	/**
+	 * @return the number of instances between the offsets recorded.
+	 */
+	public int getStride() { return this.stride; }
+
+	/**
+	 * @param instance the index of an instance, from zero.
+	 * @return the index of the closest instance at or before it whose offset is recorded.
+	 */
+	public int nearest(int instance) { return instance / this.stride * this.stride; }
+
+	/**
+	 * @param instance the index of an instance, from zero.
+	 * @return the byte offset of the line holding the closest instance at or before it
+	 * whose offset is recorded, see {@link #nearest(int)}.
+	 */
+	public long offset(int instance)
+	{
+		int i = instance / this.stride;
+		return i < this.offsets.length ? this.offsets[i] : this.size;
+	}
+}
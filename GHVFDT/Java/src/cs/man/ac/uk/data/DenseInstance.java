@@ -0,0 +1,302 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	DenseInstance.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * A data instance whose features are stored in a flat primitive double array.
+ * Unlike {@link Instance}, reading a feature value does not require unboxing
+ * or acquiring a monitor, which makes this the preferred representation for
+ * instances passed through the tree during training and prediction.
+ *
+ * The array supplied to {@link #DenseInstance(double[], int, int)} is used
+ * directly and is not copied, so a line of parsed data (features followed by
+ * the class label) can be wrapped without any additional allocation.
+ */
+public class DenseInstance implements I_Instance
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The class label for this instance.
+	 */
+	private int classLabel = -1;
+
+	/**
+	 * The training weight for this instance.
+	 */
+	private double weight = 1.0;
+
+	/**
+	 * The features that describe this data instance. Only the first
+	 * <i>featureCount</i> elements of this array are features, any
+	 * remaining elements are ignored.
+	 */
+	private double[] values;
+
+	/**
+	 * The number of features possessed by this instance.
+	 */
+	private int featureCount;
+
+	/**
+	 *	Constructors
+	 */
+
+	/**
+	 * Creates a new instance with the specified number of features, all
+	 * initialised to zero.
+	 * @param n the number of features.
+	 */
+	public DenseInstance(int n)
+	{
+		this.values = new double[n];
+		this.featureCount = n;
+	}
+
+	/**
+	 * Creates a new instance that wraps the supplied array. The array is
+	 * not copied, so any later changes to it are visible via this instance.
+	 * @param data the array containing the feature values, which may be longer
+	 * than the number of features (i.e. it may also hold the class label).
+	 * @param n the number of features, i.e. the first n elements of data.
+	 * @param label the class label.
+	 */
+	public DenseInstance(double[] data, int n, int label)
+	{
+		this.values = data;
+		this.featureCount = n;
+		this.classLabel = label;
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#getClassLabel()
+	 */
+	@Override
+	public int getClassLabel() { return this.classLabel;}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#getFeature(int)
+	 */
+	@Override
+	public double getFeature(int f)
+	{
+		if(f >= 0 && f < this.featureCount)
+			return this.values[f];
+		else
+			return Double.NaN;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#getFeatures()
+	 */
+	@Override
+	public Vector<Double> getFeatures()
+	{
+		Vector<Double> features = new Vector<Double>(this.featureCount);
+
+		for(int i=0;i<this.featureCount;i++)
+			features.add(this.values[i]);
+
+		return features;
+	}
+
+	/**
+	 * @return the array backing this instance. Only the first
+	 * {@link #getFeatureCount()} elements are features.
+	 */
+	public double[] getValues() { return this.values; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setClasslabel(int)
+	 */
+	@Override
+	public void setClasslabel(int i) { this.classLabel = i; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setFeature(int, double)
+	 */
+	@Override
+	public boolean setFeature(int f, double value)
+	{
+		if(f >= 0 && f < this.featureCount)
+		{
+			this.values[f] = value;
+			return true;
+		}
+		else
+			return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setFeatures(double[])
+	 */
+	@Override
+	public boolean setFeatures(double[] data)
+	{
+		// Re-use the existing storage where possible.
+		if(data.length > this.values.length)
+			this.values = new double[data.length];
+
+		System.arraycopy(data, 0, this.values, 0, data.length);
+		this.featureCount = data.length;
+
+		return true;
+	}
+
+	/**
+	 * Overwrites the features and class label of this instance, re-using the
+	 * existing storage where possible, and resets its weight to 1.0. Unlike {@link #DenseInstance(double[], int, int)}
+	 * the data is copied, so the supplied array can be re-used by the caller.
+	 * @param data the array containing the feature values.
+	 * @param n the number of features, i.e. the first n elements of data.
+	 * @param label the class label.
+	 */
+	public void set(double[] data, int n, int label)
+	{
+		if(n > this.values.length)
+			this.values = new double[n];
+
+		System.arraycopy(data, 0, this.values, 0, n);
+		this.featureCount = n;
+		this.classLabel = label;
+		this.weight = 1.0;
+	}
+
+	/**
+	 * Overwrites the features and class label of an instance, as read by
+	 * {@link I_File#getNext(I_Instance)}, and resets its weight to 1.0. No objects are created when the
+	 * instance is a DenseInstance large enough to hold the features.
+	 * @param into the instance to overwrite.
+	 * @param data the array containing the feature values.
+	 * @param n the number of features, i.e. the first n elements of data.
+	 * @param label the class label.
+	 */
+	static void copy(I_Instance into, double[] data, int n, int label)
+	{
+		if(into instanceof DenseInstance)
+			((DenseInstance)into).set(data, n, label);
+		else
+		{
+			into.setFeatures(Arrays.copyOf(data, n));
+			into.setClasslabel(label);
+			into.setWeight(1.0);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#addFeature(double)
+	 */
+	@Override
+	public void addFeature(double f)
+	{
+		if(this.featureCount == this.values.length)
+		{
+			double[] grown = new double[this.values.length * 2 + 1];
+			System.arraycopy(this.values, 0, grown, 0, this.featureCount);
+			this.values = grown;
+		}
+
+		this.values[this.featureCount++] = f;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#removeFeature(int)
+	 */
+	@Override
+	public void removeFeature(int f)
+	{
+		if(f < 0 || f >= this.featureCount)
+			throw new ArrayIndexOutOfBoundsException(f);
+
+		System.arraycopy(this.values, f + 1, this.values, f, this.featureCount - f - 1);
+		this.featureCount--;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString()
+	{
+		StringBuilder value = new StringBuilder();
+
+		for (int i=0;i<this.featureCount;i++)
+			value.append(this.values[i]).append(',');
+
+		value.append(this.classLabel);
+
+		return value.toString();
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#getFeatureCount()
+	 */
+	@Override
+	public int getFeatureCount() { return this.featureCount; }
+
+	/*
+	 *	MOA METHODS COMPATIBILITY.
+	 */
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#weight()
+	 */
+	public double weight(){ return this.weight; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setWeight(double)
+	 */
+	public void setWeight(double w) { this.weight = w; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#classIsMissing()
+	 */
+	public boolean classIsMissing() { return this.classLabel == -1; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#isMissing(int)
+	 */
+	public boolean isMissing(int attIndex) { return Double.isNaN(this.values[attIndex]); }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#numAttributes()
+	 */
+	public int numAttributes() { return this.featureCount; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#classValue()
+	 */
+	public double classValue() { return (double) this.classLabel; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#value(int)
+	 */
+	public double value(int attIndex) { return this.values[attIndex]; }
+}
@@ -0,0 +1,472 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	DirectoryStreamFile.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import cs.man.ac.uk.obj.BaseObject;
+import cs.man.ac.uk.utils.PoolUtils;
+
+/**
+ * Reads a directory of CSV or ARFF data files as a single stream of instances.
+ * The files are read in order of their names, and the instances of each file are
+ * returned in the order they appear in it.
+ *
+ * While the instances of one file are returned, the following files are opened,
+ * checked for validity and loaded in to memory on a fork-join pool. So the next
+ * file is usually ready by the time the current one is exhausted, and the end of
+ * a file adds no pause to the stream. Only a few files are loaded ahead of the
+ * caller at any one time, so memory use is bounded by the size of the largest
+ * files, regardless of the number of files.
+ *
+ * The number of features is taken from the header (or first row) of the first
+ * valid file. Files that are not valid, or that have a different number of
+ * features, are reported and skipped. The example count and class distribution
+ * are those of the files reached so far, so they are only complete once all
+ * instances have been read.
+ */
+public class DirectoryStreamFile extends BaseObject implements I_File
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The default number of files loaded ahead of the caller.
+	 */
+	public static final int DEFAULT_PREFETCH = 4;
+
+	/**
+	 * The paths of the files read, in the order they are read.
+	 */
+	protected List<String> files;
+
+	/**
+	 * Flag that indicates the files are in ARFF format, else they are in CSV format.
+	 */
+	protected boolean arff = false;
+
+	/**
+	 * The number of files loaded ahead of the caller.
+	 */
+	protected int prefetch;
+
+	/**
+	 * The pool files are loaded on.
+	 */
+	protected ForkJoinPool pool;
+
+	/**
+	 * Number of examples in the files reached so far.
+	 */
+	protected int examples = 0;
+
+	/**
+	 * Number of features (data attributes) in every file.
+	 */
+	protected int features = 0;
+
+	/**
+	 * The class distribution of the files reached so far.
+	 */
+	protected TreeMap<Integer,Integer> classDist = new TreeMap<Integer,Integer>();
+
+	/**
+	 * Flag that indicates the validity of the stream, it is invalid if
+	 * none of the files are valid.
+	 */
+	protected boolean isValid = false;
+
+	/**
+	 * The files being loaded ahead of the caller, in order.
+	 */
+	private ArrayDeque<ForkJoinTask<ColumnarDataset>> pending = new ArrayDeque<ForkJoinTask<ColumnarDataset>>();
+
+	/**
+	 * The index of the next file to submit for loading.
+	 */
+	private int nextFile = 0;
+
+	/**
+	 * The instances of the file currently being read.
+	 */
+	private ColumnarDataset current = null;
+
+	/**
+	 * The index of the next row to return from the current file.
+	 */
+	private int currentRow = 0;
+
+	/**
+	 * Holds the features of a row, followed by its class label, when it is copied.
+	 */
+	private double[] row;
+
+	/**
+	 * The block returned by {@link #getNextBatch(int)}, re-used by each call.
+	 */
+	private InstanceBlock batch = null;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Opens every data file in a directory with the extension of the format, using
+	 * the default prefetch depth and pool.
+	 * @param directory the path to the directory.
+	 * @param arff true if the files are in ARFF format (.arff), false if in CSV format (.csv).
+	 * @param v the verbose logging flag.
+	 */
+	public DirectoryStreamFile(String directory, boolean arff, boolean v)
+	{
+		this(listFiles(directory, arff ? ".arff" : ".csv"), arff, DEFAULT_PREFETCH, null, v);
+	}
+
+	/**
+	 * Opens a list of data files as a single stream, and starts loading the first
+	 * files immediately.
+	 * @param files the paths of the files, in the order they are read.
+	 * @param arff true if the files are in ARFF format, false if in CSV format.
+	 * @param prefetch the number of files loaded ahead of the caller.
+	 * @param pool the pool files are loaded on, may be null to use the default pool.
+	 * @param v the verbose logging flag.
+	 */
+	public DirectoryStreamFile(List<String> files, boolean arff, int prefetch, ForkJoinPool pool, boolean v)
+	{
+		super(v);
+		this.files = files;
+		this.arff = arff;
+		this.prefetch = Math.max(prefetch, 1);
+		this.pool = PoolUtils.orDefault(pool);
+
+		this.checkHeaders();
+
+		if(this.isValid)
+		{
+			this.row = new double[this.features + 1];
+			this.loadAhead();
+		}
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/**
+	 * Lists the files in a directory with an extension, sorted by name.
+	 * @param directory the path to the directory.
+	 * @param extension the extension, which is matched ignoring case.
+	 * @return the full paths of the files.
+	 */
+	public static List<String> listFiles(String directory, String extension)
+	{
+		List<String> paths = new ArrayList<String>();
+		File[] contents = new File(directory).listFiles();
+
+		if(contents != null)
+			for(File file : contents)
+				if(file.isFile() && file.getName().toLowerCase().endsWith(extension.toLowerCase()))
+					paths.add(file.getAbsolutePath());
+
+		Collections.sort(paths);
+		return paths;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#isValid()
+	 */
+	@Override
+	public boolean isValid() { return this.isValid; }
+
+	/**
+	 * As the files are loaded as they are reached, this counts the examples in
+	 * the files reached so far.
+	 * @return the number of examples in the files reached so far.
+	 */
+	@Override
+	public int countExamples() { return this.examples; }
+
+	/**
+	 * Unlike most files, this returns only the instances that have not yet been
+	 * read, as the stream cannot be restarted.
+	 * @return the remaining instances in the stream.
+	 */
+	@Override
+	public List<I_Instance> getAll()
+	{
+		List<I_Instance> instances = new ArrayList<I_Instance>();
+
+		I_Instance inst;
+		while((inst = getNext()) != null)
+			instances.add(inst);
+
+		return instances;
+	}
+
+	/**
+	 * Returns the next instance, as a view of the file loaded in to memory.
+	 * @return the next instance, else null if there are no more.
+	 */
+	@Override
+	public I_Instance getNext()
+	{
+		if(!advance())
+			return null;
+
+		return this.current.get(this.currentRow++);
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNext(cs.man.ac.uk.data.I_Instance)
+	 */
+	@Override
+	public boolean getNext(I_Instance into)
+	{
+		if(!advance())
+			return false;
+
+		copyRow();
+		DenseInstance.copy(into, this.row, this.features, (int)this.row[this.features]);
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNextBatch(int)
+	 */
+	@Override
+	public InstanceBlock getNextBatch(int n)
+	{
+		if(!this.isValid || n <= 0)
+			return null;
+
+		this.batch = InstanceBlock.reuse(this.batch, n, this.features);
+
+		while(!this.batch.isFull() && advance())
+		{
+			copyRow();
+			this.batch.add(this.row, this.features, (int)this.row[this.features]);
+		}
+
+		return this.batch.size() == 0 ? null : this.batch;
+	}
+
+	/**
+	 * As the files are loaded as they are reached, this is the class distribution
+	 * of the files reached so far.
+	 * @return the class distribution of the files reached so far.
+	 */
+	@Override
+	public int[] getClassDistribution() { return this.toPrimitiveInt(this.classDist); }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getFeatureCount()
+	 */
+	@Override
+	public int getFeatureCount() { return this.features; }
+
+	/**
+	 * @return the paths of the files read, in the order they are read.
+	 */
+	public List<String> getFiles() { return this.files; }
+
+	/**
+	 * Stops loading files. No further instances can be read.
+	 */
+	public void closeFile()
+	{
+		for(ForkJoinTask<ColumnarDataset> task : this.pending)
+			task.cancel(false);
+
+		this.pending.clear();
+		this.current = null;
+		this.nextFile = this.files.size();
+	}
+
+	/**
+	 * Finds the number of features from the first valid file, reading only its
+	 * header (or first row), so that the stream is valid if any file is.
+	 */
+	protected void checkHeaders()
+	{
+		for(int i = 0; i < this.files.size(); i++)
+		{
+			String path = this.files.get(i);
+			DataFile header = this.arff ? new ARFFFile(path, true, true, this.verbose) : new CSVFile(path, true, true, this.verbose);
+			header.closeFile();
+
+			if(((I_File)header).isValid() && ((I_File)header).getFeatureCount() > 0)
+			{
+				this.features = ((I_File)header).getFeatureCount();
+				this.isValid = true;
+				return;
+			}
+
+			String msg = "Skipping file " + path + " as it does not contain valid data.";
+			this.processError(msg);
+			this.nextFile = i + 1;
+		}
+
+		String msg = "None of the " + this.files.size() + " files contain valid data.";
+		this.processError(msg);
+	}
+
+	/**
+	 * Moves to the next row, moving to the next file when the current file is
+	 * exhausted, and waiting for it to be loaded if necessary.
+	 * @return true if there is another row, else false if there are no more.
+	 */
+	private boolean advance()
+	{
+		if(!this.isValid)
+			return false;
+
+		while(this.current == null || this.currentRow == this.current.size())
+		{
+			if(this.pending.isEmpty())
+			{
+				this.current = null;
+				return false;
+			}
+
+			this.current = this.pending.poll().join();
+			this.currentRow = 0;
+
+			// Start loading the next file while this one is read.
+			this.loadAhead();
+
+			if(this.current != null)
+			{
+				this.examples += this.current.size();
+
+				for(int r = 0; r < this.current.size(); r++)
+				{
+					int clazz = this.current.getClassLabel(r);
+					Integer currentClassCount = this.classDist.get(clazz);
+					this.classDist.put(clazz, currentClassCount == null ? 1 : currentClassCount + 1);
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Submits files for loading until the prefetch depth is reached.
+	 */
+	private void loadAhead()
+	{
+		while(this.nextFile < this.files.size() && this.pending.size() < this.prefetch)
+			this.pending.add(this.pool.submit(new LoadTask(this.files.get(this.nextFile++))));
+	}
+
+	/**
+	 * Copies the current row in to the row buffer, and moves to the next row.
+	 */
+	private void copyRow()
+	{
+		for(int f = 0; f < this.features; f++)
+			this.row[f] = this.current.value(this.currentRow, f);
+
+		this.row[this.features] = this.current.getClassLabel(this.currentRow++);
+	}
+
+	/**
+	 * Over-ridden toString method.
+	 * @return a string describing this class.
+	 */
+	public String toString()
+	{
+		String message = "\nFiles:\t" + this.files.size() + "\nExamples:\t" + this.examples +
+				 "\nFeatures:\t" + this.features + "\nClass dist:\n\t";
+
+		int[] dist = this.getClassDistribution();
+
+		if(dist.length > 0)
+			for(int i=0;i<dist.length;i++)
+				message += "Class "+i+ ":\t" + dist[i] + "\n\t";
+		else
+			message += " empty\n";
+
+		message += "\n";
+
+		return message;
+	}
+
+	/**
+	 * Opens, validates and loads a single file in to memory.
+	 */
+	private class LoadTask extends RecursiveTask<ColumnarDataset>
+	{
+		/**
+		 * Required for serialization.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The path of the file to load.
+		 */
+		private final String path;
+
+		/**
+		 * @param path the path of the file to load.
+		 */
+		LoadTask(String path) { this.path = path; }
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveTask#compute()
+		 */
+		@Override
+		protected ColumnarDataset compute()
+		{
+			DataFile file = arff ? new ARFFFile(this.path, true, verbose) : new CSVFile(this.path, true, verbose);
+
+			try
+			{
+				if(!((I_File)file).isValid())
+				{
+					String msg = "Skipping file " + this.path + " as it does not contain valid data.";
+					processError(msg);
+					return null;
+				}
+				else if(((I_File)file).getFeatureCount() != features)
+				{
+					String msg = "Skipping file " + this.path + " as it has " + ((I_File)file).getFeatureCount() +
+							" features, not " + features + ".";
+					processError(msg);
+					return null;
+				}
+
+				return ColumnarDataset.load((I_File)file);
+			}
+			finally { file.closeFile(); }
+		}
+	}
+}
@@ -61,6 +61,26 @@ public interface I_File
 	 */
 	public I_Instance getNext();
 	
+	/**
+	 * Reads the next instance from this file in to an existing instance, which is
+	 * overwritten. This allows a single instance to be re-used while streaming
+	 * through a file, rather than creating a new instance for each one read.
+	 * @param into the instance to overwrite, which must be modifiable.
+	 * @return true if an instance was read, else false if there are no more
+	 * instances remaining in the file.
+	 */
+	public boolean getNext(I_Instance into);
+	
+	/**
+	 * Reads up to <i>n</i> of the next instances in to a block. The block returned
+	 * is re-used by subsequent calls, so its contents are only valid until the next
+	 * batch is read.
+	 * @param n the maximum number of instances to read.
+	 * @return a block holding the next instances, else null if there are no more
+	 * instances remaining in the file.
+	 */
+	public InstanceBlock getNextBatch(int n);
+	
 	/**
 	 * Counts the number of occurrences of each class in the file. Returns an integer
 	 * array <i>dists</i> of these counts, such that <i>dists[0]</i> counts the number
@@ -107,6 +107,12 @@ public interface I_Instance
 	 */
 	public double weight();
 
+	/**
+	 * Sets the training weight of this instance.
+	 * @param w the new weight.
+	 */
+	public void setWeight(double w);
+
 	/**
 	 * @return if the class label for this instance is missing or unknown.
 	 */
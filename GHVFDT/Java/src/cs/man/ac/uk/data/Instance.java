@@ -187,6 +187,11 @@ public class Instance implements I_Instance
 	public double weight(){ return this.weight;
 	}
 
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setWeight(double)
+	 */
+	public void setWeight(double w) { this.weight = w; }
+
 	/* (non-Javadoc)
 	 * @see cs.man.ac.uk.data.I_Instance#classIsMissing()
 	 */
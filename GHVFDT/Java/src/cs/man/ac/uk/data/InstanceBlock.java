@@ -0,0 +1,286 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	InstanceBlock.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.util.Arrays;
+
+/**
+ * A block of instances stored in flat primitive arrays, as returned by
+ * {@link I_File#getNextBatch(int)}. Feature values are stored row-major, so the
+ * value of feature <i>f</i> of row <i>r</i> is at index <i>r * featureCount + f</i>
+ * of {@link #getValues()}, and the class label of row <i>r</i> is at index <i>r</i>
+ * of {@link #getLabels()}. Rows have a training weight of 1.0 unless added with
+ * another weight, in which case the weights are stored in a further array.
+ *
+ * Blocks are re-used by the files that return them, so the contents of a block
+ * are only valid until the next batch is read from the same file.
+ */
+public class InstanceBlock
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The feature values of each row, row-major.
+	 */
+	private double[] values;
+
+	/**
+	 * The class label of each row.
+	 */
+	private int[] labels;
+
+	/**
+	 * The training weight of each row, null until a row with a weight other than 1.0 is added.
+	 */
+	private double[] weights = null;
+
+	/**
+	 * The number of features in each row.
+	 */
+	private final int featureCount;
+
+	/**
+	 * The maximum number of rows the block can hold.
+	 */
+	private final int capacity;
+
+	/**
+	 * The number of rows currently in the block.
+	 */
+	private int size = 0;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Creates a new empty block.
+	 * @param capacity the maximum number of rows the block can hold.
+	 * @param n the number of features in each row.
+	 */
+	public InstanceBlock(int capacity, int n)
+	{
+		this.capacity = capacity;
+		this.featureCount = n;
+		this.values = new double[capacity * n];
+		this.labels = new int[capacity];
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/**
+	 * Returns an empty block able to hold the requested number of rows, re-using
+	 * the supplied block if it is large enough.
+	 * @param block the block to re-use, may be null.
+	 * @param capacity the number of rows required.
+	 * @param n the number of features in each row.
+	 * @return the supplied block emptied, else a new block.
+	 */
+	public static InstanceBlock reuse(InstanceBlock block, int capacity, int n)
+	{
+		if(block == null || block.capacity < capacity || block.featureCount != n)
+			return new InstanceBlock(capacity, n);
+
+		block.clear();
+		return block;
+	}
+
+	/**
+	 * Adds a row to the block.
+	 * @param data the feature values, only the first n are copied.
+	 * @param n the number of features, must equal the feature count of the block.
+	 * @param label the class label.
+	 * @return true if the row was added, else false if the block is full.
+	 */
+	public boolean add(double[] data, int n, int label)
+	{
+		if(this.size == this.capacity || n != this.featureCount)
+			return false;
+
+		System.arraycopy(data, 0, this.values, this.size * this.featureCount, n);
+
+		if(this.weights != null)
+			this.weights[this.size] = 1.0;
+
+		this.labels[this.size++] = label;
+		return true;
+	}
+
+	/**
+	 * Adds a weighted row to the block.
+	 * @param data the feature values, only the first n are copied.
+	 * @param n the number of features, must equal the feature count of the block.
+	 * @param label the class label.
+	 * @param weight the training weight of the row.
+	 * @return true if the row was added, else false if the block is full.
+	 */
+	public boolean add(double[] data, int n, int label, double weight)
+	{
+		int row = this.size;
+
+		if(!add(data, n, label))
+			return false;
+
+		setWeight(row, weight);
+		return true;
+	}
+
+	/**
+	 * Adds a copy of a row of another block to this block.
+	 * @param block the block holding the row, which must have the same number of features as this block.
+	 * @param row the row to copy.
+	 * @param weight the training weight of the copied row.
+	 * @return true if the row was added, else false if the block is full.
+	 */
+	public boolean add(InstanceBlock block, int row, double weight)
+	{
+		if(this.size == this.capacity || block.featureCount != this.featureCount)
+			return false;
+
+		System.arraycopy(block.values, row * this.featureCount, this.values, this.size * this.featureCount, this.featureCount);
+		this.labels[this.size] = block.labels[row];
+		setWeight(this.size++, weight);
+		return true;
+	}
+
+	/**
+	 * Adds a copy of an instance to the block.
+	 * @param inst the instance, which must have the same number of features as the block.
+	 * @return true if the instance was added, else false if the block is full.
+	 */
+	public boolean add(I_Instance inst)
+	{
+		if(this.size == this.capacity || inst.numAttributes() != this.featureCount)
+			return false;
+
+		int offset = this.size * this.featureCount;
+
+		for(int i = 0; i < this.featureCount; i++)
+			this.values[offset + i] = inst.value(i);
+
+		this.labels[this.size] = inst.getClassLabel();
+		setWeight(this.size++, inst.weight());
+		return true;
+	}
+
+	/**
+	 * Sets the training weight of a row, only allocating storage for the weights
+	 * once a weight other than 1.0 is used.
+	 * @param row the row.
+	 * @param weight the training weight.
+	 */
+	public void setWeight(int row, double weight)
+	{
+		if(this.weights == null)
+		{
+			if(weight == 1.0)
+				return;
+
+			this.weights = new double[this.capacity];
+			Arrays.fill(this.weights, 1.0);
+		}
+
+		this.weights[row] = weight;
+	}
+
+	/**
+	 * Removes all rows from the block.
+	 */
+	public void clear() { this.size = 0; }
+
+	/**
+	 * @return the number of rows in the block.
+	 */
+	public int size() { return this.size; }
+
+	/**
+	 * @return true if the block can hold no more rows.
+	 */
+	public boolean isFull() { return this.size == this.capacity; }
+
+	/**
+	 * @return the maximum number of rows the block can hold.
+	 */
+	public int capacity() { return this.capacity; }
+
+	/**
+	 * @return the number of features in each row.
+	 */
+	public int getFeatureCount() { return this.featureCount; }
+
+	/**
+	 * @param row the row.
+	 * @param f the feature.
+	 * @return the value of the feature in the row.
+	 */
+	public double value(int row, int f) { return this.values[row * this.featureCount + f]; }
+
+	/**
+	 * @param row the row.
+	 * @return the class label of the row.
+	 */
+	public int getClassLabel(int row) { return this.labels[row]; }
+
+	/**
+	 * @param row the row.
+	 * @return the training weight of the row.
+	 */
+	public double getWeight(int row) { return this.weights == null ? 1.0 : this.weights[row]; }
+
+	/**
+	 * @return true if any row added since the block was created may have a weight other than 1.0.
+	 */
+	public boolean isWeighted() { return this.weights != null; }
+
+	/**
+	 * @return the row-major array of feature values backing this block, only the
+	 * first {@link #size()} rows are valid.
+	 */
+	public double[] getValues() { return this.values; }
+
+	/**
+	 * @return the array of class labels backing this block, only the first
+	 * {@link #size()} labels are valid.
+	 */
+	public int[] getLabels() { return this.labels; }
+
+	/**
+	 * Creates an instance holding a copy of a row, for use where an
+	 * {@link I_Instance} is required. As when read from a file, the
+	 * class label follows the features in the array backing the instance.
+	 * @param row the row.
+	 * @return a new instance.
+	 */
+	public I_Instance getInstance(int row)
+	{
+		double[] data = new double[this.featureCount + 1];
+		System.arraycopy(this.values, row * this.featureCount, data, 0, this.featureCount);
+		data[this.featureCount] = this.labels[row];
+		DenseInstance inst = new DenseInstance(data, this.featureCount, this.labels[row]);
+		inst.setWeight(getWeight(row));
+		return inst;
+	}
+}
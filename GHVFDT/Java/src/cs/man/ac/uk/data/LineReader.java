@@ -0,0 +1,250 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	LineReader.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits the characters read from a Reader in to lines, in exactly the same way
+ * as BufferedReader.readLine(), i.e. lines end with '\n', '\r' or "\r\n". Unlike
+ * readLine() no String is created for each line; instead the characters of the
+ * current line are left in a re-used buffer, between {@link #start()} and
+ * {@link #end()}.
+ *
+ * When following a file that is still being written, a final line without a line
+ * terminator is not returned, as the rest of it may not have been written yet.
+ * Instead it is kept until the terminator is read. If following stops before
+ * then, the line is still not returned, as it is incomplete.
+ */
+public class LineReader
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The reader the characters are read from.
+	 */
+	private final Reader source;
+
+	/**
+	 * Holds the characters read, the buffer grows to fit the longest line.
+	 */
+	private char[] buffer = new char[8192];
+
+	/**
+	 * The number of characters read before the first character in the buffer.
+	 */
+	private long bufferOffset = 0;
+
+	/**
+	 * The index of the first character in the buffer not yet returned.
+	 */
+	private int position = 0;
+
+	/**
+	 * The index after the last character read in to the buffer.
+	 */
+	private int limit = 0;
+
+	/**
+	 * The index of the first character of the current line.
+	 */
+	private int lineStart = 0;
+
+	/**
+	 * The index after the last character of the current line.
+	 */
+	private int lineEnd = 0;
+
+	/**
+	 * Flag that indicates the last line ended with '\r', so a following '\n' must be skipped.
+	 */
+	private boolean skipNewline = false;
+
+	/**
+	 * Flag that indicates the end of the reader has been reached.
+	 */
+	private boolean endOfStream = false;
+
+	/**
+	 * Flag that indicates the reader is being followed as it grows, so the end of
+	 * the reader may not be the end of the data.
+	 */
+	private boolean follow = false;
+
+	/**
+	 * Flag that indicates the characters after the last line were kept while following,
+	 * as they do not end with a line terminator.
+	 */
+	private boolean heldBack = false;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Creates a new line reader.
+	 * @param source the reader to read characters from.
+	 */
+	public LineReader(Reader source) { this.source = source; }
+
+	/**
+	 *	Methods
+	 */
+
+	/**
+	 * Moves to the next line.
+	 * @return true if there is another line, else false if the end of the reader has been reached.
+	 * @throws IOException if the reader cannot be read.
+	 */
+	public boolean next() throws IOException
+	{
+		// The number of characters after the current position already searched.
+		int scanned = 0;
+
+		while(true)
+		{
+			if(this.skipNewline && this.position < this.limit)
+			{
+				if(this.buffer[this.position] == '\n')
+					this.position++;
+
+				this.skipNewline = false;
+			}
+
+			for(int i = this.position + scanned; i < this.limit; i++)
+			{
+				char c = this.buffer[i];
+
+				if(c == '\n' || c == '\r')
+				{
+					this.lineStart = this.position;
+					this.lineEnd = i;
+					this.position = i + 1;
+					this.skipNewline = c == '\r';
+					this.heldBack = false;
+					return true;
+				}
+			}
+
+			scanned = this.limit - this.position;
+
+			if(this.endOfStream || !fill())
+			{
+				// The rest of the line may not have been written yet, so try again later.
+				if(this.follow)
+				{
+					this.endOfStream = false;
+					this.heldBack = this.position < this.limit;
+					return false;
+				}
+
+				// The final line need not end with a line terminator, unless it was
+				// kept while following, when the rest of it was still to be written.
+				if(this.position == this.limit || this.heldBack)
+					return false;
+
+				this.lineStart = this.position;
+				this.lineEnd = this.limit;
+				this.position = this.limit;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Sets whether the reader is followed as it grows. When following, reaching the
+	 * end of the reader is not final: {@link #next()} returns false, but may return
+	 * further lines once more characters have been written. Characters kept while
+	 * following, as their line is not terminated, are not returned when following
+	 * stops, unless the rest of the line has been written by then.
+	 * @param follow true to follow the reader, else false.
+	 */
+	public void setFollow(boolean follow) { this.follow = follow; }
+
+	/**
+	 * @return the buffer holding the characters of the current line.
+	 */
+	public char[] buffer() { return this.buffer; }
+
+	/**
+	 * @return the index of the first character of the current line in the buffer.
+	 */
+	public int start() { return this.lineStart; }
+
+	/**
+	 * @return the index after the last character of the current line in the buffer.
+	 */
+	public int end() { return this.lineEnd; }
+
+	/**
+	 * @return the number of characters read before the first character of the current line.
+	 */
+	public long offset() { return this.bufferOffset + this.lineStart; }
+
+	/**
+	 * @return the current line as a new String.
+	 */
+	public String line() { return new String(this.buffer, this.lineStart, this.lineEnd - this.lineStart); }
+
+	/**
+	 * @return the reader the characters are read from.
+	 */
+	public Reader getSource() { return this.source; }
+
+	/**
+	 * Reads more characters in to the buffer, first moving the unread characters
+	 * to the start of the buffer, and growing it if it is full.
+	 * @return true if characters were read, else false if the end of the reader has been reached.
+	 * @throws IOException if the reader cannot be read.
+	 */
+	private boolean fill() throws IOException
+	{
+		int unread = this.limit - this.position;
+
+		if(unread == this.buffer.length)
+		{
+			char[] grown = new char[this.buffer.length * 2];
+			System.arraycopy(this.buffer, this.position, grown, 0, unread);
+			this.buffer = grown;
+		}
+		else if(this.position > 0)
+			System.arraycopy(this.buffer, this.position, this.buffer, 0, unread);
+
+		this.bufferOffset += this.position;
+		this.position = 0;
+		this.limit = unread;
+
+		int read = this.source.read(this.buffer, this.limit, this.buffer.length - this.limit);
+
+		if(read < 0)
+		{
+			this.endOfStream = true;
+			return false;
+		}
+
+		this.limit += read;
+		return true;
+	}
+}
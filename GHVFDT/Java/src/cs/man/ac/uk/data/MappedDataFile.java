@@ -0,0 +1,550 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	MappedDataFile.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+import cs.man.ac.uk.obj.BaseObject;
+
+/**
+ * Reads a CSV or ARFF data file by memory mapping it, rather than via a
+ * BufferedReader. Lines are found by scanning the mapped bytes for newlines,
+ * and numbers are parsed directly from the bytes, so no intermediate String
+ * objects are created for each line or feature.
+ *
+ * Files larger than the mapping window are mapped a window at a time, so
+ * files of many gigabytes can be read. The file is checked for validity on
+ * creation, in the same way as {@link CSVFile} and {@link ARFFFile}.
+ *
+ * Only dense rows are read. An ARFF file holding sparse rows, such as
+ * <i>{1 0.5, 4 2.0}</i>, is not valid here, and should be read with {@link ARFFFile}.
+ */
+public class MappedDataFile extends BaseObject implements I_File
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The default size of the region of the file mapped at any one time (256MB).
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+
+	/**
+	 * Path to the data file (absolute path).
+	 */
+	protected String path = "";
+
+	/**
+	 * Flag that indicates the file is in ARFF format, in which case
+	 * header lines starting with '@' are ignored.
+	 */
+	protected boolean arff = false;
+
+	/**
+	 * Number of examples in the data file.
+	 */
+	protected int examples = 0;
+
+	/**
+	 * Number of features (data attributes) in the file.
+	 */
+	protected int features = 0;
+
+	/**
+	 * The class distribution of the data in the file.
+	 */
+	protected int[] classDist;
+
+	/**
+	 * Flag that indicates the validity of the file, invalid
+	 * files cannot be processed.
+	 */
+	protected boolean isValid = false;
+
+	/**
+	 * The symbol used to signify a comment in the data file.
+	 */
+	protected byte commentSymbol = '%';
+
+	/**
+	 * The symbol used to separate data items in the file.
+	 */
+	protected byte separator = ',';
+
+	/**
+	 * The channel used to map the file.
+	 */
+	protected FileChannel channel = null;
+
+	/**
+	 * The size of the file in bytes.
+	 */
+	protected long fileSize = 0;
+
+	/**
+	 * The maximum number of bytes mapped at any one time.
+	 */
+	protected int windowSize = DEFAULT_WINDOW_SIZE;
+
+	/**
+	 * The currently mapped region of the file.
+	 */
+	protected MappedByteBuffer window = null;
+
+	/**
+	 * The position in the file of the first byte in the mapped window.
+	 */
+	protected long windowStart = 0;
+
+	/**
+	 * The position of the next unread byte, within the mapped window.
+	 */
+	protected int position = 0;
+
+	/**
+	 * Holds the bytes of the current line, re-used for every line read.
+	 */
+	protected byte[] line = new byte[256];
+
+	/**
+	 * The number of bytes in the current line.
+	 */
+	protected int lineLength = 0;
+
+	/**
+	 * Flag that indicates the last line ended with '\r', so a following '\n' must be skipped.
+	 */
+	private boolean skipNewline = false;
+
+	/**
+	 * Holds the numbers parsed from the current line, re-used for every line read.
+	 */
+	protected double[] fields = new double[16];
+
+	/**
+	 * The block returned by {@link #getNextBatch(int)}, re-used by each call.
+	 */
+	private InstanceBlock batch = null;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Creates a new memory mapped data file.
+	 * @param pth the full path to the file.
+	 * @param arff true if the file is in ARFF format, false if in CSV format.
+	 * @param v the verbose logging flag.
+	 */
+	public MappedDataFile(String pth, boolean arff, boolean v)
+	{
+		this(pth, arff, DEFAULT_WINDOW_SIZE, v);
+	}
+
+	/**
+	 * Creates a new memory mapped data file.
+	 * @param pth the full path to the file.
+	 * @param arff true if the file is in ARFF format, false if in CSV format.
+	 * @param window the maximum number of bytes to map at any one time, this must
+	 * be larger than the longest line in the file.
+	 * @param v the verbose logging flag.
+	 */
+	public MappedDataFile(String pth, boolean arff, int window, boolean v)
+	{
+		super(v);
+		this.path = pth;
+		this.arff = arff;
+		this.windowSize = window;
+
+		try
+		{
+			this.channel = new RandomAccessFile(this.path, "r").getChannel();
+			this.fileSize = this.channel.size();
+			this.checkValidity();
+		}
+		catch (IOException e) { this.processError(e,"IOException in public MappedDataFile(String pth, boolean arff, boolean v)."); }
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#isValid()
+	 */
+	@Override
+	public boolean isValid() { return this.isValid;}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#countExamples()
+	 */
+	@Override
+	public int countExamples() { return this.examples; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getAll()
+	 */
+	@Override
+	public List<I_Instance> getAll()
+	{
+		if(!this.isValid)
+			return null;
+
+		try
+		{
+			List<I_Instance> instances = new ArrayList<I_Instance>(this.examples);
+
+			rewind();
+
+			I_Instance inst;
+			while((inst = readNext()) != null)
+				instances.add(inst);
+
+			return instances;
+		}
+		catch (IOException e) { this.processError(e,"IOException in public List<I_Instance> getAll()"); return null; }
+		finally
+		{
+			try { rewind(); }
+			catch (IOException e) { this.processError(e,"IOException in public List<I_Instance> getAll()"); }
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNext()
+	 */
+	@Override
+	public I_Instance getNext()
+	{
+		if(!this.isValid)
+			return null;
+
+		try { return readNext(); }
+		catch (IOException e) { this.processError(e,"IOException in public I_Instance getNext()"); return null; }
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNext(cs.man.ac.uk.data.I_Instance)
+	 */
+	@Override
+	public boolean getNext(I_Instance into)
+	{
+		if(!this.isValid)
+			return false;
+
+		try
+		{
+			int count = readNextLine();
+
+			if(count < 0)
+				return false;
+
+			DenseInstance.copy(into, this.fields, count-1, (int)this.fields[count-1]);
+			return true;
+		}
+		catch (IOException e) { this.processError(e,"IOException in public boolean getNext(I_Instance into)"); return false; }
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNextBatch(int)
+	 */
+	@Override
+	public InstanceBlock getNextBatch(int n)
+	{
+		if(!this.isValid)
+			return null;
+
+		this.batch = InstanceBlock.reuse(this.batch, n, this.features);
+
+		try
+		{
+			int count;
+			while(!this.batch.isFull() && (count = readNextLine()) > 0)
+				this.batch.add(this.fields, count-1, (int)this.fields[count-1]);
+		}
+		catch (IOException e) { this.processError(e,"IOException in public InstanceBlock getNextBatch(int n)"); }
+
+		return this.batch.size() == 0 ? null : this.batch;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getClassDistribution()
+	 */
+	@Override
+	public int[] getClassDistribution() { return this.classDist; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getFeatureCount()
+	 */
+	@Override
+	public int getFeatureCount() { return this.features; }
+
+	/**
+	 * Explicitly closes the data file. No further instances can be read.
+	 */
+	public void closeFile()
+	{
+		this.window = null;
+
+		if(this.channel != null)
+			try { this.channel.close(); }
+			catch (IOException e) { e.printStackTrace();}
+	}
+
+	/**
+	 * Checks the validity of the file, counting the examples, features and
+	 * the class distribution.
+	 * @return true if valid, else false.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	protected boolean checkValidity() throws IOException
+	{
+		rewind();
+
+		int ftCount = 0;
+		TreeMap<Integer,Integer> cDist = new TreeMap<Integer,Integer>();
+		int ex = 0;
+		int lineNumber = 0;
+
+		while(nextLine())
+		{
+			lineNumber++;
+
+			if(this.arff && isHeaderOrBlank())
+				continue;
+
+			int count = parseLine();
+
+			if(count > 0)
+			{
+				ex++;
+				int tempFeatureCount = count-1;
+				int clazz = (int)this.fields[count-1];
+
+				Integer currentClassCount = cDist.get(clazz);
+				cDist.put(clazz, currentClassCount == null ? 1 : currentClassCount + 1);
+
+				if(ftCount == 0)
+					ftCount=tempFeatureCount;
+				else if(ftCount != tempFeatureCount)
+				{
+					// Discrepancy between feature lengths, report error.
+					String msg = "Error reading data on line " + lineNumber + " discrepency between number of features on each line.";
+					this.processRejectedLine(msg, currentLine());
+					return false;
+				}
+			}
+			else
+			{
+				// Construct informative error message.
+				String msg = "Error reading data on line " + lineNumber + " data could not be read as double[].";
+				this.processRejectedLine(msg, currentLine());
+				return false;
+			}
+		}
+
+		this.features = ftCount;
+		this.examples = ex;
+		this.classDist = this.toPrimitiveInt(cDist);
+		this.isValid = true;
+
+		rewind();
+
+		return this.isValid;
+	}
+
+	/**
+	 * Reads the next valid instance from the file, skipping headers, comments
+	 * and lines that do not contain valid data.
+	 * @return the next instance, else null if there are no more instances.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	protected I_Instance readNext() throws IOException
+	{
+		int count = readNextLine();
+
+		if(count > 0)
+			return new DenseInstance(Arrays.copyOf(this.fields, count), count-1, (int)this.fields[count-1]);
+
+		return null;
+	}
+
+	/**
+	 * Parses the next valid line in the file into the fields buffer, skipping
+	 * headers, comments and lines that do not contain valid data.
+	 * @return the number of values parsed (including the class label), else
+	 * -1 if there are no more valid lines.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	protected int readNextLine() throws IOException
+	{
+		while(nextLine())
+		{
+			if(this.arff && isHeaderOrBlank())
+				continue;
+
+			int count = parseLine();
+
+			if(count > 0)
+				return count;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Moves back to the start of the file.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	protected void rewind() throws IOException
+	{
+		this.skipNewline = false;
+		map(0);
+	}
+
+	/**
+	 * Maps the region of the file starting at the supplied position.
+	 * @param start the position in the file to map from.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	protected void map(long start) throws IOException
+	{
+		long size = Math.min(this.windowSize, this.fileSize - start);
+		this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		this.windowStart = start;
+		this.position = 0;
+	}
+
+	/**
+	 * Finds the next line in the file, and copies its bytes into the line buffer,
+	 * excluding the line terminator. Lines end in the same way as for
+	 * BufferedReader.readLine(), i.e. with '\n', '\r' or "\r\n".
+	 * @return true if a line was found, else false if the end of the file has been reached.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	protected boolean nextLine() throws IOException
+	{
+		while(true)
+		{
+			int limit = this.window.limit();
+
+			// The '\n' after a '\r' may be the first byte of the next window.
+			if(this.skipNewline && this.position < limit)
+			{
+				if(this.window.get(this.position) == '\n')
+					this.position++;
+
+				this.skipNewline = false;
+			}
+
+			if(this.position >= limit && this.windowStart + limit >= this.fileSize)
+				return false;
+
+			int end = this.position;
+			byte c = 0;
+			while(end < limit && (c = this.window.get(end)) != '\n' && c != '\r')
+				end++;
+
+			if(end < limit || this.windowStart + limit >= this.fileSize)
+			{
+				int length = end - this.position;
+
+				if(length > this.line.length)
+					this.line = new byte[Math.max(length, this.line.length * 2)];
+
+				this.window.position(this.position);
+				this.window.get(this.line, 0, length);
+
+				this.lineLength = length;
+				this.position = end + 1;
+				this.skipNewline = end < limit && c == '\r';
+				return true;
+			}
+
+			// The line continues beyond the mapped window, so map from its start.
+			if(this.position == 0)
+				throw new IOException("Line longer than the mapping window of " + this.windowSize + " bytes.");
+
+			map(this.windowStart + this.position);
+		}
+	}
+
+	/**
+	 * @return the current line, as read from the file.
+	 */
+	protected String currentLine() { return new String(this.line, 0, this.lineLength); }
+
+	/**
+	 * @return true if the current line is an ARFF header line, a comment or blank.
+	 */
+	protected boolean isHeaderOrBlank()
+	{
+		if(this.lineLength == 0)
+			return true;
+
+		byte first = this.line[0];
+		return first == '@' || first == this.commentSymbol || first == '\r';
+	}
+
+	/**
+	 * Parses the numbers in the current line into the fields buffer. Any comment
+	 * at the end of the line is ignored, as are trailing empty fields.
+	 * @return the number of values parsed (including the class label), else
+	 * -1 if the line does not contain valid data.
+	 */
+	protected int parseLine()
+	{
+		int count;
+		while((count = NumberParser.parseLine(this.line, 0, this.lineLength, this.separator, this.commentSymbol, this.fields)) == NumberParser.OVERFLOW)
+			this.fields = new double[this.fields.length * 2];
+
+		return count == NumberParser.INVALID ? -1 : count;
+	}
+
+	/**
+	 * Over-ridden toString method.
+	 * @return a string describing this class.
+	 */
+	public String toString()
+	{
+		String message = "\nFile:\t" + this.path + "\nExamples:\t" + this.examples +
+				 "\nFeatures:\t" + this.features + "\nClass dist:\n\t";
+
+		if(this.classDist != null)
+			for(int i=0;i<this.classDist.length;i++)
+				message += "Class "+i+ ":\t" + this.classDist[i] + "\n\t";
+		else
+			message += " empty\n";
+
+		message += "\n";
+
+		return message;
+	}
+}
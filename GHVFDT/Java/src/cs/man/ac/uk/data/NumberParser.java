@@ -0,0 +1,512 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	NumberParser.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+/**
+ * Parses decimal numbers (including scientific notation) directly from ranges
+ * of char[] or byte[] data, without creating any objects and without throwing
+ * exceptions. Byte data is widened to characters a line at a time, so the same
+ * code parses both. Every string accepted by Double.parseDouble is accepted here, and
+ * parses to exactly the same double value, while every string it rejects is
+ * rejected here.
+ *
+ * Numbers with at most 18 significant digits whose value can be computed with
+ * a single correctly rounded multiply or divide by an exact power of ten are
+ * converted directly. This covers almost all of the numbers found in our data
+ * files. The remaining numbers (and hexadecimal numbers) are checked against
+ * the grammar used by Double.parseDouble, and then converted by it.
+ */
+public class NumberParser
+{
+	//*****************************************
+	//*****************************************
+	//              Variables
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Returned by parseLine when the line does not contain valid numerical data.
+	 */
+	public static final int INVALID = -1;
+
+	/**
+	 * Returned by parseLine when the line contains more values than the output array can hold.
+	 */
+	public static final int OVERFLOW = -2;
+
+	/**
+	 * The largest integer for which all smaller integers are exactly representable as a double (2^53).
+	 */
+	private static final long MAX_EXACT_INTEGER = 1L << 53;
+
+	/**
+	 * The most significant digits that can be accumulated without overflowing a long.
+	 */
+	private static final int MAX_DIGITS = 18;
+
+	/**
+	 * The powers of ten that are exactly representable as a double.
+	 */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * The powers of ten that fit in a long.
+	 */
+	private static final long[] LONG_POWERS_OF_TEN = {
+		1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+		10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+		1000000000000000L };
+
+	/**
+	 * Holds byte data widened to characters, one buffer per thread, see {@link #widen(byte[], int, int)}.
+	 */
+	private static final ThreadLocal<char[]> WIDENED = new ThreadLocal<char[]>()
+	{
+		@Override
+		protected char[] initialValue() { return new char[256]; }
+	};
+
+	//*****************************************
+	//*****************************************
+	//            Line parsing
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Parses a line of separated numbers. Anything following the comment symbol
+	 * is ignored, as are trailing empty values (as they are by String.split()).
+	 * @param s the characters.
+	 * @param from the index of the first character in the line.
+	 * @param to the index after the last character in the line.
+	 * @param separator the character separating values.
+	 * @param comment the character that signals the start of a comment.
+	 * @param out the array to write the values to, starting at index zero.
+	 * @return the number of values parsed, else INVALID if any value is not a
+	 * number, or OVERFLOW if out is too small to hold all of the values.
+	 */
+	public static int parseLine(char[] s, int from, int to, char separator, char comment, double[] out)
+	{
+		return parseLine(s, from, to, separator, comment, null, out);
+	}
+
+	/**
+	 * Parses a line of separated numbers. Anything following the comment symbol
+	 * is ignored, as are trailing empty values (as they are by String.split()).
+	 * Each byte is read as an ISO-8859-1 character.
+	 * @param s the bytes.
+	 * @param from the index of the first byte in the line.
+	 * @param to the index after the last byte in the line.
+	 * @param separator the byte separating values.
+	 * @param comment the byte that signals the start of a comment.
+	 * @param out the array to write the values to, starting at index zero.
+	 * @return the number of values parsed, else INVALID if any value is not a
+	 * number, or OVERFLOW if out is too small to hold all of the values.
+	 */
+	public static int parseLine(byte[] s, int from, int to, byte separator, byte comment, double[] out)
+	{
+		return parseLine(widen(s, from, to), 0, to - from, (char) (separator & 0xFF), (char) (comment & 0xFF), null, out);
+	}
+
+	/**
+	 * Parses a line of separated numbers, keeping only the values in some of the
+	 * columns. The values in the other columns are skipped without being parsed, so
+	 * they are not checked. The values kept are written to out in the order they
+	 * appear on the line. Otherwise this is the same as
+	 * {@link #parseLine(char[], int, int, char, char, double[])}.
+	 * @param s the characters.
+	 * @param from the index of the first character in the line.
+	 * @param to the index after the last character in the line.
+	 * @param separator the character separating values.
+	 * @param comment the character that signals the start of a comment.
+	 * @param keep flags the columns to keep, columns beyond the end of keep are kept,
+	 * may be null to keep every column.
+	 * @param out the array to write the values kept to, starting at index zero.
+	 * @return the number of columns on the line, including those skipped, else
+	 * INVALID if any value kept is not a number, or OVERFLOW if out is too small
+	 * to hold all of the values kept.
+	 */
+	public static int parseLine(char[] s, int from, int to, char separator, char comment, boolean[] keep, double[] out)
+	{
+		int end = from;
+		while(end < to && s[end] != comment)
+			end++;
+
+		while(end > from && s[end-1] == separator)
+			end--;
+
+		if(end == from)
+			return INVALID;
+
+		int column = 0;
+		int count = 0;
+		int start = from;
+
+		while(true)
+		{
+			int stop = start;
+			while(stop < end && s[stop] != separator)
+				stop++;
+
+			if(keep == null || column >= keep.length || keep[column])
+			{
+				if(count == out.length)
+					return OVERFLOW;
+
+				if(!parse(s, start, stop, out, count))
+					return INVALID;
+
+				count++;
+			}
+
+			column++;
+
+			if(stop == end)
+				return column;
+
+			start = stop + 1;
+		}
+	}
+
+	//*****************************************
+	//*****************************************
+	//           Number parsing
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Parses a single number, in any format accepted by Double.parseDouble.
+	 * @param s the characters.
+	 * @param from the index of the first character of the number.
+	 * @param to the index after the last character of the number.
+	 * @param out the array to write the number to.
+	 * @param index the index in out to write the number to.
+	 * @return true if the characters are a valid number, else false, in which
+	 * case out is not modified.
+	 */
+	public static boolean parse(char[] s, int from, int to, double[] out, int index)
+	{
+		// Leading and trailing white space is ignored, as by String.trim().
+		while(from < to && s[from] <= ' ')
+			from++;
+		while(to > from && s[to-1] <= ' ')
+			to--;
+
+		int i = from;
+		if(i == to)
+			return false;
+
+		boolean negative = false;
+		int c = s[i];
+
+		if(c == '-' || c == '+')
+		{
+			negative = c == '-';
+			if(++i == to)
+				return false;
+			c = s[i];
+		}
+
+		if(c == 'N' || c == 'I')
+			return parseSpecial(s, i, to, negative, out, index);
+
+		if(c == '0' && i + 1 < to && (s[i+1] == 'x' || s[i+1] == 'X'))
+			return isHexadecimal(s, i + 2, to) && parseFallback(new String(s, from, to - from), out, index);
+
+		long mantissa = 0;
+		int significant = 0;
+		int pendingZeros = 0;
+		int scale = 0;
+		boolean digits = false;
+		boolean fraction = false;
+
+		for(; i < to; i++)
+		{
+			int d = s[i] - '0';
+
+			if(d < 0 || d > 9)
+			{
+				if(s[i] == '.' && !fraction)
+				{
+					fraction = true;
+					continue;
+				}
+				break;
+			}
+
+			digits = true;
+
+			if(fraction)
+				scale--;
+
+			// Zeros are only added to the mantissa when followed by a
+			// non-zero digit, leading zeros are ignored altogether.
+			if(d == 0)
+			{
+				if(mantissa != 0)
+					pendingZeros++;
+			}
+			else
+			{
+				significant += pendingZeros + 1;
+
+				if(significant <= MAX_DIGITS)
+				{
+					for(; pendingZeros > 0; pendingZeros--)
+						mantissa *= 10;
+
+					mantissa = mantissa * 10 + d;
+				}
+
+				pendingZeros = 0;
+			}
+		}
+
+		if(!digits)
+			return false;
+
+		int exponent = 0;
+
+		if(i < to && (s[i] == 'e' || s[i] == 'E'))
+		{
+			boolean negativeExponent = false;
+
+			if(++i < to && (s[i] == '-' || s[i] == '+'))
+				negativeExponent = s[i++] == '-';
+
+			int start = i;
+			for(; i < to && s[i] >= '0' && s[i] <= '9'; i++)
+				if(exponent < 100000)
+					exponent = exponent * 10 + (s[i] - '0');
+
+			if(i == start)
+				return false;
+
+			if(negativeExponent)
+				exponent = -exponent;
+		}
+
+		if(!isEnd(s, i, to))
+			return false;
+
+		if(significant <= MAX_DIGITS && convert(mantissa, scale + pendingZeros + exponent, negative, out, index))
+			return true;
+
+		return parseFallback(new String(s, from, to - from), out, index);
+	}
+
+	/**
+	 * Parses a single number, in any format accepted by Double.parseDouble.
+	 * Each byte is read as an ISO-8859-1 character.
+	 * @param s the bytes.
+	 * @param from the index of the first byte of the number.
+	 * @param to the index after the last byte of the number.
+	 * @param out the array to write the number to.
+	 * @param index the index in out to write the number to.
+	 * @return true if the bytes are a valid number, else false, in which
+	 * case out is not modified.
+	 */
+	public static boolean parse(byte[] s, int from, int to, double[] out, int index)
+	{
+		return parse(widen(s, from, to), 0, to - from, out, index);
+	}
+
+	//*****************************************
+	//*****************************************
+	//            Utility Methods
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Copies bytes to a char[] held for the current thread, reading each byte as an
+	 * ISO-8859-1 character, so that byte data is parsed by the same code as characters.
+	 * @param s the bytes.
+	 * @param from the index of the first byte to copy.
+	 * @param to the index after the last byte to copy.
+	 * @return the characters, starting at index zero, only valid until the next call.
+	 */
+	private static char[] widen(byte[] s, int from, int to)
+	{
+		char[] chars = WIDENED.get();
+
+		if(chars.length < to - from)
+		{
+			chars = new char[Math.max(to - from, chars.length * 2)];
+			WIDENED.set(chars);
+		}
+
+		for(int i = from; i < to; i++)
+			chars[i - from] = (char) (s[i] & 0xFF);
+
+		return chars;
+	}
+
+	/**
+	 * Checks that a number ends at an index, allowing an optional type suffix.
+	 * @param s the characters.
+	 * @param i the index after the last character of the number, excluding any suffix.
+	 * @param to the index after the last character.
+	 * @return true if nothing but an optional f, F, d or D follows the number.
+	 */
+	private static boolean isEnd(char[] s, int i, int to)
+	{
+		if(i < to && (s[i] == 'f' || s[i] == 'F' || s[i] == 'd' || s[i] == 'D'))
+			i++;
+
+		return i == to;
+	}
+
+	/**
+	 * Converts a decimal mantissa and exponent to a double, if this can be done
+	 * exactly, i.e. with a single correctly rounded operation on exact values.
+	 * @param mantissa the decimal mantissa.
+	 * @param exponent the power of ten the mantissa is multiplied by.
+	 * @param negative true if the number is negative.
+	 * @param out the array to write the number to.
+	 * @param index the index in out to write the number to.
+	 * @return true if the number was converted, else false.
+	 */
+	private static boolean convert(long mantissa, int exponent, boolean negative, double[] out, int index)
+	{
+		double value;
+
+		if(mantissa == 0)
+			value = 0.0;
+		else if(mantissa > MAX_EXACT_INTEGER)
+			return false;
+		else if(exponent == 0)
+			value = mantissa;
+		else if(exponent > 0 && exponent <= 22)
+			value = mantissa * POWERS_OF_TEN[exponent];
+		else if(exponent < 0 && exponent >= -22)
+			value = mantissa / POWERS_OF_TEN[-exponent];
+		else if(exponent > 22 && exponent - 22 < LONG_POWERS_OF_TEN.length
+				&& mantissa <= MAX_EXACT_INTEGER / LONG_POWERS_OF_TEN[exponent - 22])
+			value = (mantissa * LONG_POWERS_OF_TEN[exponent - 22]) * POWERS_OF_TEN[22];
+		else
+			return false;
+
+		out[index] = negative ? -value : value;
+		return true;
+	}
+
+	/**
+	 * Parses NaN or Infinity.
+	 * @param s the characters, following any sign.
+	 * @param i the index of the first character after any sign.
+	 * @param to the index after the last character of the number.
+	 * @param negative true if the number was preceded by a minus sign.
+	 * @param out the array to write the number to.
+	 * @param index the index in out to write the number to.
+	 * @return true if the characters are exactly NaN or Infinity, else false.
+	 */
+	private static boolean parseSpecial(char[] s, int i, int to, boolean negative, double[] out, int index)
+	{
+		if(matches(s, i, to, "NaN"))
+			out[index] = Double.NaN;
+		else if(matches(s, i, to, "Infinity"))
+			out[index] = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+		else
+			return false;
+
+		return true;
+	}
+
+	/**
+	 * @param s the characters.
+	 * @param from the index of the first character to compare.
+	 * @param to the index after the last character to compare.
+	 * @param word the word to compare to.
+	 * @return true if the characters are exactly the word.
+	 */
+	private static boolean matches(char[] s, int from, int to, String word)
+	{
+		if(to - from != word.length())
+			return false;
+
+		for(int i = 0; i < word.length(); i++)
+			if(s[from + i] != word.charAt(i))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Checks the characters following the 0x prefix form a valid hexadecimal
+	 * floating point number, i.e. hex digits with an optional point, followed by
+	 * a binary exponent and optional type suffix.
+	 * @param s the characters.
+	 * @param i the index of the first character after the 0x prefix.
+	 * @param to the index after the last character of the number.
+	 * @return true if valid, else false.
+	 */
+	private static boolean isHexadecimal(char[] s, int i, int to)
+	{
+		boolean digits = false;
+		boolean point = false;
+
+		for(; i < to; i++)
+		{
+			if(Character.digit(s[i], 16) >= 0 && s[i] < 128)
+				digits = true;
+			else if(s[i] == '.' && !point)
+				point = true;
+			else
+				break;
+		}
+
+		if(!digits || i == to || (s[i] != 'p' && s[i] != 'P'))
+			return false;
+
+		if(++i < to && (s[i] == '-' || s[i] == '+'))
+			i++;
+
+		int start = i;
+		while(i < to && s[i] >= '0' && s[i] <= '9')
+			i++;
+
+		if(i == start)
+			return false;
+
+		return isEnd(s, i, to);
+	}
+
+	/**
+	 * Converts a number that has already been checked for validity using
+	 * Double.parseDouble. Only used for numbers that cannot be converted exactly
+	 * by this class, i.e. very long or very large/small numbers.
+	 * @param number the number.
+	 * @param out the array to write the number to.
+	 * @param index the index in out to write the number to.
+	 * @return true if the number was converted, else false.
+	 */
+	private static boolean parseFallback(String number, double[] out, int index)
+	{
+		try
+		{
+			out[index] = Double.parseDouble(number);
+			return true;
+		}
+		catch(NumberFormatException nfe) { return false; }
+	}
+}
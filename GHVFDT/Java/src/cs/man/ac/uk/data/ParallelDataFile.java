@@ -0,0 +1,731 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	ParallelDataFile.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import cs.man.ac.uk.obj.BaseObject;
+import cs.man.ac.uk.utils.PoolUtils;
+
+/**
+ * Reads a CSV or ARFF data file in parallel. The file is split in to chunks at
+ * line boundaries, and the chunks are parsed concurrently on a fork-join pool.
+ * Instances are still returned by {@link #getNext()} in the order they appear in
+ * the file, as the order instances are learned from affects the tree induced.
+ * Only a few chunks are parsed ahead of the caller at any one time, so memory
+ * use is bounded regardless of the size of the file.
+ *
+ * The file is checked for validity on creation in the same way as {@link CSVFile}
+ * and {@link ARFFFile}, except that the chunks are checked in parallel and their
+ * feature counts and class distributions merged.
+ *
+ * Only dense rows are read. An ARFF file holding sparse rows, such as
+ * <i>{1 0.5, 4 2.0}</i>, is not valid here, and should be read with {@link ARFFFile}.
+ */
+public class ParallelDataFile extends BaseObject implements I_File
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The default size of each chunk of the file parsed (8MB).
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 23;
+
+	/**
+	 * Path to the data file (absolute path).
+	 */
+	protected String path = "";
+
+	/**
+	 * Flag that indicates the file is in ARFF format, else it is in CSV format.
+	 */
+	protected boolean arff = false;
+
+	/**
+	 * Number of examples in the data file.
+	 */
+	protected int examples = 0;
+
+	/**
+	 * Number of features (data attributes) in the file.
+	 */
+	protected int features = 0;
+
+	/**
+	 * The class distribution of the data in the file.
+	 */
+	protected int[] classDist;
+
+	/**
+	 * Flag that indicates the validity of the file, invalid
+	 * files cannot be processed.
+	 */
+	protected boolean isValid = false;
+
+	/**
+	 * The channel the file is read from, positional reads are safe to use concurrently.
+	 */
+	protected FileChannel channel = null;
+
+	/**
+	 * The pool chunks are parsed on.
+	 */
+	protected ForkJoinPool pool;
+
+	/**
+	 * The position in the file each chunk starts at, the last element is the file size.
+	 */
+	protected long[] chunks;
+
+	/**
+	 * The chunks being parsed ahead of the caller, in file order.
+	 */
+	private ArrayDeque<ForkJoinTask<List<double[]>>> pending = new ArrayDeque<ForkJoinTask<List<double[]>>>();
+
+	/**
+	 * The index of the next chunk to submit for parsing.
+	 */
+	private int nextChunk = 0;
+
+	/**
+	 * The rows of the chunk instances are currently being returned from.
+	 */
+	private List<double[]> current = null;
+
+	/**
+	 * The index of the next row to return from the current chunk.
+	 */
+	private int currentRow = 0;
+
+	/**
+	 * The block returned by {@link #getNextBatch(int)}, re-used by each call.
+	 */
+	private InstanceBlock batch = null;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Opens a data file for parallel reading, using the default chunk size and pool.
+	 * @param pth the full path to the file.
+	 * @param arff true if the file is in ARFF format, false if in CSV format.
+	 * @param v the verbose logging flag.
+	 */
+	public ParallelDataFile(String pth, boolean arff, boolean v)
+	{
+		this(pth, arff, DEFAULT_CHUNK_SIZE, null, v);
+	}
+
+	/**
+	 * Opens a data file for parallel reading.
+	 * @param pth the full path to the file.
+	 * @param arff true if the file is in ARFF format, false if in CSV format.
+	 * @param chunkSize the approximate size in bytes of each chunk parsed.
+	 * @param pool the pool chunks are parsed on, may be null to use the default pool.
+	 * @param v the verbose logging flag.
+	 */
+	public ParallelDataFile(String pth, boolean arff, int chunkSize, ForkJoinPool pool, boolean v)
+	{
+		super(v);
+		this.path = pth;
+		this.arff = arff;
+		this.pool = PoolUtils.orDefault(pool);
+
+		try
+		{
+			this.channel = new RandomAccessFile(this.path, "r").getChannel();
+			this.chunks = this.findChunks(chunkSize);
+			this.checkValidity();
+		}
+		catch (IOException e) { this.processError(e,"IOException in public ParallelDataFile(String pth, boolean arff, int chunkSize, ForkJoinPool pool, boolean v)."); }
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#isValid()
+	 */
+	@Override
+	public boolean isValid() { return this.isValid;}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#countExamples()
+	 */
+	@Override
+	public int countExamples() { return this.examples; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getAll()
+	 */
+	@Override
+	public List<I_Instance> getAll()
+	{
+		if(!this.isValid)
+			return null;
+
+		List<ForkJoinTask<List<double[]>>> tasks = new ArrayList<ForkJoinTask<List<double[]>>>();
+
+		for(int i = 0; i < this.chunks.length - 1; i++)
+			tasks.add(this.pool.submit(new ParseTask(i)));
+
+		List<I_Instance> instances = new ArrayList<I_Instance>(this.examples);
+
+		for(ForkJoinTask<List<double[]>> task : tasks)
+			for(double[] row : task.join())
+				instances.add(new DenseInstance(row, row.length - 1, (int)row[row.length - 1]));
+
+		return instances;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNext()
+	 */
+	@Override
+	public I_Instance getNext()
+	{
+		double[] row = nextRow();
+
+		if(row == null)
+			return null;
+
+		return new DenseInstance(row, row.length - 1, (int)row[row.length - 1]);
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNext(cs.man.ac.uk.data.I_Instance)
+	 */
+	@Override
+	public boolean getNext(I_Instance into)
+	{
+		double[] row = nextRow();
+
+		if(row == null)
+			return false;
+
+		DenseInstance.copy(into, row, row.length - 1, (int)row[row.length - 1]);
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNextBatch(int)
+	 */
+	@Override
+	public InstanceBlock getNextBatch(int n)
+	{
+		if(!this.isValid)
+			return null;
+
+		this.batch = InstanceBlock.reuse(this.batch, n, this.features);
+
+		double[] row;
+		while(!this.batch.isFull() && (row = nextRow()) != null)
+			this.batch.add(row, row.length - 1, (int)row[row.length - 1]);
+
+		return this.batch.size() == 0 ? null : this.batch;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getClassDistribution()
+	 */
+	@Override
+	public int[] getClassDistribution() { return this.classDist; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getFeatureCount()
+	 */
+	@Override
+	public int getFeatureCount() { return this.features; }
+
+	/**
+	 * Explicitly closes the data file. No further instances can be read.
+	 */
+	public void closeFile()
+	{
+		for(ForkJoinTask<List<double[]>> task : this.pending)
+			task.cancel(false);
+
+		this.pending.clear();
+		this.current = null;
+		this.nextChunk = this.chunks == null ? 0 : this.chunks.length - 1;
+
+		if(this.channel != null)
+			try { this.channel.close(); }
+			catch (IOException e) { e.printStackTrace();}
+	}
+
+	/**
+	 * Returns the next row of data, waiting for its chunk to be parsed if necessary.
+	 * @return the features followed by the class label, else null if there are no more rows.
+	 */
+	protected double[] nextRow()
+	{
+		if(!this.isValid)
+			return null;
+
+		while(this.current == null || this.currentRow == this.current.size())
+		{
+			// Keep enough chunks in flight to occupy every thread in the pool.
+			while(this.nextChunk < this.chunks.length - 1 && this.pending.size() <= this.pool.getParallelism())
+				this.pending.add(this.pool.submit(new ParseTask(this.nextChunk++)));
+
+			if(this.pending.isEmpty())
+				return null;
+
+			this.current = this.pending.poll().join();
+			this.currentRow = 0;
+		}
+
+		return this.current.get(this.currentRow++);
+	}
+
+	/**
+	 * Checks the validity of the file in parallel, counting the examples, features and
+	 * the class distribution.
+	 * @return true if valid, else false.
+	 */
+	protected boolean checkValidity()
+	{
+		Summary summary = this.pool.invoke(new ValidateTask(0, this.chunks.length - 1));
+
+		int error = summary.firstInvalid;
+		if(summary.firstDiscrepancy != -1 && (error == -1 || summary.firstDiscrepancy < error))
+		{
+			// Discrepancy between feature lengths, report error.
+			String msg = "Error reading data on line " + (summary.firstDiscrepancy + 1) + " discrepency between number of features on each line.";
+			this.processRejectedLine(msg, summary.discrepancyLine);
+			return false;
+		}
+		else if(error != -1)
+		{
+			// Construct informative error message.
+			String msg = "Error reading data on line " + (error + 1) + " data could not be read as double[].";
+
+			// There is no line to reject if the chunk could not be read.
+			if(summary.invalidLine == null)
+				this.processError(msg);
+			else
+				this.processRejectedLine(msg, summary.invalidLine);
+			return false;
+		}
+
+		this.features = Math.max(summary.features, 0);
+		this.examples = summary.examples;
+		this.classDist = this.toPrimitiveInt(summary.classDist);
+		this.isValid = true;
+
+		return this.isValid;
+	}
+
+	/**
+	 * Splits the file in to chunks of roughly equal size, each ending at the end of a line.
+	 * Lines end in the same way as for BufferedReader.readLine(), i.e. with '\n', '\r'
+	 * or "\r\n", so a chunk never ends between a '\r' and the '\n' following it.
+	 * @param chunkSize the approximate size of each chunk.
+	 * @return the position each chunk starts at, followed by the size of the file.
+	 * @throws IOException if the file cannot be read.
+	 */
+	protected long[] findChunks(int chunkSize) throws IOException
+	{
+		long size = this.channel.size();
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		List<Long> starts = new ArrayList<Long>();
+
+		long start = 0;
+		while(start < size)
+		{
+			starts.add(start);
+
+			// Move the end of the chunk forward to the start of the next line.
+			long end = Math.min(start + Math.max(chunkSize, 1), size);
+			while(end < size)
+			{
+				buffer.clear();
+				int read = this.channel.read(buffer, end - 1);
+
+				int newline = 0;
+				while(newline < read && buffer.get(newline) != '\n' && buffer.get(newline) != '\r')
+					newline++;
+
+				end += newline;
+				if(newline < read)
+				{
+					// Include the '\n' of a "\r\n" line ending, which may not have been read.
+					if(buffer.get(newline) == '\r' && end < size)
+					{
+						buffer.clear();
+						if(this.channel.read(buffer, end) > 0 && buffer.get(0) == '\n')
+							end++;
+					}
+					break;
+				}
+			}
+
+			start = Math.min(end, size);
+		}
+
+		long[] result = new long[starts.size() + 1];
+		for(int i = 0; i < starts.size(); i++)
+			result[i] = starts.get(i);
+		result[starts.size()] = size;
+
+		return result;
+	}
+
+	/**
+	 * Parses every line in a chunk of the file.
+	 * @param chunk the index of the chunk.
+	 * @param summary if not null, updated with the validity of each line.
+	 * @param rows if not null, each row of valid data is added to it.
+	 * @throws IOException if the chunk cannot be read.
+	 */
+	protected void parseChunk(int chunk, Summary summary, List<double[]> rows) throws IOException
+	{
+		long start = this.chunks[chunk];
+		ByteBuffer buffer = ByteBuffer.allocate((int)(this.chunks[chunk + 1] - start));
+
+		while(buffer.hasRemaining())
+			if(this.channel.read(buffer, start + buffer.position()) < 0)
+				break;
+
+		byte[] bytes = buffer.array();
+		int length = buffer.position();
+		double[] fields = new double[16];
+		int line = 0;
+
+		for(int from = 0; from < length; line++)
+		{
+			int to = from;
+			while(to < length && bytes[to] != '\n' && bytes[to] != '\r')
+				to++;
+
+			int next = to + 1;
+
+			// A "\r\n" line ending ends a single line.
+			if(to + 1 < length && bytes[to] == '\r' && bytes[to+1] == '\n')
+				next++;
+
+			if(!(this.arff && isHeaderOrBlank(bytes, from, to)))
+			{
+				int count;
+				while((count = NumberParser.parseLine(bytes, from, to, (byte)',', (byte)'%', fields)) == NumberParser.OVERFLOW)
+					fields = new double[fields.length * 2];
+
+				if(summary != null)
+					summary.add(line, count, count > 0 ? (int)fields[count-1] : 0, bytes, from, to);
+
+				if(rows != null && count > 0)
+					rows.add(Arrays.copyOf(fields, count));
+			}
+
+			from = next;
+		}
+
+		if(summary != null)
+			summary.lines = line;
+	}
+
+	/**
+	 * @param bytes the bytes of the chunk.
+	 * @param from the index of the first byte in the line.
+	 * @param to the index after the last byte in the line.
+	 * @return true if the line is an ARFF header line, a comment or blank.
+	 */
+	private static boolean isHeaderOrBlank(byte[] bytes, int from, int to)
+	{
+		return from == to || bytes[from] == '@' || bytes[from] == '%';
+	}
+
+	/**
+	 * Over-ridden toString method.
+	 * @return a string describing this class.
+	 */
+	public String toString()
+	{
+		String message = "\nFile:\t" + this.path + "\nExamples:\t" + this.examples +
+				 "\nFeatures:\t" + this.features + "\nClass dist:\n\t";
+
+		if(this.classDist != null)
+			for(int i=0;i<this.classDist.length;i++)
+				message += "Class "+i+ ":\t" + this.classDist[i] + "\n\t";
+		else
+			message += " empty\n";
+
+		message += "\n";
+
+		return message;
+	}
+
+	/**
+	 * Describes the validity of a range of lines, such that the summaries of
+	 * adjacent ranges can be merged to describe the whole file.
+	 */
+	protected static class Summary
+	{
+		/**
+		 * The number of lines in the range.
+		 */
+		int lines = 0;
+
+		/**
+		 * The number of valid rows in the range.
+		 */
+		int examples = 0;
+
+		/**
+		 * The number of features on the first valid row in the range, else -1 if there are none.
+		 */
+		int features = -1;
+
+		/**
+		 * The line (relative to the start of the range) of the first valid row, else -1.
+		 */
+		int firstRow = -1;
+
+		/**
+		 * The first line with a different number of features to the first valid row, else -1.
+		 */
+		int firstDiscrepancy = -1;
+
+		/**
+		 * The first line that does not contain valid data, else -1.
+		 */
+		int firstInvalid = -1;
+
+		/**
+		 * The first valid row, as read from the file, else null.
+		 */
+		String firstRowLine = null;
+
+		/**
+		 * The first line with a different number of features to the first valid row, else null.
+		 */
+		String discrepancyLine = null;
+
+		/**
+		 * The first line that does not contain valid data, else null.
+		 */
+		String invalidLine = null;
+
+		/**
+		 * The class distribution of the valid rows in the range.
+		 */
+		TreeMap<Integer,Integer> classDist = new TreeMap<Integer,Integer>();
+
+		/**
+		 * Adds a parsed line to the summary.
+		 * @param line the line number, relative to the start of the range.
+		 * @param count the number of values on the line, or a negative value if it is invalid.
+		 * @param clazz the class label of the line.
+		 * @param bytes the bytes of the chunk, from which the line is copied if it is reported.
+		 * @param from the index of the first byte in the line.
+		 * @param to the index after the last byte in the line.
+		 */
+		void add(int line, int count, int clazz, byte[] bytes, int from, int to)
+		{
+			if(count <= 0)
+			{
+				if(this.firstInvalid == -1)
+				{
+					this.firstInvalid = line;
+					this.invalidLine = new String(bytes, from, to - from);
+				}
+				return;
+			}
+
+			this.examples++;
+
+			if(this.features == -1)
+			{
+				this.features = count - 1;
+				this.firstRow = line;
+				this.firstRowLine = new String(bytes, from, to - from);
+			}
+			else if(this.features != count - 1 && this.firstDiscrepancy == -1)
+			{
+				this.firstDiscrepancy = line;
+				this.discrepancyLine = new String(bytes, from, to - from);
+			}
+
+			Integer currentClassCount = this.classDist.get(clazz);
+			this.classDist.put(clazz, currentClassCount == null ? 1 : currentClassCount + 1);
+		}
+
+		/**
+		 * Merges the summary of the range immediately following this one in to this summary.
+		 * @param next the summary of the following range.
+		 */
+		void merge(Summary next)
+		{
+			if(this.firstInvalid == -1 && next.firstInvalid != -1)
+			{
+				this.firstInvalid = this.lines + next.firstInvalid;
+				this.invalidLine = next.invalidLine;
+			}
+
+			if(this.firstDiscrepancy == -1)
+			{
+				if(this.features == -1 || next.features == this.features)
+				{
+					this.firstDiscrepancy = next.firstDiscrepancy == -1 ? -1 : this.lines + next.firstDiscrepancy;
+					this.discrepancyLine = next.discrepancyLine;
+				}
+				else if(next.features != -1)
+				{
+					this.firstDiscrepancy = this.lines + next.firstRow;
+					this.discrepancyLine = next.firstRowLine;
+				}
+			}
+
+			if(this.features == -1 && next.features != -1)
+			{
+				this.features = next.features;
+				this.firstRow = this.lines + next.firstRow;
+				this.firstRowLine = next.firstRowLine;
+			}
+
+			for(Map.Entry<Integer,Integer> entry : next.classDist.entrySet())
+			{
+				Integer currentClassCount = this.classDist.get(entry.getKey());
+				this.classDist.put(entry.getKey(), currentClassCount == null ? entry.getValue() : currentClassCount + entry.getValue());
+			}
+
+			this.examples += next.examples;
+			this.lines += next.lines;
+		}
+	}
+
+	/**
+	 * Checks the validity of a range of chunks, splitting the range in half
+	 * until a single chunk remains, and merging the results.
+	 */
+	private class ValidateTask extends RecursiveTask<Summary>
+	{
+		/**
+		 * Required for serialization.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The first chunk in the range.
+		 */
+		private final int from;
+
+		/**
+		 * The chunk after the last chunk in the range.
+		 */
+		private final int to;
+
+		/**
+		 * @param from the first chunk in the range.
+		 * @param to the chunk after the last chunk in the range.
+		 */
+		ValidateTask(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveTask#compute()
+		 */
+		@Override
+		protected Summary compute()
+		{
+			if(this.to - this.from > 1)
+			{
+				int middle = (this.from + this.to) >>> 1;
+				ValidateTask second = new ValidateTask(middle, this.to);
+				second.fork();
+
+				Summary summary = new ValidateTask(this.from, middle).compute();
+				summary.merge(second.join());
+				return summary;
+			}
+
+			Summary summary = new Summary();
+
+			if(this.to > this.from)
+			{
+				try { parseChunk(this.from, summary, null); }
+				catch (IOException e)
+				{
+					processError(e,"IOException in ValidateTask.compute()");
+					summary.firstInvalid = 0;
+				}
+			}
+
+			return summary;
+		}
+	}
+
+	/**
+	 * Parses the valid rows in a single chunk.
+	 */
+	private class ParseTask extends RecursiveTask<List<double[]>>
+	{
+		/**
+		 * Required for serialization.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The chunk to parse.
+		 */
+		private final int chunk;
+
+		/**
+		 * @param chunk the chunk to parse.
+		 */
+		ParseTask(int chunk) { this.chunk = chunk; }
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveTask#compute()
+		 */
+		@Override
+		protected List<double[]> compute()
+		{
+			List<double[]> rows = new ArrayList<double[]>();
+
+			try { parseChunk(this.chunk, null, rows); }
+			catch (IOException e) { processError(e,"IOException in ParseTask.compute()"); }
+
+			return rows;
+		}
+	}
+}
@@ -0,0 +1,358 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	PrefetchingFile.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cs.man.ac.uk.obj.BaseObject;
+import cs.man.ac.uk.utils.RingBuffer;
+
+/**
+ * Wraps a data file, reading instances from it on a background thread so that
+ * file I/O and parsing overlap with whatever the caller does with each instance
+ * (e.g. training the tree). Instances are read ahead in to a bounded
+ * {@link RingBuffer}, so at most <i>depth</i> instances are held in memory; once
+ * the buffer is full the background thread waits for the caller to catch up.
+ *
+ * Once created, the wrapped file must not be used directly, as it is read by the
+ * background thread. The example count and class distribution are taken from the
+ * wrapped file, so for streamed files these describe the instances read ahead, and
+ * are only complete once all instances have been read. The wrapped file is locked
+ * while each instance is read ahead, so that these are never read part way through
+ * reading an instance.
+ */
+public class PrefetchingFile extends BaseObject implements I_File
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The default number of instances read ahead.
+	 */
+	public static final int DEFAULT_DEPTH = 1024;
+
+	/**
+	 * Placed in the buffer after the last instance, to signal the end of the file.
+	 */
+	private static final I_Instance END_OF_FILE = new DenseInstance(0);
+
+	/**
+	 * The file read by the background thread.
+	 */
+	private final I_File source;
+
+	/**
+	 * Held while the wrapped file is used, as it is read by the background thread
+	 * while its example count and class distribution may be read by the caller.
+	 */
+	private final Object sourceLock = new Object();
+
+	/**
+	 * Holds the instances read ahead.
+	 */
+	private final RingBuffer<I_Instance> buffer;
+
+	/**
+	 * The background thread reading the file.
+	 */
+	private Thread reader = null;
+
+	/**
+	 * Flag that indicates the end of the file has been reached by the caller.
+	 */
+	private boolean finished = false;
+
+	/**
+	 * The block returned by {@link #getNextBatch(int)}, re-used by each call.
+	 */
+	private InstanceBlock batch = null;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Creates a new prefetching file that reads ahead by the default depth.
+	 * @param source the file to read, which should be read incrementally.
+	 * @param v the verbose logging flag.
+	 */
+	public PrefetchingFile(I_File source, boolean v)
+	{
+		this(source, DEFAULT_DEPTH, v);
+	}
+
+	/**
+	 * Creates a new prefetching file, and starts reading ahead immediately.
+	 * @param source the file to read, which should be read incrementally.
+	 * @param depth the maximum number of instances read ahead.
+	 * @param v the verbose logging flag.
+	 */
+	public PrefetchingFile(I_File source, int depth, boolean v)
+	{
+		super(v);
+		this.source = source;
+		this.buffer = new RingBuffer<I_Instance>(depth);
+
+		if(source.isValid())
+		{
+			this.reader = new Thread(new Prefetcher(), "PrefetchingFile");
+			this.reader.setDaemon(true);
+			this.reader.start();
+		}
+		else
+			this.finished = true;
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#isValid()
+	 */
+	@Override
+	public boolean isValid()
+	{
+		synchronized(this.sourceLock) { return this.source.isValid(); }
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#countExamples()
+	 */
+	@Override
+	public int countExamples()
+	{
+		synchronized(this.sourceLock) { return this.source.countExamples(); }
+	}
+
+	/**
+	 * Unlike most files, this returns only the instances that have not yet been
+	 * read, as the wrapped file is consumed as it is read ahead.
+	 * @return the remaining instances in this file.
+	 */
+	@Override
+	public List<I_Instance> getAll()
+	{
+		List<I_Instance> instances = new ArrayList<I_Instance>();
+
+		I_Instance inst;
+		while((inst = getNext()) != null)
+			instances.add(inst);
+
+		return instances;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNext()
+	 */
+	@Override
+	public I_Instance getNext()
+	{
+		if(this.finished)
+			return null;
+
+		try
+		{
+			I_Instance inst = this.buffer.take();
+
+			if(inst == END_OF_FILE)
+			{
+				this.finished = true;
+				return null;
+			}
+
+			return inst;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			this.processError(e,"InterruptedException in public I_Instance getNext()");
+			return null;
+		}
+	}
+
+	/**
+	 * As instances are created by the background thread, this copies the next
+	 * instance in to the one supplied, rather than avoiding its creation.
+	 * @param into the instance to overwrite, which must be modifiable.
+	 * @return true if an instance was read, else false if there are no more.
+	 */
+	@Override
+	public boolean getNext(I_Instance into)
+	{
+		I_Instance inst = getNext();
+
+		if(inst == null)
+			return false;
+
+		if(inst instanceof DenseInstance)
+		{
+			DenseInstance dense = (DenseInstance)inst;
+			DenseInstance.copy(into, dense.getValues(), dense.getFeatureCount(), dense.getClassLabel());
+		}
+		else
+		{
+			double[] data = new double[inst.numAttributes()];
+
+			for(int i = 0; i < data.length; i++)
+				data[i] = inst.value(i);
+
+			DenseInstance.copy(into, data, data.length, inst.getClassLabel());
+		}
+
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNextBatch(int)
+	 */
+	@Override
+	public InstanceBlock getNextBatch(int n)
+	{
+		if(n <= 0)
+			return null;
+
+		// The first instance is taken before the block is sized, as the number of features
+		// of a streamed file is not known until the background thread has read its first row.
+		I_Instance inst = getNext();
+
+		if(inst == null)
+			return null;
+
+		this.batch = InstanceBlock.reuse(this.batch, n, inst.numAttributes());
+
+		do
+		{
+			if(!this.batch.add(inst))
+				this.processError("Error reading instance, it has " + inst.numAttributes() + " features, expected " + this.batch.getFeatureCount() + ", the instance is skipped.");
+		}
+		while(!this.batch.isFull() && (inst = getNext()) != null);
+
+		return this.batch;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getClassDistribution()
+	 */
+	@Override
+	public int[] getClassDistribution()
+	{
+		synchronized(this.sourceLock) { return this.source.getClassDistribution(); }
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getFeatureCount()
+	 */
+	@Override
+	public int getFeatureCount()
+	{
+		synchronized(this.sourceLock) { return this.source.getFeatureCount(); }
+	}
+
+	/**
+	 * Stops reading ahead and closes the wrapped file, once the background thread
+	 * has stopped. No further instances can be read.
+	 */
+	public void closeFile()
+	{
+		this.finished = true;
+
+		if(this.reader != null)
+		{
+			this.reader.interrupt();
+
+			try { this.reader.join(); }
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				this.processError(e,"InterruptedException in public void closeFile()");
+			}
+		}
+
+		synchronized(this.sourceLock)
+		{
+			if(this.source instanceof DataFile)
+				((DataFile)this.source).closeFile();
+			else if(this.source instanceof BinaryFile)
+				((BinaryFile)this.source).closeFile();
+			else if(this.source instanceof MappedDataFile)
+				((MappedDataFile)this.source).closeFile();
+			else if(this.source instanceof ParallelDataFile)
+				((ParallelDataFile)this.source).closeFile();
+		}
+	}
+
+	/**
+	 * @return the number of instances that have been read ahead, but not yet returned.
+	 */
+	public int prefetched() { return this.buffer.size(); }
+
+	/**
+	 * Over-ridden toString method.
+	 * @return a string describing this class.
+	 */
+	public String toString()
+	{
+		synchronized(this.sourceLock) { return this.source.toString(); }
+	}
+
+	/**
+	 * Reads instances from the wrapped file in to the buffer, until the end of
+	 * the file is reached or reading is stopped.
+	 */
+	private class Prefetcher implements Runnable
+	{
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run()
+		{
+			try
+			{
+				try
+				{
+					I_Instance inst;
+					while((inst = readAhead()) != null)
+						buffer.put(inst);
+				}
+				catch (RuntimeException e) { processError(e,"Exception reading ahead in PrefetchingFile."); }
+
+				buffer.put(END_OF_FILE);
+			}
+			catch (InterruptedException e) { } // Reading was stopped by closeFile().
+		}
+
+		/**
+		 * Reads the next instance from the wrapped file. The lock is not held while
+		 * waiting for space in the buffer, so the caller is never blocked by it for
+		 * longer than it takes to read one instance.
+		 * @return the next instance, else null if there are no more.
+		 */
+		private I_Instance readAhead()
+		{
+			synchronized(sourceLock) { return source.getNext(); }
+		}
+	}
+}
@@ -0,0 +1,424 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	SparseInstance.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * A data instance that stores only its non-zero features, as read from a sparse
+ * ARFF row such as <i>{0 1.5, 7 2.0, 10 1}</i>. The indices of the stored features
+ * are held in ascending order in one array, and their values in a parallel array,
+ * so the memory used grows with the number of non-zero features rather than the
+ * total number of features. Features that are not stored have the value zero.
+ *
+ * Reading a single feature via {@link #value(int)} requires a binary search. Code
+ * that visits every feature should instead iterate over the stored features using
+ * {@link #numValues()}, {@link #index(int)} and {@link #valueSparse(int)}.
+ */
+public class SparseInstance implements I_Instance
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The class label for this instance.
+	 */
+	private int classLabel = -1;
+
+	/**
+	 * The training weight for this instance.
+	 */
+	private double weight = 1.0;
+
+	/**
+	 * The indices of the stored features, in ascending order. Only the
+	 * first <i>count</i> elements are used.
+	 */
+	private int[] indices;
+
+	/**
+	 * The values of the stored features, parallel to the indices.
+	 */
+	private double[] values;
+
+	/**
+	 * The number of stored features.
+	 */
+	private int count = 0;
+
+	/**
+	 * The number of features possessed by this instance, including those not stored.
+	 */
+	private int featureCount;
+
+	/**
+	 *	Constructors
+	 */
+
+	/**
+	 * Creates a new instance with the specified number of features, all zero.
+	 * @param n the number of features.
+	 */
+	public SparseInstance(int n)
+	{
+		this.indices = new int[4];
+		this.values = new double[4];
+		this.featureCount = n;
+	}
+
+	/**
+	 * Creates a new instance from the supplied stored features, which are copied.
+	 * @param idx the indices of the stored features, in ascending order.
+	 * @param vals the values of the stored features.
+	 * @param nnz the number of stored features, i.e. the first nnz elements of idx and vals.
+	 * @param n the number of features.
+	 * @param label the class label.
+	 */
+	public SparseInstance(int[] idx, double[] vals, int nnz, int n, int label)
+	{
+		this.indices = Arrays.copyOf(idx, nnz);
+		this.values = Arrays.copyOf(vals, nnz);
+		this.count = nnz;
+		this.featureCount = n;
+		this.classLabel = label;
+	}
+
+	/**
+	 * Creates a copy of an instance, holding only its stored features.
+	 * @param inst the instance to copy.
+	 */
+	public SparseInstance(SparseInstance inst)
+	{
+		this(inst.indices, inst.values, inst.count, inst.featureCount, inst.classLabel);
+		this.weight = inst.weight;
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/**
+	 * @return the number of stored features.
+	 */
+	public int numValues() { return this.count; }
+
+	/**
+	 * @param position the position of a stored feature, from 0 to {@link #numValues()} - 1.
+	 * @return the index of the stored feature.
+	 */
+	public int index(int position) { return this.indices[position]; }
+
+	/**
+	 * @param position the position of a stored feature, from 0 to {@link #numValues()} - 1.
+	 * @return the value of the stored feature.
+	 */
+	public double valueSparse(int position) { return this.values[position]; }
+
+	/**
+	 * Overwrites this instance with the contents of another, re-using the existing
+	 * storage where possible.
+	 * @param inst the instance to copy.
+	 */
+	public void set(SparseInstance inst)
+	{
+		if(inst.count > this.indices.length)
+		{
+			this.indices = new int[inst.count];
+			this.values = new double[inst.count];
+		}
+
+		System.arraycopy(inst.indices, 0, this.indices, 0, inst.count);
+		System.arraycopy(inst.values, 0, this.values, 0, inst.count);
+		this.count = inst.count;
+		this.featureCount = inst.featureCount;
+		this.classLabel = inst.classLabel;
+		this.weight = inst.weight;
+	}
+
+	/**
+	 * Removes all stored features, so that every feature is zero.
+	 * @param n the new number of features.
+	 */
+	public void clear(int n)
+	{
+		this.count = 0;
+		this.featureCount = n;
+	}
+
+	/**
+	 * Appends a stored feature. The index must be greater than that of every
+	 * feature already stored, as when reading a sparse row from left to right.
+	 * @param f the feature index.
+	 * @param value the feature value.
+	 * @return true if the feature was stored, else false if the index is out of
+	 * range or not in ascending order.
+	 */
+	public boolean append(int f, double value)
+	{
+		if(f < 0 || f >= this.featureCount || (this.count > 0 && f <= this.indices[this.count-1]))
+			return false;
+
+		if(this.count == this.indices.length)
+			grow();
+
+		this.indices[this.count] = f;
+		this.values[this.count++] = value;
+		return true;
+	}
+
+	/**
+	 * Removes the features that are not in a projection, and renumbers those that
+	 * remain to their position in the projection.
+	 * @param columns the position of each feature in the projection, else -1 if
+	 * the feature is not in the projection.
+	 * @param n the number of features in the projection.
+	 */
+	public void project(int[] columns, int n)
+	{
+		int kept = 0;
+
+		for(int i = 0; i < this.count; i++)
+			if(columns[this.indices[i]] >= 0)
+			{
+				this.indices[kept] = columns[this.indices[i]];
+				this.values[kept++] = this.values[i];
+			}
+
+		this.count = kept;
+		this.featureCount = n;
+	}
+
+	/**
+	 * Writes the value of every feature, including those not stored, to an array.
+	 * @param data the array to write to, which must hold at least {@link #numAttributes()} values.
+	 */
+	public void toDoubleArray(double[] data)
+	{
+		Arrays.fill(data, 0, this.featureCount, 0.0);
+
+		for(int i = 0; i < this.count; i++)
+			data[this.indices[i]] = this.values[i];
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#getClassLabel()
+	 */
+	@Override
+	public int getClassLabel() { return this.classLabel;}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#getFeature(int)
+	 */
+	@Override
+	public double getFeature(int f)
+	{
+		if(f >= 0 && f < this.featureCount)
+			return value(f);
+		else
+			return Double.NaN;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#getFeatures()
+	 */
+	@Override
+	public Vector<Double> getFeatures()
+	{
+		Vector<Double> features = new Vector<Double>(this.featureCount);
+
+		for(int i=0;i<this.featureCount;i++)
+			features.add(0.0);
+
+		for(int i=0;i<this.count;i++)
+			features.set(this.indices[i], this.values[i]);
+
+		return features;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setClasslabel(int)
+	 */
+	@Override
+	public void setClasslabel(int i) { this.classLabel = i; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setFeature(int, double)
+	 */
+	@Override
+	public boolean setFeature(int f, double value)
+	{
+		if(f < 0 || f >= this.featureCount)
+			return false;
+
+		int position = Arrays.binarySearch(this.indices, 0, this.count, f);
+
+		if(position >= 0)
+			this.values[position] = value;
+		else if(value != 0.0)
+		{
+			// Insert the feature, keeping the indices in ascending order.
+			position = -position - 1;
+
+			if(this.count == this.indices.length)
+				grow();
+
+			System.arraycopy(this.indices, position, this.indices, position + 1, this.count - position);
+			System.arraycopy(this.values, position, this.values, position + 1, this.count - position);
+			this.indices[position] = f;
+			this.values[position] = value;
+			this.count++;
+		}
+
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setFeatures(double[])
+	 */
+	@Override
+	public boolean setFeatures(double[] data)
+	{
+		clear(data.length);
+
+		for(int i = 0; i < data.length; i++)
+			if(data[i] != 0.0)
+				append(i, data[i]);
+
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#addFeature(double)
+	 */
+	@Override
+	public void addFeature(double f)
+	{
+		this.featureCount++;
+
+		if(f != 0.0)
+			append(this.featureCount-1, f);
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#removeFeature(int)
+	 */
+	@Override
+	public void removeFeature(int f)
+	{
+		if(f < 0 || f >= this.featureCount)
+			throw new ArrayIndexOutOfBoundsException(f);
+
+		int position = Arrays.binarySearch(this.indices, 0, this.count, f);
+
+		if(position >= 0)
+		{
+			System.arraycopy(this.indices, position + 1, this.indices, position, this.count - position - 1);
+			System.arraycopy(this.values, position + 1, this.values, position, this.count - position - 1);
+			this.count--;
+		}
+		else
+			position = -position - 1;
+
+		// Features after the one removed move down by one.
+		for(int i = position; i < this.count; i++)
+			this.indices[i]--;
+
+		this.featureCount--;
+	}
+
+	/**
+	 * Over-ridden toString method.
+	 * @return the instance in the sparse ARFF format, with the class label as the last feature.
+	 */
+	public String toString()
+	{
+		StringBuilder value = new StringBuilder("{");
+
+		for (int i=0;i<this.count;i++)
+			value.append(this.indices[i]).append(' ').append(this.values[i]).append(',');
+
+		value.append(this.featureCount).append(' ').append(this.classLabel).append('}');
+
+		return value.toString();
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#getFeatureCount()
+	 */
+	@Override
+	public int getFeatureCount() { return this.featureCount; }
+
+	/**
+	 * Doubles the space available for stored features.
+	 */
+	private void grow()
+	{
+		int length = Math.max(4, this.indices.length * 2);
+		this.indices = Arrays.copyOf(this.indices, length);
+		this.values = Arrays.copyOf(this.values, length);
+	}
+
+	/*
+	 *	MOA METHODS COMPATIBILITY.
+	 */
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#weight()
+	 */
+	public double weight(){ return this.weight; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#setWeight(double)
+	 */
+	public void setWeight(double w) { this.weight = w; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#classIsMissing()
+	 */
+	public boolean classIsMissing() { return this.classLabel == -1; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#isMissing(int)
+	 */
+	public boolean isMissing(int attIndex) { return Double.isNaN(value(attIndex)); }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#numAttributes()
+	 */
+	public int numAttributes() { return this.featureCount; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#classValue()
+	 */
+	public double classValue() { return (double) this.classLabel; }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_Instance#value(int)
+	 */
+	public double value(int attIndex)
+	{
+		int position = Arrays.binarySearch(this.indices, 0, this.count, attIndex);
+		return position >= 0 ? this.values[position] : 0.0;
+	}
+}
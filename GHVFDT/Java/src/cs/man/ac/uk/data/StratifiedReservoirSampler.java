@@ -0,0 +1,538 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	StratifiedReservoirSampler.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+import cs.man.ac.uk.obj.BaseObject;
+
+/**
+ * Draws stratified training and test sets from a stream of any size in a single
+ * pass. Each class has its own reservoir, sized to hold the training quota plus
+ * the test quota of that class, and every row of the class seen so far has the
+ * same chance of being in the reservoir (reservoir sampling, algorithm R). Only
+ * the reservoirs are held in memory, so the memory used depends on the quotas
+ * rather than the size of the stream.
+ *
+ * Once the stream has been read, each reservoir is shuffled and split in to its
+ * training and test rows, and the two sets are written in a random order, through
+ * buffered file channels, as ARFF or CSV files. Choosing the quotas chooses the
+ * class balance of each set, e.g. quotas of {9000, 1000} for training and
+ * {9990, 10} for testing give a balanced training set and a test set with the
+ * imbalance seen in practice. See {@link #quotas(int, double[])}.
+ *
+ * When fewer rows of a class are seen than its quotas ask for, every row of the
+ * class is kept, and split between the sets in proportion to the quotas.
+ */
+public class StratifiedReservoirSampler extends BaseObject
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The number of rows read from a file at a time.
+	 */
+	private static final int SAMPLE_BATCH_SIZE = 1024;
+
+	/**
+	 * The size of the buffer rows are written through.
+	 */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * The initial number of rows a reservoir can hold, it grows up to the quotas of its class.
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * The number of rows of each class in the training set.
+	 */
+	private final int[] trainQuota;
+
+	/**
+	 * The number of rows of each class in the test set.
+	 */
+	private final int[] testQuota;
+
+	/**
+	 * The feature values of the rows in each reservoir, row-major.
+	 */
+	private final double[][] reservoirs;
+
+	/**
+	 * The number of rows in each reservoir.
+	 */
+	private final int[] sampled;
+
+	/**
+	 * The number of rows of each class seen.
+	 */
+	private final long[] seen;
+
+	/**
+	 * The number of rows seen whose class label has no quota, including missing labels.
+	 */
+	private long ignored = 0;
+
+	/**
+	 * The number of features in each row, set by the first row seen.
+	 */
+	private int featureCount = -1;
+
+	/**
+	 * Decides which rows are sampled, and the order they are written in.
+	 */
+	private final Random random;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Creates a new sampler. Class <i>c</i> is sampled only if it has a quota,
+	 * i.e. c is less than the length of the quota arrays.
+	 * @param trainQuota the number of rows of each class in the training set.
+	 * @param testQuota the number of rows of each class in the test set.
+	 * @param seed the seed of the random numbers used, so samples can be repeated.
+	 * @param v the verbose logging flag.
+	 */
+	public StratifiedReservoirSampler(int[] trainQuota, int[] testQuota, long seed, boolean v)
+	{
+		super(v);
+
+		int classes = Math.max(trainQuota.length, testQuota.length);
+		this.trainQuota = Arrays.copyOf(trainQuota, classes);
+		this.testQuota = Arrays.copyOf(testQuota, classes);
+
+		for(int c = 0; c < classes; c++)
+			if(this.trainQuota[c] < 0 || this.testQuota[c] < 0)
+			{
+				this.processError("Quotas of class " + c + " must not be negative, no rows of the class will be sampled.");
+				this.trainQuota[c] = 0;
+				this.testQuota[c] = 0;
+			}
+
+		this.reservoirs = new double[classes][];
+		this.sampled = new int[classes];
+		this.seen = new long[classes];
+		this.random = new Random(seed);
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/**
+	 * Divides a number of rows between the classes in a target ratio, for use as quotas.
+	 * @param total the total number of rows.
+	 * @param ratios the relative size of each class, e.g. {1, 1} for balanced classes,
+	 * or {9999, 1} for an imbalance of 9999:1.
+	 * @return the number of rows of each class, which sum to the total.
+	 */
+	public static int[] quotas(int total, double[] ratios)
+	{
+		double sum = 0;
+		for(int c = 0; c < ratios.length; c++)
+			sum += ratios[c];
+
+		int[] quotas = new int[ratios.length];
+		int assigned = 0;
+		double cumulative = 0;
+
+		// Rounding the running total keeps the sum exact.
+		for(int c = 0; c < ratios.length; c++)
+		{
+			cumulative += ratios[c];
+			int upTo = (int) Math.round(total * cumulative / sum);
+			quotas[c] = upTo - assigned;
+			assigned = upTo;
+		}
+
+		return quotas;
+	}
+
+	/**
+	 * Samples every remaining instance of a file. The instances are read in
+	 * batches, so no objects are created per instance for files that support
+	 * batched reads.
+	 * @param source the file to sample, which should be read incrementally.
+	 * @return the number of rows read, else -1 if the file is not valid.
+	 */
+	public long sample(I_File source)
+	{
+		if(!source.isValid())
+		{
+			this.processError("Error sampling data file, the source file is not valid.");
+			return -1;
+		}
+
+		long rows = 0;
+
+		InstanceBlock block;
+		while((block = source.getNextBatch(SAMPLE_BATCH_SIZE)) != null)
+		{
+			double[] values = block.getValues();
+			int n = block.getFeatureCount();
+
+			for(int r = 0; r < block.size(); r++)
+				offer(values, r * n, n, block.getClassLabel(r));
+
+			rows += block.size();
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Offers a single row to the sampler.
+	 * @param values the feature values, only the first n are copied if the row is sampled.
+	 * @param n the number of features, which must be the same for every row.
+	 * @param label the class label.
+	 * @return true if the row was sampled, else false.
+	 */
+	public boolean offer(double[] values, int n, int label) { return offer(values, 0, n, label); }
+
+	/**
+	 * Offers a single row to the sampler.
+	 * @param values the array holding the feature values.
+	 * @param offset the index of the first feature value in the array.
+	 * @param n the number of features, which must be the same for every row.
+	 * @param label the class label.
+	 * @return true if the row was sampled, else false.
+	 */
+	private boolean offer(double[] values, int offset, int n, int label)
+	{
+		if(this.featureCount < 0)
+			this.featureCount = n;
+		else if(n != this.featureCount)
+		{
+			this.processError("Error sampling row, it has " + n + " features, expected " + this.featureCount + ".");
+			return false;
+		}
+
+		if(label < 0 || label >= this.seen.length)
+		{
+			this.ignored++;
+			return false;
+		}
+
+		long count = ++this.seen[label];
+		int capacity = this.trainQuota[label] + this.testQuota[label];
+		int slot;
+
+		if(capacity == 0)
+			return false;
+
+		if(this.sampled[label] < capacity)
+		{
+			slot = this.sampled[label]++;
+			ensureCapacity(label, slot + 1);
+		}
+		else
+		{
+			// The row replaces a random row of the reservoir with probability capacity / count.
+			long r = (long) (this.random.nextDouble() * count);
+
+			if(r >= capacity)
+				return false;
+
+			slot = (int) r;
+		}
+
+		System.arraycopy(values, offset, this.reservoirs[label], slot * n, n);
+		return true;
+	}
+
+	/**
+	 * Splits the reservoirs in to training and test sets, and writes them. The
+	 * format of each file is chosen by its extension: ARFF if the path ends with
+	 * ".arff", else CSV, with the class label following the features of each row.
+	 * The reservoirs are shuffled, but otherwise unchanged, so sampling may continue
+	 * afterwards.
+	 * @param trainPath the full path of the training set file, any existing file is replaced.
+	 * @param testPath the full path of the test set file, any existing file is replaced.
+	 * @return true if both files were written, else false.
+	 */
+	public boolean write(String trainPath, String testPath)
+	{
+		int classes = this.seen.length;
+		int[] trainCount = new int[classes];
+		int trainTotal = 0, testTotal = 0;
+
+		for(int c = 0; c < classes; c++)
+		{
+			shuffle(c);
+			trainCount[c] = countTraining(c);
+			trainTotal += trainCount[c];
+			testTotal += this.sampled[c] - trainCount[c];
+		}
+
+		// Each row is identified by its class and position in the reservoir.
+		int[] trainClass = new int[trainTotal], trainRow = new int[trainTotal];
+		int[] testClass = new int[testTotal], testRow = new int[testTotal];
+		int train = 0, test = 0;
+
+		for(int c = 0; c < classes; c++)
+			for(int r = 0; r < this.sampled[c]; r++)
+			{
+				if(r < trainCount[c])
+				{
+					trainClass[train] = c;
+					trainRow[train++] = r;
+				}
+				else
+				{
+					testClass[test] = c;
+					testRow[test++] = r;
+				}
+			}
+
+		// Interleave the classes, so neither set is sorted by class.
+		shuffle(trainClass, trainRow, trainTotal);
+		shuffle(testClass, testRow, testTotal);
+
+		return writeSet(trainPath, trainClass, trainRow, trainTotal) && writeSet(testPath, testClass, testRow, testTotal);
+	}
+
+	/**
+	 * Writes a set of rows to a file.
+	 * @param path the full path of the file, any existing file is replaced.
+	 * @param classes the class of each row.
+	 * @param rows the position of each row in the reservoir of its class.
+	 * @param count the number of rows.
+	 * @return true if the file was written, else false.
+	 */
+	private boolean writeSet(String path, int[] classes, int[] rows, int count)
+	{
+		boolean arff = path.toLowerCase().endsWith(".arff");
+		int n = Math.max(this.featureCount, 0);
+
+		RandomAccessFile file = null;
+
+		try
+		{
+			file = new RandomAccessFile(path, "rw");
+			file.setLength(0);
+
+			FileChannel channel = file.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			StringBuilder line = new StringBuilder();
+
+			if(arff)
+			{
+				String name = new File(path).getName();
+				line.append("@relation ").append(name.substring(0, name.length() - 5)).append('\n');
+
+				for(int f = 0; f < n; f++)
+					line.append("@attribute Feature_").append(f + 1).append(" numeric\n");
+
+				line.append("@attribute class {");
+				for(int c = 0; c < this.seen.length; c++)
+					line.append(c == 0 ? "" : ",").append(c);
+				line.append("}\n@data\n");
+
+				put(channel, buffer, line);
+			}
+
+			for(int i = 0; i < count; i++)
+			{
+				double[] reservoir = this.reservoirs[classes[i]];
+				int offset = rows[i] * n;
+
+				line.setLength(0);
+
+				for(int f = 0; f < n; f++)
+				{
+					double value = reservoir[offset + f];
+
+					if(arff && Double.isNaN(value))
+						line.append('?');
+					else
+						line.append(value);
+
+					line.append(',');
+				}
+
+				line.append(classes[i]).append('\n');
+				put(channel, buffer, line);
+			}
+
+			write(channel, buffer);
+			return true;
+		}
+		catch (IOException e) { this.processError(e,"IOException in private boolean writeSet(String path, int[] classes, int[] rows, int count)"); return false; }
+		finally
+		{
+			if(file != null)
+				try { file.close(); }
+				catch (IOException e) { e.printStackTrace();}
+		}
+	}
+
+	/**
+	 * Copies the characters of a line in to the buffer, writing the buffer to the
+	 * channel whenever it is full. Every character written is ASCII.
+	 * @param channel the channel to write to.
+	 * @param buffer the buffer to copy in to.
+	 * @param line the characters to copy.
+	 * @throws IOException if the data cannot be written.
+	 */
+	private void put(FileChannel channel, ByteBuffer buffer, CharSequence line) throws IOException
+	{
+		for(int i = 0; i < line.length(); i++)
+		{
+			if(!buffer.hasRemaining())
+				write(channel, buffer);
+
+			buffer.put((byte) line.charAt(i));
+		}
+	}
+
+	/**
+	 * Writes the contents of the buffer to the channel, leaving the buffer empty.
+	 * @param channel the channel to write to.
+	 * @param buffer the buffer to write.
+	 * @throws IOException if the data cannot be written.
+	 */
+	private void write(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+
+		buffer.clear();
+	}
+
+	/**
+	 * @param label the class.
+	 * @return the number of rows of the class that go in to the training set, the
+	 * rest of its reservoir goes in to the test set.
+	 */
+	private int countTraining(int label)
+	{
+		int capacity = this.trainQuota[label] + this.testQuota[label];
+
+		if(this.sampled[label] == capacity)
+			return this.trainQuota[label];
+
+		// Too few rows were seen, so they are split in proportion to the quotas.
+		return (int) Math.round((double) this.sampled[label] * this.trainQuota[label] / capacity);
+	}
+
+	/**
+	 * Grows the reservoir of a class so that it can hold at least the requested
+	 * number of rows, but no more than the quotas of the class.
+	 * @param label the class.
+	 * @param rows the number of rows required.
+	 */
+	private void ensureCapacity(int label, int rows)
+	{
+		double[] reservoir = this.reservoirs[label];
+		int held = reservoir == null ? 0 : reservoir.length / Math.max(this.featureCount, 1);
+
+		if(reservoir != null && (rows <= held || this.featureCount == 0))
+			return;
+
+		int capacity = this.trainQuota[label] + this.testQuota[label];
+		int grown = (int) Math.min(capacity, Math.max(rows, Math.max(INITIAL_CAPACITY, (long) held * 2)));
+
+		this.reservoirs[label] = reservoir == null ? new double[grown * this.featureCount]
+				: Arrays.copyOf(reservoir, grown * this.featureCount);
+	}
+
+	/**
+	 * Shuffles the rows of the reservoir of a class in place.
+	 * @param label the class.
+	 */
+	private void shuffle(int label)
+	{
+		double[] reservoir = this.reservoirs[label];
+		int n = this.featureCount;
+
+		if(reservoir == null || n == 0)
+			return;
+
+		double[] row = new double[n];
+
+		for(int i = this.sampled[label] - 1; i > 0; i--)
+		{
+			int j = this.random.nextInt(i + 1);
+
+			System.arraycopy(reservoir, i * n, row, 0, n);
+			System.arraycopy(reservoir, j * n, reservoir, i * n, n);
+			System.arraycopy(row, 0, reservoir, j * n, n);
+		}
+	}
+
+	/**
+	 * Shuffles two parallel arrays in the same order.
+	 * @param a the first array.
+	 * @param b the second array.
+	 * @param count the number of elements to shuffle.
+	 */
+	private void shuffle(int[] a, int[] b, int count)
+	{
+		for(int i = count - 1; i > 0; i--)
+		{
+			int j = this.random.nextInt(i + 1);
+
+			int t = a[i]; a[i] = a[j]; a[j] = t;
+			t = b[i]; b[i] = b[j]; b[j] = t;
+		}
+	}
+
+	/**
+	 * @param label the class.
+	 * @return the number of rows of the class seen.
+	 */
+	public long countSeen(int label) { return label >= 0 && label < this.seen.length ? this.seen[label] : 0; }
+
+	/**
+	 * @param label the class.
+	 * @return the number of rows of the class held in its reservoir.
+	 */
+	public int countSampled(int label) { return label >= 0 && label < this.sampled.length ? this.sampled[label] : 0; }
+
+	/**
+	 * @return the number of rows seen whose class has no quota, including those with a missing class.
+	 */
+	public long countIgnored() { return this.ignored; }
+
+	/**
+	 * Over-ridden toString method.
+	 * @return a string describing this class.
+	 */
+	public String toString()
+	{
+		return "\nTrain quotas:\t" + Arrays.toString(this.trainQuota) + "\nTest quotas:\t" + Arrays.toString(this.testQuota) +
+				"\nSeen:\t" + Arrays.toString(this.seen) + "\nSampled:\t" + Arrays.toString(this.sampled) +
+				"\nIgnored:\t" + this.ignored + "\n";
+	}
+}
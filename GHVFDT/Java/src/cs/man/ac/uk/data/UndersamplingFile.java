@@ -0,0 +1,352 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	UndersamplingFile.java
+ * Package: cs.man.ac.uk.data
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import cs.man.ac.uk.obj.BaseObject;
+
+/**
+ * Wraps a data file, passing on only a random fraction of the majority class
+ * instances it contains. For heavily imbalanced streams almost all of the time
+ * spent training goes on majority class instances, so dropping most of them makes
+ * training faster by roughly the inverse of the keep rate.
+ *
+ * Each majority class instance is kept with probability <i>keepRate</i>, and the
+ * weight of those kept is multiplied by <i>1 / keepRate</i>. As the tree and its
+ * attribute observers respect instance weights, the expected class statistics
+ * are unchanged. Instances of every other class, and those with a missing class,
+ * are always passed on unchanged.
+ *
+ * Once created, the wrapped file must not be used directly. The example count
+ * and class distribution are taken from the wrapped file, so they describe the
+ * data before undersampling, see {@link #countKept()} and {@link #countDropped()}.
+ */
+public class UndersamplingFile extends BaseObject implements I_File
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The number of rows read from the wrapped file at a time when reading batches.
+	 */
+	private static final int SOURCE_BATCH_SIZE = 1024;
+
+	/**
+	 * The file undersampled.
+	 */
+	private final I_File source;
+
+	/**
+	 * The class label of the majority class.
+	 */
+	private final int majorityLabel;
+
+	/**
+	 * The probability that a majority class instance is kept.
+	 */
+	private final double keepRate;
+
+	/**
+	 * The factor the weight of each kept majority class instance is multiplied by.
+	 */
+	private final double compensation;
+
+	/**
+	 * Decides which majority class instances are kept.
+	 */
+	private final Random random;
+
+	/**
+	 * The batch most recently read from the wrapped file, may still hold rows not yet filtered.
+	 */
+	private InstanceBlock sourceBatch = null;
+
+	/**
+	 * The next row of the source batch to filter.
+	 */
+	private int sourceRow = 0;
+
+	/**
+	 * The block returned by {@link #getNextBatch(int)}, re-used by each call.
+	 */
+	private InstanceBlock batch = null;
+
+	/**
+	 * Counts the majority class instances kept.
+	 */
+	private long kept = 0;
+
+	/**
+	 * Counts the majority class instances dropped.
+	 */
+	private long dropped = 0;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Creates a new undersampling file.
+	 * @param source the file to undersample, which should be read incrementally.
+	 * @param majorityLabel the class label of the majority class.
+	 * @param keepRate the probability that a majority class instance is kept, in (0,1].
+	 * @param seed the seed of the random numbers deciding which instances are kept, so runs can be repeated.
+	 * @param v the verbose logging flag.
+	 */
+	public UndersamplingFile(I_File source, int majorityLabel, double keepRate, long seed, boolean v)
+	{
+		super(v);
+		this.source = source;
+		this.majorityLabel = majorityLabel;
+
+		if(!(keepRate > 0.0 && keepRate <= 1.0))
+		{
+			this.processError("Keep rate must be greater than zero and at most one, was " + keepRate + ", every instance will be kept.");
+			keepRate = 1.0;
+		}
+
+		this.keepRate = keepRate;
+		this.compensation = 1.0 / keepRate;
+		this.random = new Random(seed);
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#isValid()
+	 */
+	@Override
+	public boolean isValid() { return this.source.isValid(); }
+
+	/**
+	 * @return the number of instances in the wrapped file, including those dropped.
+	 */
+	@Override
+	public int countExamples() { return this.source.countExamples(); }
+
+	/**
+	 * Unlike most files, this returns only the instances that have not yet been
+	 * read, as the wrapped file is consumed as it is read.
+	 * @return the remaining instances kept.
+	 */
+	@Override
+	public List<I_Instance> getAll()
+	{
+		List<I_Instance> instances = new ArrayList<I_Instance>();
+
+		I_Instance inst;
+		while((inst = getNext()) != null)
+			instances.add(inst);
+
+		return instances;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNext()
+	 */
+	@Override
+	public I_Instance getNext()
+	{
+		while(true)
+		{
+			I_Instance inst;
+
+			// Rows already read in a batch are returned before any more are read.
+			if(this.sourceBatch != null && this.sourceRow < this.sourceBatch.size())
+				inst = this.sourceBatch.getInstance(this.sourceRow++);
+			else if((inst = this.source.getNext()) == null)
+				return null;
+
+			if(keep(inst.getClassLabel()))
+			{
+				if(inst.getClassLabel() == this.majorityLabel)
+					inst.setWeight(inst.weight() * this.compensation);
+
+				return inst;
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getNext(cs.man.ac.uk.data.I_Instance)
+	 */
+	@Override
+	public boolean getNext(I_Instance into)
+	{
+		// Rows already read in a batch are returned before any more are read.
+		if(this.sourceBatch != null && this.sourceRow < this.sourceBatch.size())
+		{
+			I_Instance inst = getNext();
+
+			if(inst != null)
+			{
+				DenseInstance.copy(into, ((DenseInstance)inst).getValues(), inst.getFeatureCount(), inst.getClassLabel());
+				into.setWeight(inst.weight());
+				return true;
+			}
+
+			return false;
+		}
+
+		while(this.source.getNext(into))
+		{
+			if(keep(into.getClassLabel()))
+			{
+				if(into.getClassLabel() == this.majorityLabel)
+					into.setWeight(into.weight() * this.compensation);
+
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Reads the next kept instances in to a block. Rows are read from the wrapped
+	 * file in batches and filtered straight in to the block, so no instance is
+	 * created for any row. The weight of each row is held by the block, see
+	 * {@link InstanceBlock#getWeight(int)}.
+	 * @param n the maximum number of instances to read.
+	 * @return a block holding the next instances kept, else null if there are no more.
+	 */
+	@Override
+	public InstanceBlock getNextBatch(int n)
+	{
+		if(n <= 0)
+			return null;
+
+		// The first source batch is read before the block is sized, as the number
+		// of features is not known until then when reading from a stream.
+		if(!nextSourceBatch())
+			return null;
+
+		this.batch = InstanceBlock.reuse(this.batch, n, this.sourceBatch.getFeatureCount());
+
+		while(!this.batch.isFull())
+		{
+			if(this.sourceRow == this.sourceBatch.size() && !nextSourceBatch())
+				break;
+
+			for(; this.sourceRow < this.sourceBatch.size() && !this.batch.isFull(); this.sourceRow++)
+			{
+				int label = this.sourceBatch.getClassLabel(this.sourceRow);
+
+				if(!keep(label))
+					continue;
+
+				double weight = this.sourceBatch.getWeight(this.sourceRow);
+
+				if(label == this.majorityLabel)
+					weight *= this.compensation;
+
+				if(!this.batch.add(this.sourceBatch, this.sourceRow, weight))
+				{
+					// The block is not full, so the rows have the wrong number of features.
+					this.processError("Error undersampling file, a batch has " + this.sourceBatch.getFeatureCount() + " features, expected " + this.batch.getFeatureCount() + ", the batch is skipped.");
+					this.sourceRow = this.sourceBatch.size();
+					break;
+				}
+			}
+		}
+
+		return this.batch.size() == 0 ? null : this.batch;
+	}
+
+	/**
+	 * Reads the next batch from the wrapped file, unless the current batch still holds rows not yet filtered.
+	 * @return true if there are rows to filter, else false if the wrapped file has no more.
+	 */
+	private boolean nextSourceBatch()
+	{
+		if(this.sourceBatch != null && this.sourceRow < this.sourceBatch.size())
+			return true;
+
+		this.sourceBatch = this.source.getNextBatch(SOURCE_BATCH_SIZE);
+		this.sourceRow = 0;
+		return this.sourceBatch != null;
+	}
+
+	/**
+	 * @return the class distribution of the wrapped file, including the instances dropped.
+	 */
+	@Override
+	public int[] getClassDistribution() { return this.source.getClassDistribution(); }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.data.I_File#getFeatureCount()
+	 */
+	@Override
+	public int getFeatureCount() { return this.source.getFeatureCount(); }
+
+	/**
+	 * Decides whether an instance is kept, counting the majority class instances
+	 * kept and dropped.
+	 * @param label the class label of the instance.
+	 * @return true if the instance is kept, else false.
+	 */
+	private boolean keep(int label)
+	{
+		if(label != this.majorityLabel)
+			return true;
+
+		if(this.keepRate == 1.0 || this.random.nextDouble() < this.keepRate)
+		{
+			this.kept++;
+			return true;
+		}
+
+		this.dropped++;
+		return false;
+	}
+
+	/**
+	 * @return the probability that a majority class instance is kept.
+	 */
+	public double getKeepRate() { return this.keepRate; }
+
+	/**
+	 * @return the number of majority class instances kept so far.
+	 */
+	public long countKept() { return this.kept; }
+
+	/**
+	 * @return the number of majority class instances dropped so far.
+	 */
+	public long countDropped() { return this.dropped; }
+
+	/**
+	 * Over-ridden toString method.
+	 * @return a string describing this class.
+	 */
+	public String toString()
+	{
+		return "\nKeep rate:\t" + this.keepRate + "\nMajority class:\t" + this.majorityLabel +
+				"\nKept:\t" + this.kept + "\nDropped:\t" + this.dropped + "\n";
+	}
+}
@@ -67,18 +67,14 @@ public class BaseObject
 	public void setVerbose(boolean v) { this.verbose = v; }
 
 	/**
-	 * Used to process errors.
+	 * Used to process errors. Errors are counted and reported asynchronously by the
+	 * {@link ErrorChannel}, so that reporting them does not slow down the caller.
 	 * @param e the exception raised.
 	 * @param msg the message that describes how/why the error occurred.
 	 */
 	protected void processError(Exception e,String msg)
 	{
-		String report = "Class:\t" + this.getClass().getSimpleName() + "\tError: " + msg;
-
-		System.out.println(report);
-
-		if(verbose)
-			e.printStackTrace();
+		ErrorChannel.getDefault().report(this.getClass().getSimpleName(), msg, verbose ? e : null);
 	}
 
 	/**
@@ -87,8 +83,29 @@ public class BaseObject
 	 */
 	protected void processError(String msg)
 	{
-		String report = "Class:\t" + this.getClass().getSimpleName() + "\tError: " + msg;
-		System.out.println(report);
+		ErrorChannel.getDefault().report(this.getClass().getSimpleName(), msg, null);
+	}
+
+	/**
+	 * Used to process errors caused by a line of data that is rejected. As well as
+	 * being reported, the line is written to the quarantine file if there is one.
+	 * @param msg the message that describes how/why the line was rejected.
+	 * @param line the line rejected.
+	 */
+	protected void processRejectedLine(String msg,String line)
+	{
+		ErrorChannel.getDefault().reject(this.getClass().getSimpleName(), msg, null, line);
+	}
+
+	/**
+	 * Used to process errors caused by a line of data that is rejected.
+	 * @param e the exception raised.
+	 * @param msg the message that describes how/why the line was rejected.
+	 * @param line the line rejected.
+	 */
+	protected void processRejectedLine(Exception e,String msg,String line)
+	{
+		ErrorChannel.getDefault().reject(this.getClass().getSimpleName(), msg, verbose ? e : null, line);
 	}
 
 	/**
@@ -0,0 +1,569 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	ErrorChannel.java
+ * Package: cs.man.ac.uk.obj
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.obj;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports the errors raised by {@link BaseObject}s without slowing down the code
+ * that raises them. Reports are queued and printed by a background thread, so the
+ * caller never waits for the console. The queue is bounded, and if it fills
+ * reports are dropped rather than blocking the caller.
+ *
+ * Every error is counted by its type, i.e. the class that raised it and its
+ * message with any numbers removed, so that errors raised for different lines
+ * of the same file have the same type. At most {@link #DEFAULT_RATE_LIMIT}
+ * errors of each type are reported per second, the rest are only counted, and
+ * the number suppressed is reported once the second has passed.
+ *
+ * Rejected lines of data can also be written to a quarantine file, so that they
+ * can be inspected or repaired later. Unlike reports, these are never dropped.
+ *
+ * Each channel prints what it has queued, and closes its quarantine file, when the
+ * JVM shuts down. Channels other than the default should be closed once they are
+ * no longer used, which does the same straight away and releases the thread used.
+ */
+public class ErrorChannel
+{
+	/**
+	 *	Variables
+	 */
+
+	/**
+	 * The default number of reports queued before reports are dropped.
+	 */
+	public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+	/**
+	 * The default number of errors of each type reported per second.
+	 */
+	public static final int DEFAULT_RATE_LIMIT = 10;
+
+	/**
+	 * The channel used by every {@link BaseObject}.
+	 */
+	private static final ErrorChannel DEFAULT = new ErrorChannel(DEFAULT_QUEUE_SIZE, DEFAULT_RATE_LIMIT);
+
+	/**
+	 * The reports waiting to be printed.
+	 */
+	private final BlockingQueue<Report> queue;
+
+	/**
+	 * The number of reports queued, or being printed.
+	 */
+	private final AtomicLong pending = new AtomicLong();
+
+	/**
+	 * The number of reports dropped because the queue was full.
+	 */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/**
+	 * The count of each type of error.
+	 */
+	private final ConcurrentHashMap<String,ErrorCount> counts = new ConcurrentHashMap<String,ErrorCount>();
+
+	/**
+	 * The number of errors of each type reported per second.
+	 */
+	private volatile int rateLimit;
+
+	/**
+	 * Flag that indicates reports are printed by the background thread, else
+	 * they are printed immediately by the caller.
+	 */
+	private volatile boolean asynchronous = true;
+
+	/**
+	 * The thread printing reports, started when the first report is queued.
+	 */
+	private Thread printer = null;
+
+	/**
+	 * Run when the JVM shuts down, unless the channel is closed first.
+	 */
+	private final Thread shutdownHook;
+
+	/**
+	 * The file rejected lines are written to, else null if they are not kept.
+	 */
+	private BufferedWriter quarantine = null;
+
+	/**
+	 * The number of lines written to the quarantine file.
+	 */
+	private long quarantined = 0;
+
+	/**
+	 *	Constructor
+	 */
+
+	/**
+	 * Creates a new error channel. Queued reports are printed, and the quarantine
+	 * file closed, when the JVM shuts down or the channel is closed.
+	 * @param queueSize the number of reports queued before reports are dropped.
+	 * @param rateLimit the number of errors of each type reported per second.
+	 */
+	public ErrorChannel(int queueSize, int rateLimit)
+	{
+		this.queue = new ArrayBlockingQueue<Report>(Math.max(queueSize, 1));
+		this.rateLimit = rateLimit;
+
+		this.shutdownHook = new Thread("ErrorChannel shutdown")
+		{
+			@Override
+			public void run() { finish(); }
+		};
+
+		Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+	}
+
+	/**
+	 *	Methods
+	 */
+
+	/**
+	 * @return the channel used by every {@link BaseObject}.
+	 */
+	public static ErrorChannel getDefault() { return DEFAULT; }
+
+	/**
+	 * Counts an error, and reports it unless the rate limit for its type is reached.
+	 * @param source the name of the class that raised the error.
+	 * @param msg the message that describes how/why the error occurred.
+	 * @param e the exception whose stack trace is printed, else null.
+	 */
+	public void report(String source, String msg, Throwable e)
+	{
+		if(!this.admit(source, msg))
+			return;
+
+		this.print(new Report("Class:\t" + source + "\tError: " + msg, e));
+	}
+
+	/**
+	 * Counts an error caused by a line of data that was rejected, reports it unless the
+	 * rate limit for its type is reached, and writes the line to the quarantine file.
+	 * @param source the name of the class that raised the error.
+	 * @param msg the message that describes how/why the line was rejected.
+	 * @param e the exception whose stack trace is printed, else null.
+	 * @param line the line rejected.
+	 */
+	public void reject(String source, String msg, Throwable e, String line)
+	{
+		this.report(source, msg, e);
+
+		synchronized(this)
+		{
+			if(this.quarantine == null)
+				return;
+
+			try
+			{
+				this.quarantine.write(line);
+				this.quarantine.newLine();
+				this.quarantined++;
+			}
+			catch (IOException ioe)
+			{
+				this.closeQuarantine();
+				this.report(ErrorChannel.class.getSimpleName(), "IOException writing to the quarantine file, rejected lines are no longer kept.", ioe);
+			}
+		}
+	}
+
+	/**
+	 * Writes rejected lines to a file, appending them to any lines already in it.
+	 * @param path the path to the quarantine file, else null to stop keeping rejected lines.
+	 * @throws IOException if the file cannot be opened.
+	 */
+	public synchronized void setQuarantine(String path) throws IOException
+	{
+		this.closeQuarantine();
+
+		if(path != null)
+			this.quarantine = new BufferedWriter(new FileWriter(path, true));
+	}
+
+	/**
+	 * Closes the quarantine file, if there is one. Rejected lines are no longer kept.
+	 */
+	public synchronized void closeQuarantine()
+	{
+		if(this.quarantine == null)
+			return;
+
+		try { this.quarantine.close(); }
+		catch (IOException e) { e.printStackTrace(); }
+
+		this.quarantine = null;
+	}
+
+	/**
+	 * @return the number of lines written to the quarantine file.
+	 */
+	public synchronized long countQuarantined() { return this.quarantined; }
+
+	/**
+	 * Sets the number of errors of each type reported per second.
+	 * @param limit the number of errors reported, errors are only counted if this is zero.
+	 */
+	public void setRateLimit(int limit) { this.rateLimit = limit; }
+
+	/**
+	 * Sets whether reports are printed by a background thread, or immediately by the
+	 * caller. Reports are printed in the order they are raised either way, but printing
+	 * them immediately keeps them in order with anything else printed by the caller.
+	 * @param async true to print reports on a background thread, else false.
+	 */
+	public void setAsynchronous(boolean async)
+	{
+		if(!async)
+			this.flush();
+
+		this.asynchronous = async;
+	}
+
+	/**
+	 * @param source the name of the class that raised the errors.
+	 * @param msg the message of an error of the type.
+	 * @return the number of errors of the same type counted.
+	 */
+	public long count(String source, String msg)
+	{
+		ErrorCount count = this.counts.get(type(source, msg));
+		return count == null ? 0 : count.total.get();
+	}
+
+	/**
+	 * @return the number of errors of each type counted, keyed by type.
+	 */
+	public Map<String,Long> getCounts()
+	{
+		Map<String,Long> snapshot = new TreeMap<String,Long>();
+
+		for(Map.Entry<String,ErrorCount> entry : this.counts.entrySet())
+			snapshot.put(entry.getKey(), entry.getValue().total.get());
+
+		return snapshot;
+	}
+
+	/**
+	 * @return the number of reports dropped because the queue was full.
+	 */
+	public long countDropped() { return this.dropped.get(); }
+
+	/**
+	 * Waits until every report queued has been printed.
+	 */
+	public void flush()
+	{
+		try
+		{
+			while(this.pending.get() > 0)
+				Thread.sleep(1);
+		}
+		catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+	}
+
+	/**
+	 * Prints every report queued, and the number of errors not yet reported, then
+	 * closes the quarantine file and stops the thread printing reports. Any errors
+	 * reported afterwards are printed immediately by the caller. Closing the channel
+	 * more than once has no effect.
+	 */
+	public void close()
+	{
+		try
+		{
+			if(!Runtime.getRuntime().removeShutdownHook(this.shutdownHook))
+				return;
+		}
+		catch (IllegalStateException e) { return; } // The JVM is shutting down, so the hook does the same.
+
+		this.asynchronous = false;
+		this.finish();
+
+		Thread stopped;
+		synchronized(this)
+		{
+			stopped = this.printer;
+			this.printer = null;
+		}
+
+		if(stopped != null)
+		{
+			stopped.interrupt();
+
+			try { stopped.join(); }
+			catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+		}
+
+		// Print any report queued while the printer was stopping.
+		Report report;
+		while((report = this.queue.poll()) != null)
+		{
+			try { report.print(); }
+			finally { this.pending.decrementAndGet(); }
+		}
+	}
+
+	/**
+	 * Prints every report queued, and the number of errors of each type not yet
+	 * reported, then closes the quarantine file.
+	 */
+	private void finish()
+	{
+		this.flush();
+
+		for(Map.Entry<String,ErrorCount> entry : this.counts.entrySet())
+		{
+			long suppressed = entry.getValue().suppressed.getAndSet(0);
+
+			if(suppressed > 0)
+				suppressedReport(entry.getKey(), suppressed).print();
+		}
+
+		this.closeQuarantine();
+	}
+
+	/**
+	 * Counts an error, and checks the rate limit for its type.
+	 * @param source the name of the class that raised the error.
+	 * @param msg the message that describes how/why the error occurred.
+	 * @return true if the error should be reported, else false.
+	 */
+	private boolean admit(String source, String msg)
+	{
+		String type = type(source, msg);
+		ErrorCount count = this.counts.get(type);
+
+		if(count == null)
+		{
+			ErrorCount added = new ErrorCount();
+			count = this.counts.putIfAbsent(type, added);
+
+			if(count == null)
+				count = added;
+		}
+
+		count.total.incrementAndGet();
+
+		long second = System.nanoTime() / 1000000000L;
+
+		if(count.second != second)
+		{
+			long suppressed;
+
+			synchronized(count)
+			{
+				if(count.second == second)
+					suppressed = 0;
+				else
+				{
+					suppressed = count.suppressed.getAndSet(0);
+					count.reported.set(0);
+					count.second = second;
+				}
+			}
+
+			if(suppressed > 0)
+				this.print(suppressedReport(type, suppressed));
+		}
+
+		if(count.reported.incrementAndGet() > this.rateLimit)
+		{
+			count.suppressed.incrementAndGet();
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * @param type the type of the errors.
+	 * @param suppressed the number of errors of the type that were not reported.
+	 * @return a report of the number of errors not reported.
+	 */
+	private static Report suppressedReport(String type, long suppressed)
+	{
+		return new Report("Class:\t" + ErrorChannel.class.getSimpleName() + "\tError: " + suppressed + " more errors like \"" + type + "\" were not reported.", null);
+	}
+
+	/**
+	 * @param source the name of the class that raised the error.
+	 * @param msg the message that describes how/why the error occurred.
+	 * @return the type of the error, i.e. the message with runs of digits replaced
+	 * by '#', prefixed by the class that raised it.
+	 */
+	private static String type(String source, String msg)
+	{
+		StringBuilder type = new StringBuilder(source.length() + msg.length() + 2).append(source).append(": ");
+
+		for(int i = 0; i < msg.length(); i++)
+		{
+			char c = msg.charAt(i);
+
+			if(c < '0' || c > '9')
+				type.append(c);
+			else if(i == 0 || msg.charAt(i-1) < '0' || msg.charAt(i-1) > '9')
+				type.append('#');
+		}
+
+		return type.toString();
+	}
+
+	/**
+	 * Prints a report, or queues it to be printed, dropping it if the queue is full.
+	 * @param report the report.
+	 */
+	private void print(Report report)
+	{
+		if(!this.asynchronous)
+		{
+			report.print();
+			return;
+		}
+
+		this.pending.incrementAndGet();
+
+		if(!this.queue.offer(report))
+		{
+			this.pending.decrementAndGet();
+			this.dropped.incrementAndGet();
+			return;
+		}
+
+		this.startPrinter();
+	}
+
+	/**
+	 * Starts the thread printing reports, if it has not been started.
+	 */
+	private synchronized void startPrinter()
+	{
+		if(this.printer != null)
+			return;
+
+		this.printer = new Thread(new Printer(), "ErrorChannel");
+		this.printer.setDaemon(true);
+		this.printer.start();
+	}
+
+	/**
+	 * A report waiting to be printed.
+	 */
+	private static class Report
+	{
+		/**
+		 * The text of the report.
+		 */
+		final String text;
+
+		/**
+		 * The exception whose stack trace is printed, else null.
+		 */
+		final Throwable exception;
+
+		/**
+		 * @param text the text of the report.
+		 * @param exception the exception whose stack trace is printed, else null.
+		 */
+		Report(String text, Throwable exception)
+		{
+			this.text = text;
+			this.exception = exception;
+		}
+
+		/**
+		 * Prints the report.
+		 */
+		void print()
+		{
+			System.out.println(this.text);
+
+			if(this.exception != null)
+				this.exception.printStackTrace();
+		}
+	}
+
+	/**
+	 * The number of errors of a single type.
+	 */
+	private static class ErrorCount
+	{
+		/**
+		 * The number of errors counted.
+		 */
+		final AtomicLong total = new AtomicLong();
+
+		/**
+		 * The second the errors are currently being reported in.
+		 */
+		volatile long second = Long.MIN_VALUE;
+
+		/**
+		 * The number of errors reported in the current second.
+		 */
+		final AtomicInteger reported = new AtomicInteger();
+
+		/**
+		 * The number of errors not reported since they were last summarised.
+		 */
+		final AtomicLong suppressed = new AtomicLong();
+	}
+
+	/**
+	 * Prints the reports queued, waiting for more when the queue is empty.
+	 */
+	private class Printer implements Runnable
+	{
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run()
+		{
+			try
+			{
+				while(true)
+				{
+					Report report = queue.take();
+
+					try { report.print(); }
+					finally { pending.decrementAndGet(); }
+				}
+			}
+			catch (InterruptedException e) { } // The channel was closed.
+		}
+	}
+}
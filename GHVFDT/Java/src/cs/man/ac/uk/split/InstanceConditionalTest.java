@@ -25,6 +25,7 @@
  */
 package cs.man.ac.uk.split;
 
+import cs.man.ac.uk.data.DenseInstance;
 import cs.man.ac.uk.data.I_Instance;
 
 /**
@@ -43,6 +44,20 @@ public abstract class InstanceConditionalTest
      */
     public abstract int branchForInstance(I_Instance inst);
 
+    /**
+     *  Returns the number of the branch for a row of feature values, -1 if unknown.
+     *  By default the values are wrapped in an instance, tests should override this
+     *  to read the values directly.
+     *
+     * @param values the feature values of the row.
+     * @param n the number of features in the row.
+     * @return the number of the branch for the row, -1 if unknown.
+     */
+    public int branchForValues(double[] values, int n)
+    {
+        return branchForInstance(new DenseInstance(values, n, -1));
+    }
+
     /**
      * Gets whether the number of the branch for an instance is known.
      *
@@ -72,13 +72,33 @@ public class NumericAttributeBinaryTest extends InstanceConditionalBinaryTest
 	//*****************************************
 	//*****************************************
 
+	/**
+	 * @return the index of the attribute tested, as chosen by the attribute observers.
+	 */
+	public int getAttIndex() { return this.attIndex; }
+
+	/**
+	 * @return the index of the value read from an instance when testing the attribute.
+	 */
+	public int getInstanceAttIndex() { return this.attIndex < -1 ? this.attIndex : this.attIndex + 1; }
+
+	/**
+	 * @return the value the attribute is compared to.
+	 */
+	public double getAttValue() { return this.attValue; }
+
+	/**
+	 * @return true if values equal to the split value take the first branch, else false.
+	 */
+	public boolean equalsPassesTest() { return this.passesTest; }
+
 	/* (non-Javadoc)
 	 * @see cs.man.ac.uk.split.InstanceConditionalTest#branchForInstance(cs.man.ac.uk.data.I_Instance)
 	 */
 	@Override
 	public int branchForInstance(I_Instance inst) 
 	{
-		int instAttIndex = this.attIndex < -1 ? this.attIndex : this.attIndex + 1;
+		int instAttIndex = getInstanceAttIndex();
 		
 		if (inst.isMissing(instAttIndex))
 			return -1;
@@ -90,4 +110,23 @@ public class NumericAttributeBinaryTest extends InstanceConditionalBinaryTest
 
 		return v < this.attValue ? 0 : 1;
 	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.split.InstanceConditionalTest#branchForValues(double[], int)
+	 */
+	@Override
+	public int branchForValues(double[] values, int n) 
+	{
+		int instAttIndex = getInstanceAttIndex();
+		
+		double v = values[instAttIndex];
+		
+		if (Double.isNaN(v))
+			return -1;
+		
+		if (v == this.attValue) 
+			return this.passesTest ? 0 : 1;
+
+		return v < this.attValue ? 0 : 1;
+	}
 }
\ No newline at end of file
@@ -25,9 +25,16 @@
  */
 package cs.man.ac.uk.test;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
 import cs.man.ac.uk.classifier.GHVFDT;
 import cs.man.ac.uk.data.ARFFFile;
+import cs.man.ac.uk.data.ColumnarDataset;
+import cs.man.ac.uk.data.DenseInstance;
 import cs.man.ac.uk.data.I_Instance;
+import cs.man.ac.uk.data.InstanceBlock;
+import cs.man.ac.uk.tree.CompiledTree;
 
 /**
  * Shows how a GHVFDT can be trained and tested.
@@ -113,13 +120,10 @@ public class ClassifierTest
 		// For each instance in the training file.
 		while((inst = trainingSet.getNext()) != null)
 		{
-			// Check if the tree correctly classifies it.
-			if(tree.correctlyClassifies(inst))
+			// Check if the tree correctly classifies it, then train on it.
+			if(tree.testThenTrain(inst) == (int) inst.classValue())
 				numberSamplesCorrect++;
 
-			// Train on the instance.
-			tree.trainOnInstance(inst);
-
 			// Increment count of examples trained on.
 			numberSamples++;
 		}
@@ -139,6 +143,16 @@ public class ClassifierTest
 		print("Tree trained on " + numberSamples + " instances & has " + accuracy + "% accuracy.");
 		print("Training tree completed in "+nanoseconds+" (ns) or "+seconds+" (s)");
 
+		/*
+		 * Check the compiled form of the tree predicts exactly as the tree does...
+		 */
+
+		print("Comparing the compiled tree with the tree");
+		checkCompiled(root + directory + "Train" + ext);
+
+		print("Comparing a tree trained in batches with one trained an instance at a time");
+		checkTrainOnFile(root + directory + "Train" + ext);
+
 		/*
 		 * Now test the classifier...
 		 */
@@ -156,14 +170,11 @@ public class ClassifierTest
 		// For each test example.
 		while((inst = testSet.getNext()) != null)
 		{
-			// Check if the tree correctly classifies it.
-			if(tree.correctlyClassifies(inst))
+			// Check if the tree correctly classifies it, then train on
+			// it, which will only happen if the label is available.
+			if(tree.testThenTrain(inst) == (int) inst.classValue())
 				numberSamplesCorrect++;
 
-			// Train on the instance, which will only happen if
-			// the label is available.
-			tree.trainOnInstance(inst);
-
 			// Increment count of examples tested on.
 			numberSamples++;
 		}
@@ -190,6 +201,150 @@ public class ClassifierTest
 		print("Note original testing  accuracy  = 98.69243888573052 %");
 	}
 
+	//*****************************************
+	//*****************************************
+	//              Test Methods
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Trains a tree on a file, then checks that the compiled form of the tree gives
+	 * the same votes and class as the tree itself, for every instance in the file,
+	 * whether classifying the instance or the array of values backing it. Then checks
+	 * that the batch methods of the tree, over the file loaded as a data set and as a
+	 * single block, give the class and score of each instance the tree gives it, both
+	 * on the default pool and on a pool of its own.
+	 * @param path the path to the ARFF file to train on and classify.
+	 */
+	private static void checkCompiled(String path)
+	{
+		// Allow the tree to grow, splitting more readily than the defaults, so it has some depth.
+		GHVFDT tree = new GHVFDT();
+		tree.resetLearning();
+		tree.setGracePeriod(100);
+		tree.setTieThreshold(0.2);
+
+		ARFFFile data = new ARFFFile(path, inc, verbose);
+		I_Instance inst;
+
+		while((inst = data.getNext()) != null)
+			tree.trainOnInstance(inst);
+
+		CompiledTree compiled = tree.compile();
+		data = new ARFFFile(path, inc, verbose);
+
+		// Votes written by predictInto(), larger than the number of classes.
+		double[] live = new double[4];
+		double[] fast = new double[4];
+
+		int disagreements = 0;
+		int instances = 0;
+
+		while((inst = data.getNext()) != null)
+		{
+			if(compiled.classify(inst) != tree.classify(inst) || !Arrays.equals(compiled.predict(inst), tree.predict(inst)))
+				disagreements++;
+			else if(inst instanceof DenseInstance)
+			{
+				double[] x = ((DenseInstance) inst).getValues();
+
+				if(compiled.classify(x) != tree.classify(x) || compiled.predictInto(x, fast) != tree.predictInto(x, live)
+						|| !Arrays.equals(fast, live))
+					disagreements++;
+			}
+
+			instances++;
+		}
+
+		print("Compiled tree has " + compiled.numNodes() + " nodes, and disagrees with the tree on " + disagreements + " of " + instances + " instances.");
+
+		ColumnarDataset dataset = ColumnarDataset.load(new ARFFFile(path, inc, verbose));
+		InstanceBlock block = new ARFFFile(path, inc, verbose).getNextBatch(instances);
+		ForkJoinPool own = new ForkJoinPool(3);
+		int batchDisagreements = 0;
+
+		try
+		{
+			for(ForkJoinPool pool : new ForkJoinPool[] { null, own })
+			{
+				int[][] labels = { tree.classifyBatch(dataset, pool), tree.classifyBatch(block, pool) };
+				double[][] scores = { tree.scoreBatch(dataset, 1, pool), tree.scoreBatch(block, 1, pool) };
+
+				data = new ARFFFile(path, inc, verbose);
+				int row = 0;
+
+				while((inst = data.getNext()) != null)
+				{
+					// The score is the fraction of the votes for class 1.
+					double[] votes = tree.predict(inst);
+					double sum = 0;
+
+					for(double v : votes)
+						sum += v;
+
+					double score = sum > 0 && votes.length > 1 ? votes[1] / sum : 0;
+
+					for(int b = 0; b < 2; b++)
+						if(labels[b][row] != tree.classify(inst) || Double.compare(scores[b][row], score) != 0)
+							batchDisagreements++;
+
+					row++;
+				}
+
+				if(row != dataset.size() || row != block.size())
+					batchDisagreements++;
+			}
+		}
+		finally { own.shutdown(); }
+
+		print("Batch classification disagrees with the tree on " + batchDisagreements + " of " + (4 * instances) + " rows.");
+
+		// A tree that never split would agree trivially.
+		print(compiled.numNodes() > 1 && instances > 0 && disagreements == 0 && batchDisagreements == 0 ? "PASSED" : "FAILED");
+	}
+
+	/**
+	 * Trains one tree on a file in batches, and another on the same file an instance
+	 * at a time, then checks the compiled trees are the same, with the same votes at
+	 * every node, and that every instance in the file reaches the same node of each.
+	 * @param path the path to the ARFF file to train on.
+	 */
+	private static void checkTrainOnFile(String path)
+	{
+		GHVFDT batched = new GHVFDT();
+		GHVFDT single = new GHVFDT();
+
+		for(GHVFDT tree : new GHVFDT[] { batched, single })
+		{
+			tree.resetLearning();
+			tree.setGracePeriod(100);
+			tree.setTieThreshold(0.2);
+		}
+
+		int rows = batched.trainOnFile(new ARFFFile(path, inc, verbose));
+
+		ARFFFile data = new ARFFFile(path, inc, verbose);
+		I_Instance inst;
+
+		while((inst = data.getNext()) != null)
+			single.trainOnInstance(inst);
+
+		CompiledTree a = batched.compile();
+		CompiledTree b = single.compile();
+		boolean same = a.toString().equals(b.toString()) && a.numNodes() == b.numNodes();
+
+		for(int node = 0; same && node < a.numNodes(); node++)
+			same = a.isLeaf(node) == b.isLeaf(node) && Arrays.equals(a.votesOf(node), b.votesOf(node));
+
+		data = new ARFFFile(path, inc, verbose);
+
+		while(same && (inst = data.getNext()) != null)
+			same = a.nodeFor(inst) == b.nodeFor(inst);
+
+		print("Trained on " + rows + " rows in batches, giving " + a.numNodes() + " nodes, one at a time giving " + b.numNodes() + " nodes.");
+		print(same && rows == data.countExamples() && a.numNodes() > 1 ? "PASSED" : "FAILED");
+	}
+
 	//*****************************************
 	//*****************************************
 	//            Utility Methods
@@ -26,8 +26,36 @@
  */
 package cs.man.ac.uk.test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import cs.man.ac.uk.data.ARFFFile;
+import cs.man.ac.uk.data.BinaryFile;
+import cs.man.ac.uk.data.BinaryFileConverter;
 import cs.man.ac.uk.data.CSVFile;
+import cs.man.ac.uk.data.DataFile;
+import cs.man.ac.uk.data.DataFileIndex;
+import cs.man.ac.uk.data.DenseInstance;
+import cs.man.ac.uk.data.DirectoryStreamFile;
+import cs.man.ac.uk.data.I_File;
+import cs.man.ac.uk.data.I_Instance;
+import cs.man.ac.uk.data.InstanceBlock;
+import cs.man.ac.uk.data.MappedDataFile;
+import cs.man.ac.uk.data.ParallelDataFile;
+import cs.man.ac.uk.data.PrefetchingFile;
+import cs.man.ac.uk.data.StratifiedReservoirSampler;
+import cs.man.ac.uk.data.UndersamplingFile;
+import cs.man.ac.uk.obj.ErrorChannel;
 
 /**
  * Runs basic tests on the file reading capabilities of this code base.
@@ -59,6 +87,13 @@ public class DataFileTests
 	 */
 	private static boolean verbose= true;
 
+	/**
+	 * The test files with both a CSV and an ARFF version, relative to the root and without their extension.
+	 */
+	private static final String[] TEST_FILES = { "Test_1/TestFile_1a", "Test_1/TestFile_1b", "Test_1/TestFile_1c",
+		"Test_2/TestFile_2", "Test_3/TestFile_3a", "Test_3/TestFile_3b", "Test_3/TestFile_3c", "Test_4/TestFile_4a",
+		"Test_4/TestFile_4b", "Test_4/TestFile_4c", "Test_5/TestFile_5", "Test_6/TestFile_6" };
+
 	//*****************************************
 	//*****************************************
 	//    Main method that runs the tests
@@ -84,11 +119,57 @@ public class DataFileTests
 		 *  the problem can be corrected.
 		 */
 
+		// Print errors as they are raised, so they appear with the test that raised them.
+		ErrorChannel.getDefault().setAsynchronous(false);
+
 		print("\n\n\t\tCSV TESTS\n\n");
 		runCSVTests();
 
 		print("\n\n\t\tARFF TESTS\n\n");
 		runARFFTests();
+
+		print("\n\n\t\tSTREAMING TESTS\n\n");
+		runStreamingTests(".csv");
+		runStreamingTests(".arff");
+
+		print("\n\n\t\tSPARSE ARFF TESTS\n\n");
+		runSparseTests();
+
+		print("\n\n\t\tINDEX TESTS\n\n");
+		runIndexTests();
+
+		print("\n\n\t\tPROJECTION TESTS\n\n");
+		runProjectionTests(".csv");
+		runProjectionTests(".arff");
+
+		print("\n\n\t\tUNDERSAMPLING TESTS\n\n");
+		runUndersamplingTests();
+
+		print("\n\n\t\tSAMPLING TESTS\n\n");
+		runSamplingTests();
+
+		print("\n\n\t\tPARALLEL TESTS\n\n");
+		runParallelTests(".csv");
+		runParallelTests(".arff");
+
+		print("\n\n\t\tMAPPED TESTS\n\n");
+		runMappedTests(".csv");
+		runMappedTests(".arff");
+
+		print("\n\n\t\tBINARY TESTS\n\n");
+		runBinaryTests();
+
+		print("\n\n\t\tQUARANTINE TESTS\n\n");
+		runQuarantineTests();
+
+		print("\n\n\t\tFOLLOW TESTS\n\n");
+		runFollowTests();
+
+		print("\n\n\t\tPREFETCHING TESTS\n\n");
+		runPrefetchingTests();
+
+		print("\n\n\t\tDIRECTORY TESTS\n\n");
+		runDirectoryTests();
 	}
 
 	//*****************************************
@@ -359,6 +440,840 @@ public class DataFileTests
 		print(f.toString());
 	}
 
+	/**
+	 * Runs the file tests again with the files streamed, so that only the first rows
+	 * are checked when each file is opened. Files with an error in their first rows
+	 * should be invalid, those with an error later on should have the row rejected as
+	 * it is read, so that only the valid rows are read.
+	 * @param ext the extension of the files to test, either ".csv" or ".arff".
+	 */
+	private static void runStreamingTests(String ext)
+	{
+		print("\nTest 1a missing attribute at start of file (streamed " + ext + ").\n");
+		print("\nExpected outcome: Error, invalid when opened\n");
+		stream("Test_1/", "TestFile_1a", ext, false, 0);
+
+		print("\nTest 1b missing attribute in middle of file (streamed " + ext + ").\n");
+		print("\nExpected outcome: Error, row 5 rejected\n");
+		stream("Test_1/", "TestFile_1b", ext, true, 1);
+
+		print("\nTest 1c missing attribute at end of file (streamed " + ext + ").\n");
+		print("\nExpected outcome: Error, last row rejected\n");
+		stream("Test_1/", "TestFile_1c", ext, true, 1);
+
+		print("\nTest 2 non-numerical attribute (streamed " + ext + ").\n");
+		print("\nExpected outcome: Error, row 6 rejected\n");
+		stream("Test_2/", "TestFile_2", ext, true, 1);
+
+		print("\nTest 3a comment in inappropriate place in file (streamed " + ext + ").\n");
+		print("\nExpected outcome: Error, row 8 rejected\n");
+		stream("Test_3/", "TestFile_3a", ext, true, 1);
+
+		print("\nTest 4a no class attribute first instance (streamed " + ext + ").\n");
+		print("\nExpected outcome: Error, invalid when opened\n");
+		stream("Test_4/", "TestFile_4a", ext, false, 0);
+
+		print("\nTest 4b no class attribute second instance (streamed " + ext + ").\n");
+		print("\nExpected outcome: Error, invalid when opened\n");
+		stream("Test_4/", "TestFile_4b", ext, false, 0);
+
+		print("\nTest 4c no class attribute last instance (streamed " + ext + ").\n");
+		print("\nExpected outcome: Error, last row rejected\n");
+		stream("Test_4/", "TestFile_4c", ext, true, 1);
+
+		print("\nTest 5 invalid class attribute (streamed " + ext + ").\n");
+		print("\nExpected outcome: Error, row 7 rejected\n");
+		stream("Test_5/", "TestFile_5", ext, true, 1);
+
+		print("\nTest 6 VALID file (streamed " + ext + ").\n");
+		print("\nExpected outcome: Correctly loaded instances\n");
+		stream("Test_6/", "TestFile_6", ext, true, 0);
+	}
+
+	/**
+	 * Checks that sparse ARFF rows are read as the same instances as their dense form,
+	 * including rows with no entries, rows that omit the class, and trailing comments.
+	 */
+	private static void runSparseTests()
+	{
+		String header = "@relation sparse\n@attribute a numeric\n@attribute b numeric\n" +
+				"@attribute c numeric\n@attribute d numeric\n@attribute class {0,1}\n@data\n";
+
+		String dense = header + "0,1.5,0,-2,1\n0,0,0,0,0\n3.25,0,0,0,1\n0,0,7e-3,0,0\n1,2,3,4,1\n0,2,0,0,1\n";
+		String sparse = header + "{1 1.5,3 -2,4 1}\n{}\n{0 3.25,4 1}\n{2 7e-3}\n{0 1,1 2,2 3,3 4,4 1}\n{ 1 2, 4 1 } %comment\n";
+
+		print("\nTest sparse rows read as their dense form.\n");
+		print("\nExpected outcome: Correctly loaded instances\n");
+
+		try
+		{
+			File densePath = write("dense", ".arff", dense);
+			File sparsePath = write("sparse", ".arff", sparse);
+
+			ARFFFile d = new ARFFFile(densePath.getPath(), inc, verbose);
+			ARFFFile s = new ARFFFile(sparsePath.getPath(), inc, verbose);
+			print(s.toString());
+
+			boolean same = d.isValid() && s.isValid() && d.countExamples() == s.countExamples()
+					&& d.getFeatureCount() == s.getFeatureCount();
+
+			I_Instance expected, actual;
+			while(same && (expected = d.getNext()) != null)
+			{
+				actual = s.getNext();
+				same = actual != null && sameInstance(expected, actual);
+			}
+
+			same = same && s.getNext() == null;
+
+			print("Rows read: " + d.countExamples() + " Same as dense: " + same);
+			print(same ? "PASSED" : "FAILED");
+		}
+		catch (IOException e) { print("Could not write the test files: " + e.getMessage()); print("FAILED"); }
+	}
+
+	/**
+	 * Checks that an indexed file reads the right instances from part way through,
+	 * and that its index is rebuilt once the file changes. The first feature of
+	 * each row is its position in the file, so every row read can be checked.
+	 */
+	private static void runIndexTests()
+	{
+		print("\nTest indexed file seek and read, before and after the file changes.\n");
+		print("\nExpected outcome: Correctly loaded instances\n");
+
+		try
+		{
+			File path = write("indexed", ".csv", rows(0, 100));
+			new File(DataFileIndex.indexPath(path.getPath())).deleteOnExit();
+
+			CSVFile f = new CSVFile(path.getPath(), inc, 8, verbose);
+			boolean passed = f.isValid() && f.countExamples() == 100 && checkIndexed(f, 37, 5) && checkIndexed(f, 96, 10);
+
+			// Reopening uses the index written when the file was first scanned.
+			DataFileIndex index = DataFileIndex.read(path.getPath());
+			passed = passed && index != null && index.countExamples() == 100;
+
+			// Append rows, which changes the size of the file, so the index is out of date.
+			FileWriter writer = new FileWriter(path, true);
+			try { writer.write(rows(100, 20)); }
+			finally { writer.close(); }
+
+			passed = passed && DataFileIndex.read(path.getPath()) == null;
+
+			f = new CSVFile(path.getPath(), inc, 8, verbose);
+			index = DataFileIndex.read(path.getPath());
+			print(f.toString());
+
+			passed = passed && f.isValid() && f.countExamples() == 120 && index != null && index.countExamples() == 120
+					&& checkIndexed(f, 0, 3) && checkIndexed(f, 99, 4) && checkIndexed(f, 117, 3);
+
+			print(passed ? "PASSED" : "FAILED");
+		}
+		catch (IOException e) { print("Could not write the test files: " + e.getMessage()); print("FAILED"); }
+	}
+
+	/**
+	 * Checks that a projected file reads only the features kept, in the order they
+	 * appear in the file, followed by the class label, both one instance at a time
+	 * and in batches, and whether or not the file is streamed.
+	 * @param ext the extension of the files to test, either ".csv" or ".arff".
+	 */
+	private static void runProjectionTests(String ext)
+	{
+		print("\nTest projection on to features 6, 1 and 3 (" + ext + ").\n");
+		print("\nExpected outcome: Correctly loaded instances\n");
+
+		String path = root + "Test_6/TestFile_6" + ext;
+		int[] keep = { 6, 1, 3 };
+		int[] columns = { 1, 3, 6 };
+		boolean passed = true;
+
+		for(int mode = 0; mode < 2; mode++)
+		{
+			boolean streamed = mode == 1;
+			DataFile full = ext.equals(".arff") ? new ARFFFile(path, inc, streamed, verbose) : new CSVFile(path, inc, streamed, verbose);
+			DataFile projected = ext.equals(".arff") ? new ARFFFile(path, inc, streamed, verbose) : new CSVFile(path, inc, streamed, verbose);
+
+			passed = passed && projected.setProjection(keep) && ((I_File)projected).getFeatureCount() == columns.length;
+
+			I_Instance expected, actual;
+			while(passed && (expected = full.readNext()) != null)
+			{
+				actual = projected.readNext();
+				passed = actual != null && actual.getFeatureCount() == columns.length
+						&& actual.getClassLabel() == expected.getClassLabel();
+
+				for(int f = 0; passed && f < columns.length; f++)
+					passed = actual.getFeature(f) == expected.getFeature(columns[f]);
+			}
+
+			passed = passed && projected.readNext() == null;
+
+			// Batches hold the features kept, and the class label of each row.
+			full = ext.equals(".arff") ? new ARFFFile(path, inc, streamed, verbose) : new CSVFile(path, inc, streamed, verbose);
+			projected = ext.equals(".arff") ? new ARFFFile(path, inc, streamed, verbose) : new CSVFile(path, inc, streamed, verbose);
+			projected.setProjection(keep);
+
+			InstanceBlock block = projected.getNextBatch(1000);
+			passed = passed && block != null && block.getFeatureCount() == columns.length;
+
+			for(int r = 0; passed && r < block.size(); r++)
+			{
+				expected = full.readNext();
+				passed = expected != null && block.getClassLabel(r) == expected.getClassLabel();
+
+				for(int f = 0; passed && f < columns.length; f++)
+					passed = block.value(r, f) == expected.getFeature(columns[f]);
+			}
+
+			passed = passed && full.readNext() == null;
+
+			print("Streamed: " + streamed + " Features: " + ((I_File)projected).getFeatureCount() + " Rows: " + (block == null ? 0 : block.size()));
+		}
+
+		// Features that do not exist cannot be kept.
+		DataFile f = ext.equals(".arff") ? new ARFFFile(path, inc, verbose) : new CSVFile(path, inc, verbose);
+		passed = passed && !f.setProjection(new int[] { 8 }) && ((I_File)f).getFeatureCount() == 8;
+
+		print(passed ? "PASSED" : "FAILED");
+	}
+
+	/**
+	 * Checks that undersampling keeps about the fraction of majority class instances
+	 * asked for, weights each by the inverse of that fraction, and passes on every
+	 * minority class instance unchanged, whether read one at a time or in batches.
+	 */
+	private static void runUndersamplingTests()
+	{
+		print("\nTest undersampling class 0 of the training set at a keep rate of 0.2.\n");
+		print("\nExpected outcome: About 20% of class 0 kept, each with weight 5\n");
+
+		String path = root + "Test_0/Train.arff";
+		double keepRate = 0.2;
+		boolean passed = true;
+
+		for(int mode = 0; mode < 2; mode++)
+		{
+			ARFFFile source = new ARFFFile(path, inc, verbose);
+			UndersamplingFile f = new UndersamplingFile(source, 0, keepRate, 1, verbose);
+			int majority = source.getClassDistribution()[0];
+			int minority = source.getClassDistribution()[1];
+
+			int keptMinority = 0;
+			double majorityWeight = 0;
+			boolean weightsCorrect = true;
+
+			if(mode == 0)
+			{
+				I_Instance inst;
+				while((inst = f.getNext()) != null)
+				{
+					double expected = inst.getClassLabel() == 0 ? 1 / keepRate : 1;
+					weightsCorrect = weightsCorrect && Math.abs(inst.weight() - expected) < 1e-9;
+
+					if(inst.getClassLabel() == 0)
+						majorityWeight += inst.weight();
+					else
+						keptMinority++;
+				}
+			}
+			else
+			{
+				InstanceBlock block;
+				while((block = f.getNextBatch(256)) != null)
+				{
+					for(int r = 0; r < block.size(); r++)
+					{
+						double expected = block.getClassLabel(r) == 0 ? 1 / keepRate : 1;
+						weightsCorrect = weightsCorrect && Math.abs(block.getWeight(r) - expected) < 1e-9;
+
+						if(block.getClassLabel(r) == 0)
+							majorityWeight += block.getWeight(r);
+						else
+							keptMinority++;
+					}
+				}
+			}
+
+			// The fraction kept is within four standard deviations of the keep rate.
+			double fraction = (double) f.countKept() / majority;
+			double tolerance = 4 * Math.sqrt(keepRate * (1 - keepRate) / majority);
+
+			passed = passed && weightsCorrect && keptMinority == minority
+					&& f.countKept() + f.countDropped() == majority
+					&& Math.abs(fraction - keepRate) < tolerance
+					&& Math.abs(majorityWeight - f.countKept() / keepRate) < 1e-6;
+
+			print((mode == 0 ? "Instances: " : "Batches: ") + "kept " + f.countKept() + " of " + majority +
+					" (" + fraction + "), weighted majority count " + majorityWeight + ", minority kept " + keptMinority + " of " + minority);
+		}
+
+		print("\nTest undersampling batches read from a stream, whose feature count is only known once read.\n");
+		print("\nExpected outcome: Every minority instance kept, each batch two features wide\n");
+
+		StringBuilder csv = new StringBuilder();
+		for(int i = 0; i < 100; i++)
+			csv.append(i * 0.5).append(',').append(i % 3).append(',').append(i % 4 == 0 ? 1 : 0).append('\n');
+
+		UndersamplingFile f = new UndersamplingFile(new CSVFile(new ByteArrayInputStream(csv.toString().getBytes()), verbose), 0, 0.5, 1, verbose);
+		int keptMinority = 0;
+		int keptMajority = 0;
+		boolean widthCorrect = true;
+
+		InstanceBlock block;
+		while((block = f.getNextBatch(16)) != null)
+		{
+			widthCorrect = widthCorrect && block.getFeatureCount() == 2;
+
+			for(int r = 0; r < block.size(); r++)
+			{
+				if(block.getClassLabel(r) == 0)
+					keptMajority++;
+				else
+					keptMinority++;
+			}
+		}
+
+		passed = passed && widthCorrect && keptMinority == 25 && keptMajority == f.countKept()
+				&& f.countKept() + f.countDropped() == 75;
+
+		print("Stream: kept " + f.countKept() + " of 75, minority kept " + keptMinority + " of 25");
+
+		print(passed ? "PASSED" : "FAILED");
+	}
+
+	/**
+	 * Checks that stratified sampling takes exactly the quota of each class, and
+	 * that the training and test sets written can be read back as valid files
+	 * holding those quotas.
+	 */
+	private static void runSamplingTests()
+	{
+		print("\nTest sampling the training set in to 3:1 training and test sets.\n");
+		print("\nExpected outcome: Valid files holding exactly the quota of each class\n");
+
+		int[] trainQuota = StratifiedReservoirSampler.quotas(200, new double[] { 3, 1 });
+		int[] testQuota = StratifiedReservoirSampler.quotas(80, new double[] { 3, 1 });
+
+		ARFFFile source = new ARFFFile(root + "Test_0/Train.arff", inc, verbose);
+		StratifiedReservoirSampler sampler = new StratifiedReservoirSampler(trainQuota, testQuota, 1, verbose);
+		long read = sampler.sample(source);
+
+		boolean passed = Arrays.equals(trainQuota, new int[] { 150, 50 }) && Arrays.equals(testQuota, new int[] { 60, 20 })
+				&& read == source.countExamples();
+
+		for(int c = 0; c < trainQuota.length; c++)
+			passed = passed && sampler.countSeen(c) == source.getClassDistribution()[c]
+					&& sampler.countSampled(c) == trainQuota[c] + testQuota[c];
+
+		try
+		{
+			// Each set may be written in either format.
+			File trainPath = File.createTempFile("train", ".arff");
+			File testPath = File.createTempFile("test", ".csv");
+			trainPath.deleteOnExit();
+			testPath.deleteOnExit();
+
+			passed = passed && sampler.write(trainPath.getPath(), testPath.getPath());
+
+			ARFFFile train = new ARFFFile(trainPath.getPath(), inc, verbose);
+			CSVFile test = new CSVFile(testPath.getPath(), inc, verbose);
+			print(train.toString());
+			print(test.toString());
+
+			passed = passed && train.isValid() && test.isValid()
+					&& train.getFeatureCount() == source.getFeatureCount() && test.getFeatureCount() == source.getFeatureCount()
+					&& Arrays.equals(train.getClassDistribution(), trainQuota) && Arrays.equals(test.getClassDistribution(), testQuota);
+		}
+		catch (IOException e) { print("Could not create the test files: " + e.getMessage()); passed = false; }
+
+		print(passed ? "PASSED" : "FAILED");
+	}
+
+	/**
+	 * Reads a shard of an indexed file, then seeks to the first row of the shard
+	 * and reads it again.
+	 * @param f the file, whose rows hold their position in their first feature.
+	 * @param from the first row to read.
+	 * @param count the number of rows to read, fewer are read at the end of the file.
+	 * @return true if the rows read are the rows requested, else false.
+	 */
+	private static boolean checkIndexed(DataFile f, int from, int count)
+	{
+		List<I_Instance> shard = f.read(from, count);
+		int expected = Math.min(count, ((I_File)f).countExamples() - from);
+
+		if(shard == null || shard.size() != expected)
+			return false;
+
+		for(int i = 0; i < expected; i++)
+			if(shard.get(i).getFeature(0) != from + i)
+				return false;
+
+		if(!f.seek(from))
+			return false;
+
+		I_Instance first = f.readNext();
+		return first != null && first.getFeature(0) == from;
+	}
+
+	/**
+	 * Checks that each test file read in parallel, split in to chunks of a few lines
+	 * each, is valid only when the file is, with the same example count, feature
+	 * count and class distribution, and the same instances in the same order.
+	 * @param ext the extension of the files to test, either ".csv" or ".arff".
+	 */
+	private static void runParallelTests(String ext)
+	{
+		print("\nTest every file read in parallel in 64 byte chunks (" + ext + ").\n");
+		print("\nExpected outcome: Each file read as it is by " + (ext.equals(".arff") ? "ARFFFile" : "CSVFile") + "\n");
+
+		ForkJoinPool pool = new ForkJoinPool(3);
+		boolean passed = true;
+
+		try
+		{
+			List<String> files = new ArrayList<String>(Arrays.asList(TEST_FILES));
+			if(ext.equals(".arff"))
+				files.add(0, "Test_0/Train");
+
+			for(String file : files)
+			{
+				String path = root + file + ext;
+				DataFile expected = ext.equals(".arff") ? new ARFFFile(path, inc, verbose) : new CSVFile(path, inc, verbose);
+				ParallelDataFile actual = new ParallelDataFile(path, ext.equals(".arff"), 64, pool, verbose);
+
+				boolean same = sameFile((I_File)expected, actual);
+				actual.closeFile();
+
+				print(file + ext + " Valid: " + actual.isValid() + " Examples: " + actual.countExamples() + " Same: " + same);
+				passed = passed && same;
+			}
+		}
+		finally { pool.shutdown(); }
+
+		print(passed ? "PASSED" : "FAILED");
+	}
+
+	/**
+	 * Checks that each test file read through a memory mapped window of a few KB,
+	 * so that the larger files are mapped a window at a time, is valid only when
+	 * the file is, with the same example count, feature count and class distribution,
+	 * and the same instances in the same order.
+	 * @param ext the extension of the files to test, either ".csv" or ".arff".
+	 */
+	private static void runMappedTests(String ext)
+	{
+		print("\nTest every file read through a 4 KB mapped window (" + ext + ").\n");
+		print("\nExpected outcome: Each file read as it is by " + (ext.equals(".arff") ? "ARFFFile" : "CSVFile") + "\n");
+
+		boolean passed = true;
+
+		List<String> files = new ArrayList<String>(Arrays.asList(TEST_FILES));
+		if(ext.equals(".arff"))
+			files.add(0, "Test_0/Train");
+
+		for(String file : files)
+		{
+			String path = root + file + ext;
+			DataFile expected = ext.equals(".arff") ? new ARFFFile(path, inc, verbose) : new CSVFile(path, inc, verbose);
+			MappedDataFile actual = new MappedDataFile(path, ext.equals(".arff"), 4096, verbose);
+
+			boolean same = sameFile((I_File)expected, actual);
+			actual.closeFile();
+
+			print(file + ext + " Valid: " + actual.isValid() + " Examples: " + actual.countExamples() + " Same: " + same);
+			passed = passed && same;
+		}
+
+		print(passed ? "PASSED" : "FAILED");
+	}
+
+	/**
+	 * Checks that the training set, and a CSV file read from a stream, converted to
+	 * binary files can be read back with the example count and features from the
+	 * header, the class distribution from the trailer, and every value unchanged,
+	 * whether read one at a time or in batches.
+	 */
+	private static void runBinaryTests()
+	{
+		print("\nTest converting the training set, and a streamed CSV file, to binary files.\n");
+		print("\nExpected outcome: The same instances, counts and class distribution read back\n");
+
+		try
+		{
+			boolean passed = true;
+			BinaryFileConverter converter = new BinaryFileConverter(verbose);
+
+			// The training set, read back through a small window so that it is remapped.
+			String path = root + "Test_0/Train.arff";
+			File binary = write("train", ".bin", "");
+			passed = passed && converter.convert(new ARFFFile(path, inc, verbose), binary.getPath());
+
+			for(int mode = 0; mode < 2; mode++)
+			{
+				ARFFFile expected = new ARFFFile(path, inc, verbose);
+				BinaryFile actual = new BinaryFile(binary.getPath(), 4096, verbose);
+				boolean same = mode == 0 ? sameFile(expected, actual) : sameBatches(expected, actual, 100);
+				actual.closeFile();
+
+				passed = passed && same;
+				print((mode == 0 ? "Training set instances" : "Training set batches") + " Examples: " + actual.countExamples() + " Same: " + same);
+			}
+
+			// A stream, whose example count and class distribution are only known once it has been read.
+			File streamed = write("streamed", ".bin", "");
+			byte[] csv = rows(0, 50).getBytes();
+			passed = passed && converter.convert(new CSVFile(new ByteArrayInputStream(csv), verbose), streamed.getPath());
+
+			for(int mode = 0; mode < 2; mode++)
+			{
+				CSVFile expected = new CSVFile(new ByteArrayInputStream(csv), verbose);
+				BinaryFile actual = new BinaryFile(streamed.getPath(), verbose);
+				boolean same = actual.isValid() && actual.countExamples() == 50 && actual.getFeatureCount() == 2
+						&& Arrays.equals(actual.getClassDistribution(), new int[] { 25, 25 });
+
+				if(mode == 0)
+				{
+					I_Instance inst;
+					while(same && (inst = expected.getNext()) != null)
+					{
+						I_Instance other = actual.getNext();
+						same = other != null && sameInstance(inst, other);
+					}
+
+					same = same && actual.getNext() == null;
+				}
+				else
+					same = same && sameBatches(expected, actual, 7);
+
+				actual.closeFile();
+
+				passed = passed && same;
+				print((mode == 0 ? "Stream instances" : "Stream batches") + " Examples: " + actual.countExamples() + " Same: " + same);
+			}
+
+			print(passed ? "PASSED" : "FAILED");
+		}
+		catch (IOException e) { print("Could not write the test files: " + e.getMessage()); print("FAILED"); }
+	}
+
+	/**
+	 * Checks that when a streamed file has many bad rows after its valid ones, every
+	 * bad row is counted and written to the quarantine file, while only a few are
+	 * reported each second and the rest are summarised.
+	 */
+	private static void runQuarantineTests()
+	{
+		print("\nTest streaming a file of 20 valid rows followed by 200 bad rows, with a quarantine file.\n");
+		print("\nExpected outcome: 20 rows read, every bad row counted and quarantined, and a few reported\n");
+
+		ErrorChannel channel = ErrorChannel.getDefault();
+		PrintStream out = System.out;
+
+		try
+		{
+			StringBuilder bad = new StringBuilder();
+			for(int i = 0; i < 200; i++)
+				bad.append(i).append(",bad,").append(i % 2).append('\n');
+
+			File path = write("quarantined", ".csv", rows(0, 20) + bad);
+			File quarantine = write("quarantine", ".txt", "");
+			String msg = "Error reading data on line 21 data could not be read as double[].";
+
+			long counted = channel.count(QuarantinedCSVFile.class.getSimpleName(), msg);
+			long quarantined = channel.countQuarantined();
+
+			// Reports are printed straight to standard out, so are captured to count them.
+			ByteArrayOutputStream captured = new ByteArrayOutputStream();
+			channel.setQuarantine(quarantine.getPath());
+			System.setOut(new PrintStream(captured, true));
+
+			QuarantinedCSVFile f = new QuarantinedCSVFile(path.getPath());
+			int rows = 0;
+
+			while(f.readNext() != null)
+				rows++;
+
+			// Suppressed errors are summarised when the next error of the type is raised
+			// in a later second, so one more bad row is read once the second has passed.
+			long second = System.nanoTime() / 1000000000L;
+			while(System.nanoTime() / 1000000000L == second)
+				Thread.sleep(10);
+
+			QuarantinedCSVFile last = new QuarantinedCSVFile(write("quarantined", ".csv", rows(0, 3) + "0,bad,0\n").getPath());
+			while(last.readNext() != null)
+				rows++;
+
+			System.setOut(out);
+			channel.closeQuarantine();
+
+			// Count the bad rows reported, and those summarised as not reported.
+			int reported = 0;
+			long suppressed = 0;
+
+			for(String line : captured.toString().split("\n"))
+			{
+				if(line.startsWith("Class:\t" + QuarantinedCSVFile.class.getSimpleName()) && line.contains("could not be read"))
+					reported++;
+				else if(line.contains("more errors like \"" + QuarantinedCSVFile.class.getSimpleName()))
+					suppressed += Long.parseLong(line.substring(line.indexOf("Error: ") + 7, line.indexOf(" more")));
+			}
+
+			List<String> lines = Files.readAllLines(quarantine.toPath(), Charset.defaultCharset());
+
+			counted = channel.count(QuarantinedCSVFile.class.getSimpleName(), msg) - counted;
+			quarantined = channel.countQuarantined() - quarantined;
+
+			boolean passed = rows == 23 && f.countRejected() == 200 && counted == 201 && quarantined == 201
+					&& lines.size() == 201 && lines.get(0).equals("0,bad,0") && lines.get(199).equals("199,bad,1")
+					&& reported > 0 && reported <= 2 * ErrorChannel.DEFAULT_RATE_LIMIT && reported + suppressed == 201;
+
+			print("Rows read: " + rows + " Counted: " + counted + " Quarantined: " + quarantined + " (" + lines.size() +
+					" lines) Reported: " + reported + " Summarised: " + suppressed);
+			print(passed ? "PASSED" : "FAILED");
+		}
+		catch (IOException e) { System.setOut(out); print("Could not write the test files: " + e.getMessage()); print("FAILED"); }
+		catch (InterruptedException e) { System.setOut(out); print("Interrupted: " + e.getMessage()); print("FAILED"); }
+		finally { channel.closeQuarantine(); }
+	}
+
+	/**
+	 * Checks that a followed file reads rows appended by another thread while it is
+	 * read, including a row written in two parts, and that when the writer stops
+	 * following the file the read ends with exactly the rows written.
+	 */
+	private static void runFollowTests()
+	{
+		print("\nTest following a file of 50 rows, while another thread appends 100 more in two halves.\n");
+		print("\nExpected outcome: All 150 rows read in order, then the read ends\n");
+
+		try
+		{
+			final File path = write("followed", ".csv", rows(0, 50));
+			final CSVFile f = new CSVFile(path.getPath(), inc, true, verbose);
+			f.setFollowBackoff(1, 10);
+			boolean followed = f.setFollow(true);
+
+			Thread writer = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						// The second half is split part way through a row.
+						String second = rows(100, 50);
+						String[] parts = { rows(50, 50), second.substring(0, second.length() / 2 + 1), second.substring(second.length() / 2 + 1) };
+
+						for(String part : parts)
+						{
+							Thread.sleep(50);
+
+							FileWriter appender = new FileWriter(path, true);
+							try { appender.write(part); }
+							finally { appender.close(); }
+						}
+					}
+					catch (IOException e) { print("Could not append to the test file: " + e.getMessage()); }
+					catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+					finally { f.setFollow(false); }
+				}
+			});
+
+			writer.start();
+
+			int rows = 0;
+			boolean ordered = true;
+
+			I_Instance inst;
+			while((inst = f.readNext()) != null)
+				ordered = ordered && inst.getFeature(0) == rows++;
+
+			writer.join();
+			f.closeFile();
+
+			print("Rows read: " + rows + " Ordered: " + ordered + " Rejected: " + f.countRejected());
+			print(followed && ordered && rows == 150 && f.countRejected() == 0 && !f.isFollowing() ? "PASSED" : "FAILED");
+		}
+		catch (IOException e) { print("Could not write the test files: " + e.getMessage()); print("FAILED"); }
+		catch (InterruptedException e) { print("Interrupted: " + e.getMessage()); print("FAILED"); }
+	}
+
+	/**
+	 * Checks that a file read ahead by a background thread, through a buffer small
+	 * enough that the reader often waits, gives the same instances as the wrapped
+	 * file whether read one at a time, in to an existing instance or in batches.
+	 * Then checks that closing the file part way through stops the reader.
+	 */
+	private static void runPrefetchingTests()
+	{
+		print("\nTest prefetched files against the files they wrap.\n");
+		print("\nExpected outcome: The same instances read by getNext, getNext(into) and getNextBatch\n");
+
+		boolean passed = true;
+
+		List<String> files = new ArrayList<String>();
+		files.add("Test_0/Train.arff");
+		for(String file : TEST_FILES)
+			files.add(file + ".csv");
+
+		for(String file : files)
+		{
+			String path = root + file;
+			boolean arff = file.endsWith(".arff");
+
+			for(int mode = 0; mode < 3; mode++)
+			{
+				I_File expected = arff ? new ARFFFile(path, inc, verbose) : new CSVFile(path, inc, verbose);
+				I_File source = arff ? new ARFFFile(path, inc, verbose) : new CSVFile(path, inc, verbose);
+				PrefetchingFile f = new PrefetchingFile(source, 8, verbose);
+				boolean same;
+
+				if(mode == 0)
+					same = sameFile(expected, f);
+				else
+				{
+					same = expected.isValid() == f.isValid() && expected.countExamples() == f.countExamples()
+							&& Arrays.equals(expected.getClassDistribution(), f.getClassDistribution());
+
+					I_Instance inst;
+					I_Instance into = new DenseInstance(0);
+					InstanceBlock block = null;
+					int row = 0;
+
+					while(same && (inst = expected.getNext()) != null)
+					{
+						if(mode == 1)
+							same = f.getNext(into) && sameInstance(inst, into);
+						else
+						{
+							if(block == null || row == block.size())
+							{
+								block = f.getNextBatch(5);
+								row = 0;
+							}
+
+							same = block != null && sameInstance(inst, block.getInstance(row++));
+						}
+					}
+
+					same = same && (mode == 1 ? !f.getNext(into) : (block == null || row == block.size()) && f.getNextBatch(5) == null);
+				}
+
+				f.closeFile();
+				passed = passed && same;
+
+				if(mode == 0)
+					print(file + " Valid: " + f.isValid() + " Examples: " + f.countExamples());
+
+				print((mode == 0 ? "\tgetNext" : mode == 1 ? "\tgetNext(into)" : "\tgetNextBatch") + " Same: " + same);
+			}
+		}
+
+		print("\nTest closing a prefetched file part way through.\n");
+		print("\nExpected outcome: The file closes, and no further instances are read\n");
+
+		ARFFFile expected = new ARFFFile(root + "Test_0/Train.arff", inc, verbose);
+		PrefetchingFile f = new PrefetchingFile(new ARFFFile(root + "Test_0/Train.arff", inc, verbose), 16, verbose);
+		boolean same = true;
+
+		for(int i = 0; i < 100; i++)
+			same = same && sameInstance(expected.getNext(), f.getNext());
+
+		f.closeFile();
+		expected.closeFile();
+
+		passed = passed && same && f.getNext() == null && !f.getNext(new DenseInstance(0)) && f.getNextBatch(5) == null;
+
+		print("Read 100 of " + expected.countExamples() + " Same: " + same + " Closed: " + (f.getNext() == null));
+
+		print(passed ? "PASSED" : "FAILED");
+	}
+
+	/**
+	 * Checks that a directory of files is read as one stream, in order of the file
+	 * names, skipping a file that is not valid and one with a different number of
+	 * features, whether read one at a time, in to an existing instance or in batches.
+	 */
+	private static void runDirectoryTests()
+	{
+		print("\nTest reading a directory of files, one invalid and one with an extra feature.\n");
+		print("\nExpected outcome: The rows of the three valid files in order, the other two skipped\n");
+
+		try
+		{
+			File directory = Files.createTempDirectory("directory").toFile();
+			directory.deleteOnExit();
+
+			String[] names = { "a.csv", "b.csv", "c.csv", "d.csv", "e.csv" };
+			String[] contents = { rows(0, 30), "0,0.0,0\n1,one,1\n", rows(30, 25), "0,0.0,0.0,0\n1,0.5,0.5,1\n", rows(55, 20) };
+
+			for(int i = 0; i < names.length; i++)
+			{
+				File file = new File(directory, names[i]);
+				file.deleteOnExit();
+
+				FileWriter writer = new FileWriter(file);
+				try { writer.write(contents[i]); }
+				finally { writer.close(); }
+			}
+
+			ForkJoinPool pool = new ForkJoinPool(2);
+			boolean passed = true;
+
+			try
+			{
+				for(int mode = 0; mode < 3; mode++)
+				{
+					List<String> files = DirectoryStreamFile.listFiles(directory.getPath(), ".csv");
+					DirectoryStreamFile f = new DirectoryStreamFile(files, false, 2, pool, verbose);
+
+					// Every row read should be the next in order, as its first feature is its position.
+					int read = 0;
+					boolean ordered = true;
+
+					if(mode == 0)
+					{
+						I_Instance inst;
+						while((inst = f.getNext()) != null)
+							ordered = ordered && inst.getFeature(0) == read++ && inst.getFeatureCount() == 2;
+					}
+					else if(mode == 1)
+					{
+						I_Instance into = new DenseInstance(0);
+						while(f.getNext(into))
+							ordered = ordered && into.getFeature(0) == read++ && into.getFeatureCount() == 2;
+					}
+					else
+					{
+						InstanceBlock block;
+						while((block = f.getNextBatch(7)) != null)
+						{
+							ordered = ordered && block.getFeatureCount() == 2;
+
+							for(int r = 0; r < block.size(); r++)
+								ordered = ordered && block.value(r, 0) == read && block.getClassLabel(r) == read++ % 2;
+						}
+					}
+
+					f.closeFile();
+
+					passed = passed && f.isValid() && files.size() == 5 && files.get(0).endsWith("a.csv") && ordered && read == 75
+							&& f.countExamples() == 75 && Arrays.equals(f.getClassDistribution(), new int[] { 38, 37 });
+
+					print((mode == 0 ? "getNext" : mode == 1 ? "getNext(into)" : "getNextBatch") + " Read: " + read + " Ordered: " + ordered);
+					print(f.toString());
+				}
+			}
+			finally { pool.shutdown(); }
+
+			print(passed ? "PASSED" : "FAILED");
+		}
+		catch (IOException e) { print("Could not write the test files: " + e.getMessage()); print("FAILED"); }
+	}
+
 	//*****************************************
 	//*****************************************
 	//            Utility Methods
@@ -370,4 +1285,145 @@ public class DataFileTests
 	 * @param msg the string message to print out.
 	 */
 	private static void print(String msg) { System.out.println(msg); }
+
+	/**
+	 * Writes a temporary test file, which is deleted when the tests finish.
+	 * @param prefix the start of the file name.
+	 * @param ext the extension of the file, either ".csv" or ".arff".
+	 * @param contents the contents of the file.
+	 * @return the file written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	private static File write(String prefix, String ext, String contents) throws IOException
+	{
+		File file = File.createTempFile(prefix, ext);
+		file.deleteOnExit();
+
+		FileWriter writer = new FileWriter(file);
+		try { writer.write(contents); }
+		finally { writer.close(); }
+
+		return file;
+	}
+
+	/**
+	 * @param first the position of the first row.
+	 * @param count the number of rows.
+	 * @return rows of CSV data, whose first feature is the position of the row.
+	 */
+	private static String rows(int first, int count)
+	{
+		StringBuilder rows = new StringBuilder();
+
+		for(int i = first; i < first + count; i++)
+			rows.append(i).append(',').append(i * 0.5).append(',').append(i % 2).append('\n');
+
+		return rows.toString();
+	}
+
+	/**
+	 * @param expected the instance expected.
+	 * @param actual the instance read.
+	 * @return true if both instances have the same features and class label, else false.
+	 */
+	private static boolean sameInstance(I_Instance expected, I_Instance actual)
+	{
+		if(expected.getFeatureCount() != actual.getFeatureCount() || expected.getClassLabel() != actual.getClassLabel())
+			return false;
+
+		for(int f = 0; f < expected.getFeatureCount(); f++)
+			if(Double.compare(expected.getFeature(f), actual.getFeature(f)) != 0)
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * @param expected the file read as expected.
+	 * @param actual the file read some other way.
+	 * @return true if the files are both valid with the same example count, feature count,
+	 * class distribution and instances in the same order, or are both invalid, else false.
+	 */
+	private static boolean sameFile(I_File expected, I_File actual)
+	{
+		if(expected.isValid() != actual.isValid())
+			return false;
+		else if(!expected.isValid())
+			return true;
+
+		if(expected.countExamples() != actual.countExamples() || expected.getFeatureCount() != actual.getFeatureCount()
+				|| !Arrays.equals(expected.getClassDistribution(), actual.getClassDistribution()))
+			return false;
+
+		I_Instance inst;
+		while((inst = expected.getNext()) != null)
+		{
+			I_Instance other = actual.getNext();
+
+			if(other == null || !sameInstance(inst, other))
+				return false;
+		}
+
+		return actual.getNext() == null;
+	}
+
+	/**
+	 * @param expected the file read one instance at a time.
+	 * @param actual the file read in batches.
+	 * @param n the size of each batch.
+	 * @return true if the batches hold the same instances in the same order, else false.
+	 */
+	private static boolean sameBatches(I_File expected, I_File actual, int n)
+	{
+		InstanceBlock block;
+		while((block = actual.getNextBatch(n)) != null)
+		{
+			for(int r = 0; r < block.size(); r++)
+			{
+				I_Instance inst = expected.getNext();
+
+				if(inst == null || !sameInstance(inst, block.getInstance(r)))
+					return false;
+			}
+		}
+
+		return expected.getNext() == null;
+	}
+
+	/**
+	 * Streams a test file, reading every row, and prints whether the outcome is
+	 * that expected.
+	 * @param directory the directory containing the file, relative to the root.
+	 * @param file the name of the file, without its extension.
+	 * @param ext the extension of the file, either ".csv" or ".arff".
+	 * @param valid true if the file should be valid when opened, else false.
+	 * @param rejected the number of rows that should be rejected as the file is read.
+	 */
+	private static void stream(String directory, String file, String ext, boolean valid, int rejected)
+	{
+		String path = root + directory + file + ext;
+		DataFile f = ext.equals(".arff") ? new ARFFFile(path, inc, true, verbose) : new CSVFile(path, inc, true, verbose);
+
+		boolean opened = f.isStreaming() && ((I_File)f).isValid();
+		int rows = 0;
+
+		while(opened && f.readNext() != null)
+			rows++;
+
+		print(f.toString());
+		print("Valid: " + opened + " Rows read: " + rows + " Rows rejected: " + f.countRejected());
+		print(opened == valid && f.countRejected() == rejected ? "PASSED" : "FAILED");
+	}
+
+	/**
+	 * A streamed CSV file, whose errors are counted apart from those of the other
+	 * tests, as errors are counted by the name of the class that raised them.
+	 */
+	private static class QuarantinedCSVFile extends CSVFile
+	{
+		/**
+		 * @param pth the full path to the file.
+		 */
+		QuarantinedCSVFile(String pth) { super(pth, inc, true, DataFileTests.verbose); }
+	}
 }
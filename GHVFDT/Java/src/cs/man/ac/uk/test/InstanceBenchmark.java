@@ -0,0 +1,247 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	InstanceBenchmark.java
+ * Package: cs.man.ac.uk.test
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import cs.man.ac.uk.classifier.GHVFDT;
+import cs.man.ac.uk.data.DenseInstance;
+import cs.man.ac.uk.data.I_Instance;
+import cs.man.ac.uk.data.Instance;
+
+/**
+ * Compares the per-instance allocation and CPU cost of the Vector backed
+ * {@link Instance} against the array backed {@link DenseInstance}, both
+ * when simply creating and reading instances, and when training a GHVFDT.
+ */
+public class InstanceBenchmark
+{
+	//*****************************************
+	//*****************************************
+	//              Variables
+	//*****************************************
+	//*****************************************
+
+	// Benchmark variables, change as appropriate.
+
+	/**
+	 * The number of instances created per run.
+	 */
+	private static int instances = 1000000;
+
+	/**
+	 * The number of features per instance.
+	 */
+	private static int features = 8;
+
+	/**
+	 * The number of runs used to warm up the JIT before measuring.
+	 */
+	private static int warmUpRuns = 3;
+
+	/**
+	 * Used to measure thread CPU time and allocation.
+	 */
+	private static ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	/**
+	 * Prevents the JIT from eliminating the benchmark loops.
+	 */
+	private static double sink = 0;
+
+	//*****************************************
+	//*****************************************
+	//    Main method that runs the benchmark
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Runs the benchmark.
+	 * @param args unused arguments.
+	 */
+	public static void main(String[] args)
+	{
+		// Generate the raw data once, as a parser would, i.e. features followed by the label.
+		Random rand = new Random(42);
+		double[][] rows = new double[instances][];
+
+		for(int i = 0; i < instances; i++)
+		{
+			rows[i] = new double[features + 1];
+
+			for(int j = 0; j < features; j++)
+				rows[i][j] = rand.nextGaussian();
+
+			rows[i][features] = rand.nextDouble() < 0.01 ? 1 : 0;
+		}
+
+		for(int i = 0; i < warmUpRuns; i++)
+		{
+			createAndRead(rows, false);
+			createAndRead(rows, true);
+		}
+
+		print("Create and read " + instances + " instances of " + features + " features:");
+		report("Instance", createAndRead(rows, false));
+		report("DenseInstance", createAndRead(rows, true));
+
+		for(int i = 0; i < warmUpRuns; i++)
+		{
+			train(rows, false);
+			train(rows, true);
+		}
+
+		print("Train a GHVFDT on " + instances + " instances:");
+		report("Instance", train(rows, false));
+		report("DenseInstance", train(rows, true));
+
+		print("(sink " + sink + ")");
+	}
+
+	//*****************************************
+	//*****************************************
+	//    			BENCHMARKS
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Creates an instance for each row, and reads every feature back
+	 * out in the same way ActiveLearningNode does.
+	 * @param rows the raw data.
+	 * @param dense true to create DenseInstance objects, else Instance objects.
+	 * @return the CPU time (ns) and bytes allocated, per instance.
+	 */
+	private static double[] createAndRead(double[][] rows, boolean dense)
+	{
+		long[] start = sample();
+		double sum = 0;
+
+		for(int i = 0; i < rows.length; i++)
+		{
+			I_Instance inst = create(rows[i], dense);
+
+			for(int j = 0; j < inst.numAttributes(); j++)
+				sum += inst.value(j);
+		}
+
+		sink += sum;
+		return perInstance(start, rows.length);
+	}
+
+	/**
+	 * Trains a new tree on an instance created for each row.
+	 * @param rows the raw data.
+	 * @param dense true to create DenseInstance objects, else Instance objects.
+	 * @return the CPU time (ns) and bytes allocated, per instance.
+	 */
+	private static double[] train(double[][] rows, boolean dense)
+	{
+		GHVFDT tree = new GHVFDT();
+		tree.resetLearning();
+
+		long[] start = sample();
+
+		for(int i = 0; i < rows.length; i++)
+			tree.trainOnInstance(create(rows[i], dense));
+
+		double[] result = perInstance(start, rows.length);
+		sink += tree.classify(create(rows[0], dense));
+		return result;
+	}
+
+	//*****************************************
+	//*****************************************
+	//            Utility Methods
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Creates an instance from a row of raw data, in the same way the data
+	 * files do, i.e. with the class label as the last item.
+	 * @param row the raw data.
+	 * @param dense true to create a DenseInstance, else an Instance.
+	 * @return the new instance.
+	 */
+	private static I_Instance create(double[] row, boolean dense)
+	{
+		if(dense)
+			return new DenseInstance(row, row.length - 1, (int) row[row.length - 1]);
+
+		I_Instance inst = new Instance();
+		for(int j = 0; j < row.length - 1; j++)
+			inst.addFeature(row[j]);
+
+		inst.setClasslabel((int) row[row.length - 1]);
+		return inst;
+	}
+
+	/**
+	 * @return the current thread CPU time (ns) and bytes allocated by the current thread.
+	 */
+	private static long[] sample()
+	{
+		return new long[]{ threads.getCurrentThreadCpuTime(), allocatedBytes() };
+	}
+
+	/**
+	 * Computes the CPU time and allocation per instance since the supplied sample.
+	 * @param start the sample taken at the start of the run.
+	 * @param n the number of instances processed.
+	 * @return the CPU time (ns) and bytes allocated, per instance.
+	 */
+	private static double[] perInstance(long[] start, int n)
+	{
+		long[] end = sample();
+		return new double[]{ (double)(end[0] - start[0]) / n, (double)(end[1] - start[1]) / n };
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread, or -1 if the JVM
+	 * does not support measuring allocation.
+	 */
+	private static long allocatedBytes()
+	{
+		if(threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		else
+			return -1;
+	}
+
+	/**
+	 * Prints the result of a single benchmark.
+	 * @param name the name of the instance type benchmarked.
+	 * @param result the CPU time (ns) and bytes allocated, per instance.
+	 */
+	private static void report(String name, double[] result)
+	{
+		print("\t" + name + ":\t" + String.format("%.1f", result[0]) + " ns/instance\t"
+				+ String.format("%.1f", result[1]) + " bytes/instance");
+	}
+
+	/**
+	 * Simple wrapper for standard out.
+	 * @param msg the string message to print out.
+	 */
+	private static void print(String msg) { System.out.println(msg); }
+}
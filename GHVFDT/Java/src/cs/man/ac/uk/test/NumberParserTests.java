@@ -0,0 +1,348 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	NumberParserTests.java
+ * Package: cs.man.ac.uk.test
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.test;
+
+import java.util.Random;
+
+import cs.man.ac.uk.data.NumberParser;
+
+/**
+ * Fuzz tests {@link NumberParser} against Double.parseDouble. Both the char[]
+ * and byte[] versions of the parser must accept exactly the strings accepted
+ * by Double.parseDouble, and must produce exactly the same values.
+ */
+public class NumberParserTests
+{
+	//*****************************************
+	//*****************************************
+	//              Variables
+	//*****************************************
+	//*****************************************
+
+	// Test variables, change as appropriate.
+
+	/**
+	 * The number of random strings tested per generator.
+	 */
+	private static int iterations = 2000000;
+
+	/**
+	 * The seed used to generate the random strings, so failures can be reproduced.
+	 */
+	private static long seed = 1;
+
+	/**
+	 * The characters used to build random strings that are mostly not numbers.
+	 */
+	private static final String ALPHABET = "0123456789.-+eEdDfFxXpPaAbcNInfinityNaN \t";
+
+	/**
+	 * Strings that exercise the edge cases of the Double.parseDouble grammar.
+	 */
+	private static final String[] CASES = {
+		"", " ", "0", "-0", "+0", "0.0", "-0.0", ".0", "0.", ".", "-", "+", "-.", "+.5", "-.5e-3",
+		"1", "1.5", " 1.5 ", "\t1.5\n", "1 .5", "1..5", "1.5.", "1e", "1e+", "1e-", "e5", ".e5",
+		"1.e5", "1e5", "1E5", "1e+5", "1e-5", "1e05", "1e5.0", "1f", "1F", "1d", "1D", "1.5fd",
+		"1fe5", "1e5f", "1ef", "NaN", "-NaN", "+NaN", "nan", "NaNd", " NaN ", "Infinity",
+		"-Infinity", "+Infinity", "infinity", "Infinityf", "Inf", "0x1p3", "0X1P3", "0x1.8p1",
+		"-0x.8p1", "0x1p", "0xp1", "0x1", "0x1.p1d", "0x.p1", "0xG", "1,5", "1_000", "--1",
+		"+-1", "9007199254740992", "9007199254740993", "9007199254740993.0", "123456789012345678",
+		"1234567890123456789", "0.1", "0.3", "2.2250738585072014E-308", "4.9E-324", "2.4703282292062327E-324",
+		"2.4703282292062328E-324", "1.7976931348623157E308", "1.7976931348623159E308", "1e400",
+		"1e-400", "0e99999999999999999999", "1e99999999999999999999", "1e-99999999999999999999",
+		"000000000000000000000000000001", "1.000000000000000000000000000", "100000000000000000000000",
+		"1e22", "1e23", "9e37", "9007199254740991e15", "9007199254740991e16", "1e-22", "1e-23",
+		"0.000000000000000000000000001", "123.456e-2", "1 ", "١", "½", "1e١"
+	};
+
+	/**
+	 * Counts the number of failures.
+	 */
+	private static int failures = 0;
+
+	/**
+	 * Counts the number of strings tested.
+	 */
+	private static int tests = 0;
+
+	//*****************************************
+	//*****************************************
+	//      Main method that runs the tests
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Runs the tests.
+	 * @param args optionally the number of iterations and random seed.
+	 */
+	public static void main(String[] args)
+	{
+		if(args.length > 0)
+			iterations = Integer.parseInt(args[0]);
+		if(args.length > 1)
+			seed = Long.parseLong(args[1]);
+
+		Random rand = new Random(seed);
+
+		for(int i = 0; i < CASES.length; i++)
+			check(CASES[i]);
+
+		for(int i = 0; i < iterations; i++)
+		{
+			check(Double.toString(Double.longBitsToDouble(rand.nextLong())));
+			check(Double.toString(rand.nextGaussian() * Math.pow(10, rand.nextInt(40) - 20)));
+			check(Float.toString(rand.nextFloat()));
+			check(randomDecimal(rand));
+			check(randomString(rand));
+		}
+
+		checkLines(rand);
+
+		print("Tested " + tests + " strings, " + failures + " failures.");
+		print(failures == 0 ? "PASSED" : "FAILED");
+	}
+
+	//*****************************************
+	//*****************************************
+	//    			TESTS
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Checks both versions of the parser agree with Double.parseDouble.
+	 * @param s the string to test.
+	 */
+	private static void check(String s)
+	{
+		tests++;
+
+		Double expected = null;
+		try { expected = Double.parseDouble(s); }
+		catch(NumberFormatException nfe) { }
+
+		double[] out = { 42 };
+		boolean valid = NumberParser.parse(s.toCharArray(), 0, s.length(), out, 0);
+		compare("char[]", s, expected, valid, out[0]);
+
+		// Only strings of single byte characters can be tested as bytes.
+		for(int i = 0; i < s.length(); i++)
+			if(s.charAt(i) > 0xFF)
+				return;
+
+		byte[] bytes = new byte[s.length() + 2];
+		for(int i = 0; i < s.length(); i++)
+			bytes[i + 1] = (byte) s.charAt(i);
+
+		out[0] = 42;
+		valid = NumberParser.parse(bytes, 1, s.length() + 1, out, 0);
+		compare("byte[]", s, expected, valid, out[0]);
+	}
+
+	/**
+	 * Checks lines of comma separated numbers are split in the same way as
+	 * String.split, and that too many values are reported.
+	 * @param rand the random number generator.
+	 */
+	private static void checkLines(Random rand)
+	{
+		String[] lines = { "1,2,3", "1,2,3,", "1,2,3,,,", ",1,2", "1,,2", "1,2%comment", "1,2,%3",
+				"%comment", "", ",", " ", "1, 2 ,3", "1,a,3", "1,2,3,4,5,6,7,8,9" };
+
+		for(int i = 0; i < lines.length + iterations / 10; i++)
+		{
+			String line;
+
+			if(i < lines.length)
+				line = lines[i];
+			else
+			{
+				StringBuilder builder = new StringBuilder();
+				int n = rand.nextInt(6);
+				for(int j = 0; j < n; j++)
+				{
+					builder.append(rand.nextInt(4) == 0 ? randomString(rand) : randomDecimal(rand));
+					if(rand.nextInt(3) > 0 || j < n - 1)
+						builder.append(rand.nextInt(20) == 0 ? "%" : ",");
+				}
+				line = builder.toString();
+			}
+
+			tests++;
+
+			// The expected result, computed as the data files used to.
+			String data = line.contains("%") ? line.substring(0, line.indexOf("%")) : line;
+			String[] components = data.split(",");
+			int expected = components.length;
+			double[] values = new double[components.length];
+
+			for(int j = 0; j < components.length && expected >= 0; j++)
+			{
+				try { values[j] = Double.parseDouble(components[j]); }
+				catch(NumberFormatException nfe) { expected = NumberParser.INVALID; }
+			}
+
+			if(components.length == 0)
+				expected = NumberParser.INVALID;
+
+			double[] out = new double[8];
+			int count = NumberParser.parseLine(line.toCharArray(), 0, line.length(), ',', '%', out);
+
+			if(expected > out.length && count == NumberParser.OVERFLOW)
+				continue;
+
+			boolean same = count == expected;
+			for(int j = 0; same && j < count; j++)
+				same = Double.doubleToLongBits(out[j]) == Double.doubleToLongBits(values[j]);
+
+			if(!same)
+			{
+				failures++;
+				print("Line \"" + line + "\": expected " + expected + " values, parsed " + count);
+			}
+
+			// Projecting the line on to some of its columns keeps the same values.
+			if(expected >= 0)
+			{
+				tests++;
+
+				boolean[] keep = { true, false, false, true };
+				int columns = NumberParser.parseLine(line.toCharArray(), 0, line.length(), ',', '%', keep, out);
+
+				same = columns == expected;
+				for(int j = 0, k = 0; same && j < columns; j++)
+					if(j >= keep.length || keep[j])
+						same = Double.doubleToLongBits(out[k++]) == Double.doubleToLongBits(values[j]);
+
+				if(!same)
+				{
+					failures++;
+					print("Line \"" + line + "\": expected " + expected + " columns when projected, parsed " + columns);
+				}
+			}
+		}
+	}
+
+	//*****************************************
+	//*****************************************
+	//            Utility Methods
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Compares a parsed value against the value returned by Double.parseDouble.
+	 * @param version the version of the parser tested.
+	 * @param s the string parsed.
+	 * @param expected the value returned by Double.parseDouble, or null if it threw an exception.
+	 * @param valid true if the parser accepted the string.
+	 * @param actual the value returned by the parser.
+	 */
+	private static void compare(String version, String s, Double expected, boolean valid, double actual)
+	{
+		boolean same;
+
+		if(expected == null)
+			same = !valid && actual == 42;
+		else
+			same = valid && Double.doubleToLongBits(actual) == Double.doubleToLongBits(expected);
+
+		if(!same)
+		{
+			failures++;
+			print(version + " \"" + s + "\": expected " + (expected == null ? "invalid" : expected)
+					+ ", parsed " + (valid ? Double.toString(actual) : "invalid"));
+		}
+	}
+
+	/**
+	 * @param rand the random number generator.
+	 * @return a random decimal number, with a random number of digits, exponent,
+	 * sign, white space and suffix.
+	 */
+	private static String randomDecimal(Random rand)
+	{
+		StringBuilder builder = new StringBuilder();
+
+		if(rand.nextInt(8) == 0)
+			builder.append(' ');
+		if(rand.nextInt(3) == 0)
+			builder.append(rand.nextBoolean() ? '-' : '+');
+
+		appendDigits(builder, rand, rand.nextInt(4) == 0 ? rand.nextInt(30) : rand.nextInt(8));
+
+		if(rand.nextBoolean())
+		{
+			builder.append('.');
+			appendDigits(builder, rand, rand.nextInt(4) == 0 ? rand.nextInt(30) : rand.nextInt(10));
+		}
+
+		if(rand.nextInt(3) == 0)
+		{
+			builder.append(rand.nextBoolean() ? 'e' : 'E');
+			if(rand.nextBoolean())
+				builder.append(rand.nextBoolean() ? '-' : '+');
+			appendDigits(builder, rand, rand.nextInt(4));
+		}
+
+		if(rand.nextInt(10) == 0)
+			builder.append("fFdD".charAt(rand.nextInt(4)));
+		if(rand.nextInt(8) == 0)
+			builder.append('\t');
+
+		return builder.toString();
+	}
+
+	/**
+	 * Appends random digits, favouring zeros and nines as these exercise rounding.
+	 * @param builder the builder to append to.
+	 * @param rand the random number generator.
+	 * @param n the number of digits.
+	 */
+	private static void appendDigits(StringBuilder builder, Random rand, int n)
+	{
+		for(int i = 0; i < n; i++)
+		{
+			int r = rand.nextInt(14);
+			builder.append(r < 10 ? (char)('0' + r) : r < 12 ? '0' : '9');
+		}
+	}
+
+	/**
+	 * @param rand the random number generator.
+	 * @return a short random string of characters that can appear in numbers.
+	 */
+	private static String randomString(Random rand)
+	{
+		int n = rand.nextInt(10);
+		StringBuilder builder = new StringBuilder();
+
+		for(int i = 0; i < n; i++)
+			builder.append(ALPHABET.charAt(rand.nextInt(ALPHABET.length())));
+
+		return builder.toString();
+	}
+
+	/**
+	 * Simple wrapper for standard out.
+	 * @param msg the string message to print out.
+	 */
+	private static void print(String msg) { System.out.println(msg); }
+}
@@ -0,0 +1,265 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	TreeBenchmark.java
+ * Package: cs.man.ac.uk.test
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import cs.man.ac.uk.classifier.GHVFDT;
+import cs.man.ac.uk.data.DenseInstance;
+import cs.man.ac.uk.data.I_Instance;
+import cs.man.ac.uk.tree.CompiledTree;
+
+/**
+ * Measures the per-instance CPU cost and allocation of training a GHVFDT, and
+ * of predicting with the trained tree, both with the live tree and with a
+ * {@link CompiledTree} snapshot of it. The instances are created before each
+ * run, so only the work done by the tree is measured.
+ */
+public class TreeBenchmark
+{
+	//*****************************************
+	//*****************************************
+	//              Variables
+	//*****************************************
+	//*****************************************
+
+	// Benchmark variables, change as appropriate.
+
+	/**
+	 * The number of instances trained on, and predicted, per run.
+	 */
+	private static int instances = 1000000;
+
+	/**
+	 * The number of features per instance.
+	 */
+	private static int features = 8;
+
+	/**
+	 * The number of runs used to warm up the JIT before measuring.
+	 */
+	private static int warmUpRuns = 3;
+
+	/**
+	 * Used to measure thread CPU time and allocation.
+	 */
+	private static ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	/**
+	 * Prevents the JIT from eliminating the benchmark loops.
+	 */
+	private static double sink = 0;
+
+	//*****************************************
+	//*****************************************
+	//    Main method that runs the benchmark
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Runs the benchmark.
+	 * @param args optionally the number of instances.
+	 */
+	public static void main(String[] args)
+	{
+		if(args.length > 0)
+			instances = Integer.parseInt(args[0]);
+
+		// A minority class whose features are shifted, so that the tree grows.
+		Random rand = new Random(42);
+		I_Instance[] data = new I_Instance[instances];
+
+		for(int i = 0; i < instances; i++)
+		{
+			int label = rand.nextDouble() < 0.1 ? 1 : 0;
+			double[] row = new double[features + 1];
+
+			for(int j = 0; j < features; j++)
+				row[j] = rand.nextGaussian() + label * (j % 3);
+
+			row[features] = label;
+			data[i] = new DenseInstance(row, features, label);
+		}
+
+		GHVFDT tree = null;
+
+		for(int i = 0; i < warmUpRuns; i++)
+			tree = train(data, new double[2]);
+
+		double[] result = new double[2];
+		tree = train(data, result);
+		CompiledTree compiled = tree.compile();
+
+		print("Instances: " + instances + ", features: " + features + compiled.toString());
+		report("trainOnInstance", result);
+
+		for(int i = 0; i < warmUpRuns; i++)
+		{
+			predict(tree, data);
+			classify(tree, data);
+			classify(compiled, data);
+		}
+
+		report("predict", predict(tree, data));
+		report("classify", classify(tree, data));
+		report("compiled classify", classify(compiled, data));
+
+		print("(sink " + sink + ")");
+	}
+
+	//*****************************************
+	//*****************************************
+	//    			BENCHMARKS
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Trains a new tree on every instance.
+	 * @param data the instances.
+	 * @param result written with the CPU time (ns) and bytes allocated, per instance.
+	 * @return the trained tree.
+	 */
+	private static GHVFDT train(I_Instance[] data, double[] result)
+	{
+		GHVFDT tree = new GHVFDT();
+		tree.resetLearning();
+
+		long[] start = sample();
+
+		for(int i = 0; i < data.length; i++)
+			tree.trainOnInstance(data[i]);
+
+		System.arraycopy(perInstance(start, data.length), 0, result, 0, 2);
+		return tree;
+	}
+
+	/**
+	 * Gets the votes of the live tree for every instance.
+	 * @param tree the tree.
+	 * @param data the instances.
+	 * @return the CPU time (ns) and bytes allocated, per instance.
+	 */
+	private static double[] predict(GHVFDT tree, I_Instance[] data)
+	{
+		long[] start = sample();
+		double sum = 0;
+
+		for(int i = 0; i < data.length; i++)
+			sum += tree.predict(data[i])[0];
+
+		sink += sum;
+		return perInstance(start, data.length);
+	}
+
+	/**
+	 * Classifies every instance with the live tree.
+	 * @param tree the tree.
+	 * @param data the instances.
+	 * @return the CPU time (ns) and bytes allocated, per instance.
+	 */
+	private static double[] classify(GHVFDT tree, I_Instance[] data)
+	{
+		long[] start = sample();
+		int sum = 0;
+
+		for(int i = 0; i < data.length; i++)
+			sum += tree.classify(data[i]);
+
+		sink += sum;
+		return perInstance(start, data.length);
+	}
+
+	/**
+	 * Classifies every instance with a compiled tree.
+	 * @param tree the compiled tree.
+	 * @param data the instances.
+	 * @return the CPU time (ns) and bytes allocated, per instance.
+	 */
+	private static double[] classify(CompiledTree tree, I_Instance[] data)
+	{
+		long[] start = sample();
+		int sum = 0;
+
+		for(int i = 0; i < data.length; i++)
+			sum += tree.classify(data[i]);
+
+		sink += sum;
+		return perInstance(start, data.length);
+	}
+
+	//*****************************************
+	//*****************************************
+	//            Utility Methods
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * @return the current thread CPU time (ns) and bytes allocated by the current thread.
+	 */
+	private static long[] sample()
+	{
+		return new long[]{ threads.getCurrentThreadCpuTime(), allocatedBytes() };
+	}
+
+	/**
+	 * Computes the CPU time and allocation per instance since the supplied sample.
+	 * @param start the sample taken at the start of the run.
+	 * @param n the number of instances processed.
+	 * @return the CPU time (ns) and bytes allocated, per instance.
+	 */
+	private static double[] perInstance(long[] start, int n)
+	{
+		long[] end = sample();
+		return new double[]{ (double)(end[0] - start[0]) / n, (double)(end[1] - start[1]) / n };
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread, or -1 if the JVM
+	 * does not support measuring allocation.
+	 */
+	private static long allocatedBytes()
+	{
+		if(threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		else
+			return -1;
+	}
+
+	/**
+	 * Prints the result of a single benchmark.
+	 * @param name the name of the operation benchmarked.
+	 * @param result the CPU time (ns) and bytes allocated, per instance.
+	 */
+	private static void report(String name, double[] result)
+	{
+		print("\t" + name + ":\t" + String.format("%.1f", result[0]) + " ns/instance\t"
+				+ String.format("%.1f", result[1]) + " bytes/instance");
+	}
+
+	/**
+	 * Simple wrapper for standard out.
+	 * @param msg the string message to print out.
+	 */
+	private static void print(String msg) { System.out.println(msg); }
+}
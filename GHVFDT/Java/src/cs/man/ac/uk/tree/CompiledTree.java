@@ -0,0 +1,664 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	CompiledTree.java
+ * Package: cs.man.ac.uk.tree
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import cs.man.ac.uk.data.ColumnarDataset;
+import cs.man.ac.uk.data.I_Instance;
+import cs.man.ac.uk.data.InstanceBlock;
+import cs.man.ac.uk.split.NumericAttributeBinaryTest;
+import cs.man.ac.uk.tree.nodes.Node;
+import cs.man.ac.uk.tree.nodes.SplitNode;
+import cs.man.ac.uk.utils.PoolUtils;
+
+/**
+ * A read-only snapshot of a tree, flattened in to parallel primitive arrays for
+ * fast prediction. Nodes are numbered in breadth-first order from the root, which
+ * is node zero. For each node the arrays hold the index of the value tested, the
+ * split value, and the index of its first child; the second child always follows
+ * the first. The class votes of every node are held in a single table.
+ *
+ * Finding the node an instance reaches is a loop over these arrays, with no
+ * objects created and no virtual calls other than reading the instance values.
+ * Predictions are exactly those the tree made when it was compiled:
+ * <ul>
+ * <li>an instance missing the value tested at a split stops there, and takes the
+ * votes of the split node.</li>
+ * <li>a branch of a split that has not yet been reached by any training instance
+ * takes the votes of the split node.</li>
+ * </ul>
+ * The snapshot is not changed by further training, and may be shared between threads.
+ * Whole blocks and data sets can be scored in parallel on a fork-join pool, see
+ * {@link #predict(ColumnarDataset, int, int[], double[], ForkJoinPool)}.
+ */
+public class CompiledTree
+{
+	//*****************************************
+	//*****************************************
+	//              Variables
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * The number of rows below which a batch is scored by a single task.
+	 */
+	private static final int BATCH_GRAIN = 4096;
+
+	/**
+	 * The index of the value tested by each split node, i.e. the index passed to
+	 * {@link I_Instance#value(int)}.
+	 */
+	private final int[] attribute;
+
+	/**
+	 * The value each split node compares the tested value to.
+	 */
+	private final double[] threshold;
+
+	/**
+	 * True for each split node where values equal to the threshold take the first branch.
+	 */
+	private final boolean[] equalsFirst;
+
+	/**
+	 * The index of the first child of each node, else -1 for leaves.
+	 */
+	private final int[] firstChild;
+
+	/**
+	 * The class votes of every node, one after another.
+	 */
+	private final double[] votes;
+
+	/**
+	 * The index of the first vote of each node in the vote table, with an extra
+	 * entry marking the end of the table.
+	 */
+	private final int[] voteOffset;
+
+	/**
+	 * The class with the most votes at each node.
+	 */
+	private final int[] majority;
+
+	/**
+	 * The largest number of classes voted for at any node.
+	 */
+	private final int classCount;
+
+	/**
+	 * The largest index of a value tested by any split, else -1 if there are no splits.
+	 */
+	private final int maxAttribute;
+
+	//*****************************************
+	//*****************************************
+	//              Constructor
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Compiles the tree below a node.
+	 * @param root the root of the tree, may be null if the tree has not been initialized.
+	 * @throws UnsupportedOperationException if the tree contains a split other than a
+	 * {@link NumericAttributeBinaryTest}.
+	 */
+	public CompiledTree(Node root)
+	{
+		// Breadth-first order, children that have not been created yet are null
+		// and are represented by the split node above them.
+		List<Node> order = new ArrayList<Node>();
+		List<Node> votingNode = new ArrayList<Node>();
+
+		if(root != null)
+		{
+			order.add(root);
+			votingNode.add(root);
+		}
+
+		int[] first = new int[Math.max(order.size(), 16)];
+
+		for(int i = 0; i < order.size(); i++)
+		{
+			if(i == first.length)
+				first = Arrays.copyOf(first, first.length * 2);
+
+			Node node = order.get(i);
+
+			if(node == null || node.isLeaf())
+			{
+				first[i] = -1;
+				continue;
+			}
+
+			SplitNode split = (SplitNode) node;
+
+			if(!(split.getSplitTest() instanceof NumericAttributeBinaryTest))
+				throw new UnsupportedOperationException("Only numeric binary splits can be compiled, found " + split.getSplitTest().getClass().getName());
+
+			first[i] = order.size();
+
+			for(int branch = 0; branch < 2; branch++)
+			{
+				Node child = split.getChild(branch);
+				order.add(child);
+				votingNode.add(child == null ? split : child);
+			}
+		}
+
+		int count = order.size();
+		this.firstChild = Arrays.copyOf(first, count);
+		this.attribute = new int[count];
+		this.threshold = new double[count];
+		this.equalsFirst = new boolean[count];
+		this.voteOffset = new int[count + 1];
+		this.majority = new int[count];
+
+		double[][] nodeVotes = new double[count][];
+		int classes = 0;
+
+		for(int i = 0; i < count; i++)
+		{
+			if(this.firstChild[i] >= 0)
+			{
+				NumericAttributeBinaryTest test = (NumericAttributeBinaryTest) ((SplitNode) order.get(i)).getSplitTest();
+				this.attribute[i] = test.getInstanceAttIndex();
+				this.threshold[i] = test.getAttValue();
+				this.equalsFirst[i] = test.equalsPassesTest();
+			}
+
+			nodeVotes[i] = votingNode.get(i).getObservedClassDistribution();
+			this.voteOffset[i + 1] = this.voteOffset[i] + nodeVotes[i].length;
+			this.majority[i] = maxIndex(nodeVotes[i]);
+			classes = Math.max(classes, nodeVotes[i].length);
+		}
+
+		this.votes = new double[this.voteOffset[count]];
+
+		for(int i = 0; i < count; i++)
+			System.arraycopy(nodeVotes[i], 0, this.votes, this.voteOffset[i], nodeVotes[i].length);
+
+		this.classCount = classes;
+
+		int max = -1;
+		for(int i = 0; i < count; i++)
+			if(this.firstChild[i] >= 0)
+				max = Math.max(max, this.attribute[i]);
+
+		this.maxAttribute = max;
+	}
+
+	//*****************************************
+	//*****************************************
+	//              Methods
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Finds the node whose votes are used to classify an instance.
+	 * @param inst the instance.
+	 * @return the index of the node, else -1 if the tree is empty.
+	 */
+	public int nodeFor(I_Instance inst)
+	{
+		if(this.firstChild.length == 0)
+			return -1;
+
+		int node = 0;
+		int child;
+
+		while((child = this.firstChild[node]) >= 0)
+		{
+			double v = inst.value(this.attribute[node]);
+
+			if(Double.isNaN(v)) // Missing values stop at the split.
+				break;
+
+			double t = this.threshold[node];
+			node = (v < t || (v == t && this.equalsFirst[node])) ? child : child + 1;
+		}
+
+		return node;
+	}
+
+	/**
+	 * Finds the node whose votes are used to classify a row of feature values.
+	 * @param values the feature values, laid out as in the array backing a
+	 * {@link cs.man.ac.uk.data.DenseInstance}.
+	 * @return the index of the node, else -1 if the tree is empty.
+	 */
+	public int nodeFor(double[] values) { return nodeFor(values, 0); }
+
+	/**
+	 * Finds the node whose votes are used to classify a row of a block, or of any
+	 * row-major array of feature values.
+	 * @param values the feature values of every row, row-major.
+	 * @param offset the index of the first feature value of the row.
+	 * @return the index of the node, else -1 if the tree is empty.
+	 */
+	private int nodeFor(double[] values, int offset)
+	{
+		if(this.firstChild.length == 0)
+			return -1;
+
+		int node = 0;
+		int child;
+
+		while((child = this.firstChild[node]) >= 0)
+		{
+			double v = values[offset + this.attribute[node]];
+
+			if(Double.isNaN(v)) // Missing values stop at the split.
+				break;
+
+			double t = this.threshold[node];
+			node = (v < t || (v == t && this.equalsFirst[node])) ? child : child + 1;
+		}
+
+		return node;
+	}
+
+	/**
+	 * Finds the node whose votes are used to classify a row of a data set.
+	 * @param data the data set.
+	 * @param row the row.
+	 * @return the index of the node, else -1 if the tree is empty.
+	 */
+	private int nodeFor(ColumnarDataset data, int row)
+	{
+		if(this.firstChild.length == 0)
+			return -1;
+
+		int node = 0;
+		int child;
+
+		while((child = this.firstChild[node]) >= 0)
+		{
+			double v = data.value(row, this.attribute[node]);
+
+			if(Double.isNaN(v)) // Missing values stop at the split.
+				break;
+
+			double t = this.threshold[node];
+			node = (v < t || (v == t && this.equalsFirst[node])) ? child : child + 1;
+		}
+
+		return node;
+	}
+
+	/**
+	 * Gets the votes for each class, as {@link cs.man.ac.uk.classifier.GHVFDT#predict(I_Instance)}
+	 * did when the tree was compiled.
+	 * @param inst the instance to classify.
+	 * @return a new array of the votes for each class, empty if the tree is empty.
+	 */
+	public double[] predict(I_Instance inst) { return votesOf(nodeFor(inst)); }
+
+	/**
+	 * Gets the votes for each class for a row of feature values.
+	 * @param values the feature values.
+	 * @return a new array of the votes for each class, empty if the tree is empty.
+	 */
+	public double[] predict(double[] values) { return votesOf(nodeFor(values)); }
+
+	/**
+	 * Writes the votes for each class for a row of feature values in to an array,
+	 * without creating any objects.
+	 * @param values the feature values.
+	 * @param out the array to write to, entries beyond the votes written are set to zero.
+	 * @return the number of classes voted for, which may exceed the number of votes
+	 * written if the array is too short, zero if the tree is empty.
+	 */
+	public int predictInto(double[] values, double[] out)
+	{
+		int node = nodeFor(values);
+		int classes = node < 0 ? 0 : this.voteOffset[node + 1] - this.voteOffset[node];
+		int n = Math.min(classes, out.length);
+
+		if(n > 0)
+			System.arraycopy(this.votes, this.voteOffset[node], out, 0, n);
+
+		Arrays.fill(out, n, out.length, 0.0);
+		return classes;
+	}
+
+	/**
+	 * @param inst the instance to classify.
+	 * @return the class with the most votes, zero if the tree is empty.
+	 */
+	public int classify(I_Instance inst)
+	{
+		int node = nodeFor(inst);
+		return node < 0 ? 0 : this.majority[node];
+	}
+
+	/**
+	 * @param values the feature values to classify.
+	 * @return the class with the most votes, zero if the tree is empty.
+	 */
+	public int classify(double[] values)
+	{
+		int node = nodeFor(values);
+		return node < 0 ? 0 : this.majority[node];
+	}
+
+	/**
+	 * Classifies every row of a block, and/or scores every row by the fraction of
+	 * votes for one class, on a fork-join pool. The block is split in to ranges of
+	 * rows scored in parallel; no objects are created per row.
+	 * @param block the rows to classify.
+	 * @param positiveClass the class whose fraction of the votes is the score.
+	 * @param labels written with the class of each row, may be null.
+	 * @param scores written with the score of each row, may be null.
+	 * @param pool the pool to score on, may be null to use the default pool.
+	 * @throws IllegalArgumentException if the rows have too few features for the tree,
+	 * or an output array is shorter than the block.
+	 */
+	public void predict(InstanceBlock block, int positiveClass, int[] labels, double[] scores, ForkJoinPool pool)
+	{
+		if(block.size() > 0 && block.getFeatureCount() <= this.maxAttribute)
+			throw new IllegalArgumentException("The block has " + block.getFeatureCount() + " features, the tree tests feature " + this.maxAttribute + ".");
+
+		run(new BatchTask(block, null, 0, block.size(), labels, scores, nodeScores(positiveClass, scores)), labels, scores, pool);
+	}
+
+	/**
+	 * Classifies every row of a data set, and/or scores every row by the fraction of
+	 * votes for one class, on a fork-join pool. The data set is split in to ranges of
+	 * rows scored in parallel; no objects are created per row.
+	 * @param data the rows to classify.
+	 * @param positiveClass the class whose fraction of the votes is the score.
+	 * @param labels written with the class of each row, may be null.
+	 * @param scores written with the score of each row, may be null.
+	 * @param pool the pool to score on, may be null to use the default pool.
+	 * @throws IllegalArgumentException if the rows have too few features for the tree,
+	 * or an output array is shorter than the data set.
+	 */
+	public void predict(ColumnarDataset data, int positiveClass, int[] labels, double[] scores, ForkJoinPool pool)
+	{
+		if(data.size() > 0 && data.getFeatureCount() <= this.maxAttribute)
+			throw new IllegalArgumentException("The data set has " + data.getFeatureCount() + " features, the tree tests feature " + this.maxAttribute + ".");
+
+		run(new BatchTask(null, data, 0, data.size(), labels, scores, nodeScores(positiveClass, scores)), labels, scores, pool);
+	}
+
+	/**
+	 * @param block the rows to classify.
+	 * @param pool the pool to classify on, may be null to use the default pool.
+	 * @return the class of each row.
+	 */
+	public int[] classify(InstanceBlock block, ForkJoinPool pool)
+	{
+		int[] labels = new int[block.size()];
+		predict(block, 0, labels, null, pool);
+		return labels;
+	}
+
+	/**
+	 * @param data the rows to classify.
+	 * @param pool the pool to classify on, may be null to use the default pool.
+	 * @return the class of each row.
+	 */
+	public int[] classify(ColumnarDataset data, ForkJoinPool pool)
+	{
+		int[] labels = new int[data.size()];
+		predict(data, 0, labels, null, pool);
+		return labels;
+	}
+
+	/**
+	 * @param block the rows to score.
+	 * @param positiveClass the class whose fraction of the votes is the score.
+	 * @param pool the pool to score on, may be null to use the default pool.
+	 * @return the score of each row.
+	 */
+	public double[] score(InstanceBlock block, int positiveClass, ForkJoinPool pool)
+	{
+		double[] scores = new double[block.size()];
+		predict(block, positiveClass, null, scores, pool);
+		return scores;
+	}
+
+	/**
+	 * @param data the rows to score.
+	 * @param positiveClass the class whose fraction of the votes is the score.
+	 * @param pool the pool to score on, may be null to use the default pool.
+	 * @return the score of each row.
+	 */
+	public double[] score(ColumnarDataset data, int positiveClass, ForkJoinPool pool)
+	{
+		double[] scores = new double[data.size()];
+		predict(data, positiveClass, null, scores, pool);
+		return scores;
+	}
+
+	/**
+	 * Checks the outputs of a batch are large enough, then runs it, on the calling
+	 * thread if it is small enough to be a single task.
+	 * @param task the task scoring every row of the batch.
+	 * @param labels the labels written, may be null.
+	 * @param scores the scores written, may be null.
+	 * @param pool the pool to run on, may be null.
+	 */
+	private void run(BatchTask task, int[] labels, double[] scores, ForkJoinPool pool)
+	{
+		if((labels != null && labels.length < task.to) || (scores != null && scores.length < task.to))
+			throw new IllegalArgumentException("The output arrays must hold at least " + task.to + " rows.");
+
+		if(task.to <= BATCH_GRAIN)
+			task.compute();
+		else
+			PoolUtils.orDefault(pool).invoke(task);
+	}
+
+	/**
+	 * Computes the score of every node, i.e. the fraction of its votes for a class.
+	 * @param positiveClass the class scored.
+	 * @param scores the scores to be written, no node scores are needed if null.
+	 * @return the score of each node, else null if not needed.
+	 */
+	private double[] nodeScores(int positiveClass, double[] scores)
+	{
+		if(scores == null)
+			return null;
+
+		double[] nodeScores = new double[this.firstChild.length];
+
+		for(int i = 0; i < nodeScores.length; i++)
+		{
+			int start = this.voteOffset[i], classes = this.voteOffset[i + 1] - start;
+			double sum = 0;
+
+			for(int c = 0; c < classes; c++)
+				sum += this.votes[start + c];
+
+			if(sum > 0 && positiveClass >= 0 && positiveClass < classes)
+				nodeScores[i] = this.votes[start + positiveClass] / sum;
+		}
+
+		return nodeScores;
+	}
+
+	/**
+	 * @param node the index of a node.
+	 * @return a new array of the votes for each class at the node, empty if the index is -1.
+	 */
+	public double[] votesOf(int node)
+	{
+		if(node < 0)
+			return new double[0];
+
+		return Arrays.copyOfRange(this.votes, this.voteOffset[node], this.voteOffset[node + 1]);
+	}
+
+	/**
+	 * @param node the index of a node.
+	 * @return true if the node is a leaf, including the branches not yet reached by training.
+	 */
+	public boolean isLeaf(int node) { return this.firstChild[node] < 0; }
+
+	/**
+	 * @return the number of nodes, including the branches not yet reached by training.
+	 */
+	public int numNodes() { return this.firstChild.length; }
+
+	/**
+	 * @return the largest number of classes voted for at any node.
+	 */
+	public int numClasses() { return this.classCount; }
+
+	/**
+	 * Returns the index of the largest value, the first if several are equal,
+	 * as {@link cs.man.ac.uk.classifier.Classifier#maxIndex(double[])} does.
+	 * @param doubles the values.
+	 * @return the index of the largest value, zero if there are none.
+	 */
+	private static int maxIndex(double[] doubles)
+	{
+		double maximum = 0;
+		int maxIndex = 0;
+
+		for (int i = 0; i < doubles.length; i++)
+			if ((i == 0) || (doubles[i] > maximum))
+			{
+				maxIndex = i;
+				maximum = doubles[i];
+			}
+
+		return maxIndex;
+	}
+
+	/**
+	 * Scores a range of rows of a block or data set, splitting the range in two
+	 * until it is small enough to score directly.
+	 */
+	private class BatchTask extends RecursiveAction
+	{
+		/**
+		 * Required for serialization.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The block scored, else null if a data set is scored.
+		 */
+		private final InstanceBlock block;
+
+		/**
+		 * The data set scored, else null if a block is scored.
+		 */
+		private final ColumnarDataset data;
+
+		/**
+		 * The first row of the range.
+		 */
+		private final int from;
+
+		/**
+		 * The row after the last row of the range.
+		 */
+		private final int to;
+
+		/**
+		 * Written with the class of each row, may be null.
+		 */
+		private final int[] labels;
+
+		/**
+		 * Written with the score of each row, may be null.
+		 */
+		private final double[] scores;
+
+		/**
+		 * The score of each node, null if no scores are written.
+		 */
+		private final double[] nodeScores;
+
+		/**
+		 * @param block the block scored, else null.
+		 * @param data the data set scored, else null.
+		 * @param from the first row of the range.
+		 * @param to the row after the last row of the range.
+		 * @param labels written with the class of each row, may be null.
+		 * @param scores written with the score of each row, may be null.
+		 * @param nodeScores the score of each node, null if no scores are written.
+		 */
+		BatchTask(InstanceBlock block, ColumnarDataset data, int from, int to, int[] labels, double[] scores, double[] nodeScores)
+		{
+			this.block = block;
+			this.data = data;
+			this.from = from;
+			this.to = to;
+			this.labels = labels;
+			this.scores = scores;
+			this.nodeScores = nodeScores;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute()
+		{
+			if(this.to - this.from > BATCH_GRAIN)
+			{
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new BatchTask(this.block, this.data, this.from, middle, this.labels, this.scores, this.nodeScores),
+						new BatchTask(this.block, this.data, middle, this.to, this.labels, this.scores, this.nodeScores));
+				return;
+			}
+
+			double[] values = this.block == null ? null : this.block.getValues();
+			int width = this.block == null ? 0 : this.block.getFeatureCount();
+
+			for(int row = this.from; row < this.to; row++)
+			{
+				int node = this.block != null ? nodeFor(values, row * width) : nodeFor(this.data, row);
+
+				if(this.labels != null)
+					this.labels[row] = node < 0 ? 0 : majority[node];
+
+				if(this.scores != null)
+					this.scores[row] = node < 0 ? 0 : this.nodeScores[node];
+			}
+		}
+	}
+
+	/**
+	 * Over-ridden toString method.
+	 * @return a string describing this class.
+	 */
+	public String toString()
+	{
+		int leaves = 0;
+		for(int i = 0; i < this.firstChild.length; i++)
+			if(this.firstChild[i] < 0)
+				leaves++;
+
+		return "\nNodes:\t" + this.firstChild.length + "\nLeaves:\t" + leaves + "\nClasses:\t" + this.classCount + "\n";
+	}
+}
@@ -106,6 +106,13 @@ public interface Tree
 	 *	Tree utility methods
 	 */
 	
+	/**
+	 * Snapshots the tree in to a flat, read-only form for fast prediction. The
+	 * snapshot makes the same predictions as the tree, until the tree is trained further.
+	 * @return the compiled tree.
+	 */
+	public CompiledTree compile();
+	
 	/**
 	 * @return a new learning node capable of making predictions.
 	 */
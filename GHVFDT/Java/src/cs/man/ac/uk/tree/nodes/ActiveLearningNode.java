@@ -30,10 +30,12 @@ import java.util.List;
 
 import cs.man.ac.uk.classifier.GHVFDT;
 import cs.man.ac.uk.data.I_Instance;
+import cs.man.ac.uk.data.SparseInstance;
 import cs.man.ac.uk.observers.AttributeClassObserver;
 import cs.man.ac.uk.split.AttributeSplitSuggestion;
 import cs.man.ac.uk.split.SplitCriterion;
 import cs.man.ac.uk.utils.AutoExpandVector;
+import cs.man.ac.uk.utils.DoubleVector;
 
 /**
  * The main learning node object within the GHVFDT.
@@ -64,6 +66,23 @@ public class ActiveLearningNode extends LearningNode
 	 */
 	protected boolean isInitialized;
 
+	/**
+	 * The weight per class of sparse instances whose zero values have not yet been
+	 * passed to the attribute observers, or null if there are none.
+	 */
+	protected DoubleVector unsettledWeight = null;
+
+	/**
+	 * The weight per class of the unsettled sparse instances that each attribute has
+	 * observed a stored value for. The remaining weight has the value zero.
+	 */
+	protected AutoExpandVector<DoubleVector> unsettledObserved = null;
+
+	/**
+	 * The largest number of attributes possessed by the unsettled sparse instances.
+	 */
+	protected int unsettledAttributes = 0;
+
 	//*****************************************
 	//*****************************************
 	//              Constructor
@@ -117,10 +136,20 @@ public class ActiveLearningNode extends LearningNode
 	{
 		if (this.isInitialized == false) 
 		{
-			this.attributeObservers = new AutoExpandVector<AttributeClassObserver>(inst.numAttributes());
+			// Sparse instances may have too many attributes to allocate space for all of them.
+			this.attributeObservers = inst instanceof SparseInstance ? new AutoExpandVector<AttributeClassObserver>()
+					: new AutoExpandVector<AttributeClassObserver>(inst.numAttributes());
 			this.isInitialized = true;
 		}
 
+		if (inst instanceof SparseInstance)
+		{
+			learnFromSparseInstance((SparseInstance) inst, ht);
+			return;
+		}
+
+		settleZeroValues(ht);
+
 		this.observedClassDistribution.addToValue((int) inst.classValue(),inst.weight());
 
 		for (int i = 0; i < inst.numAttributes() - 1; i++)
@@ -137,6 +166,128 @@ public class ActiveLearningNode extends LearningNode
 		}
 	}
 
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.tree.nodes.LearningNode#learnFromValues(double[], int, int, double, cs.man.ac.uk.classifier.GHVFDT)
+	 */
+	@Override
+	public void learnFromValues(double[] values, int n, int label, double weight, GHVFDT ht)
+	{
+		if (this.isInitialized == false) 
+		{
+			this.attributeObservers = new AutoExpandVector<AttributeClassObserver>(n);
+			this.isInitialized = true;
+		}
+
+		settleZeroValues(ht);
+
+		this.observedClassDistribution.addToValue(label,weight);
+
+		// As for instances, the last attribute is not observed.
+		for (int i = 0; i < n - 1; i++)
+		{
+			AttributeClassObserver obs = this.attributeObservers.get(i);
+
+			if (obs == null)
+			{
+				obs =  ht.newNumericClassObserver();
+				this.attributeObservers.set(i, obs);
+			}
+
+			obs.observeAttributeClass(values[i], label, weight);
+		}
+	}
+
+	/**
+	 * Learns from a sparse instance, passing only the stored values to the attribute
+	 * observers, so the cost grows with the number of non-zero values rather than the
+	 * number of attributes. The zero values are passed on in bulk, by
+	 * {@link #settleZeroValues(GHVFDT)}, before the observers are next used.
+	 * @param inst the sparse instance to learn from.
+	 * @param ht the GHVFDT this node belongs to.
+	 */
+	protected void learnFromSparseInstance(SparseInstance inst, GHVFDT ht)
+	{
+		int classValue = (int) inst.classValue();
+		double weight = inst.weight();
+
+		this.observedClassDistribution.addToValue(classValue, weight);
+
+		if (this.unsettledWeight == null)
+		{
+			this.unsettledWeight = new DoubleVector();
+			this.unsettledObserved = new AutoExpandVector<DoubleVector>();
+		}
+
+		this.unsettledWeight.addToValue(classValue, weight);
+		this.unsettledAttributes = Math.max(this.unsettledAttributes, inst.numAttributes());
+
+		// As for dense instances, the last attribute is not observed.
+		for (int j = 0; j < inst.numValues() && inst.index(j) < inst.numAttributes() - 1; j++)
+		{
+			int i = inst.index(j);
+			AttributeClassObserver obs = this.attributeObservers.get(i);
+
+			if (obs == null)
+			{
+				obs =  ht.newNumericClassObserver();
+				this.attributeObservers.set(i, obs);
+			}
+
+			obs.observeAttributeClass(inst.valueSparse(j), classValue, weight);
+
+			DoubleVector observed = this.unsettledObserved.get(i);
+
+			if (observed == null)
+			{
+				observed = new DoubleVector();
+				this.unsettledObserved.set(i, observed);
+			}
+
+			observed.addToValue(classValue, weight);
+		}
+	}
+
+	/**
+	 * Passes the zero values of the sparse instances learnt from since this was last
+	 * called to the attribute observers. For each attribute and class, the zeros are
+	 * observed once, with the combined weight of the instances that did not store a
+	 * value for the attribute. This gives the same statistics as observing each zero
+	 * separately, up to floating point rounding.
+	 * @param ht the GHVFDT this node belongs to.
+	 */
+	protected void settleZeroValues(GHVFDT ht)
+	{
+		if (this.unsettledWeight == null)
+			return;
+
+		for (int i = 0; i < this.unsettledAttributes - 1; i++)
+		{
+			DoubleVector observed = this.unsettledObserved.get(i);
+
+			for (int c = 0; c < this.unsettledWeight.numValues(); c++)
+			{
+				double zeroWeight = this.unsettledWeight.getValue(c) - (observed == null ? 0.0 : observed.getValue(c));
+
+				if (zeroWeight > 0.0)
+				{
+					AttributeClassObserver obs = this.attributeObservers.get(i);
+
+					if (obs == null)
+					{
+						obs =  ht.newNumericClassObserver();
+						this.attributeObservers.set(i, obs);
+					}
+
+					obs.observeAttributeClass(0.0, c, zeroWeight);
+				}
+			}
+		}
+
+		this.unsettledWeight = null;
+		this.unsettledObserved = null;
+		this.unsettledAttributes = 0;
+	}
+
 	/**
 	 * Gets the best split point suggestions at this node.
 	 * @param criterion the split criterion used ( Hellinger distance).
@@ -145,6 +296,8 @@ public class ActiveLearningNode extends LearningNode
 	 */
 	public AttributeSplitSuggestion[] getBestSplitSuggestions(SplitCriterion criterion, GHVFDT ht)
 	{
+		settleZeroValues(ht);
+
 		List<AttributeSplitSuggestion> bestSuggestions = new LinkedList<AttributeSplitSuggestion>();
 		double[] preSplitDist = this.observedClassDistribution.getArrayCopy();
 
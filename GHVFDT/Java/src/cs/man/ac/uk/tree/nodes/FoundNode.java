@@ -76,4 +76,30 @@ public class FoundNode
 		this.parent = parent;
 		this.parentBranch = parentBranch;
 	}
+
+	/**
+	 * Creates an empty result, to be filled by {@link Node#findLeaf(Node, cs.man.ac.uk.data.I_Instance, FoundNode)}.
+	 */
+	public FoundNode() { this(null, null, -1); }
+
+	//*****************************************
+	//*****************************************
+	//              Methods
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Overwrites this result, so that it can be re-used by each search.
+	 * @param node the node found.
+	 * @param parent the parent of the node found.
+	 * @param parentBranch the index of the node in the parent.
+	 * @return this result.
+	 */
+	public FoundNode set(Node node, SplitNode parent, int parentBranch) 
+	{
+		this.node = node;
+		this.parent = parent;
+		this.parentBranch = parentBranch;
+		return this;
+	}
 }
\ No newline at end of file
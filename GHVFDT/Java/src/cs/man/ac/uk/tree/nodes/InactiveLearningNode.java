@@ -51,4 +51,13 @@ public class InactiveLearningNode extends LearningNode
 	{
 		this.observedClassDistribution.addToValue((int) inst.classValue(),inst.weight());
 	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.tree.nodes.LearningNode#learnFromValues(double[], int, int, double, cs.man.ac.uk.classifier.GHVFDT)
+	 */
+	@Override
+	public void learnFromValues(double[] values, int n, int label, double weight, GHVFDT ht) 
+	{
+		this.observedClassDistribution.addToValue(label,weight);
+	}
 }
@@ -48,4 +48,15 @@ public abstract class LearningNode extends Node
 	 * @param ht the tree the node belongs to.
 	 */
 	public abstract void learnFromInstance(I_Instance inst,GHVFDT ht);
+
+	/**
+	 * Attempts to learn from a row of feature values, in the same way as from an
+	 * instance holding the same values and weight.
+	 * @param values the feature values of the row.
+	 * @param n the number of features in the row.
+	 * @param label the class label of the row.
+	 * @param weight the training weight of the row.
+	 * @param ht the tree the node belongs to.
+	 */
+	public abstract void learnFromValues(double[] values,int n,int label,double weight,GHVFDT ht);
 }
@@ -95,6 +95,30 @@ public class Node
 		return this.observedClassDistribution.getArrayCopy();
 	}
 
+	/**
+	 * Writes the votes for each class at this node in to an existing array, as
+	 * returned by {@link #getClassVotes(I_Instance, GHVFDT)}. Entries of the array
+	 * beyond the votes written are set to zero.
+	 * @param out the array to write to.
+	 * @return the number of classes voted for, which may exceed the number of
+	 * votes written if the array is too short.
+	 */
+	public int getClassVotes(double[] out) 
+	{
+		return this.observedClassDistribution.copyInto(out);
+	}
+
+	/**
+	 * Gets the class with the most votes at this node, without copying the votes.
+	 * This is the index of the largest value returned by {@link #getClassVotes(I_Instance, GHVFDT)},
+	 * the first if several are equal.
+	 * @return the class with the most votes, zero if no votes have been observed.
+	 */
+	public int getMajorityClass() 
+	{
+		return this.observedClassDistribution.maxIndex();
+	}
+
 	//*****************************************
 	//*****************************************
 	//              Methods
@@ -120,6 +144,91 @@ public class Node
 		return new FoundNode(this, parent, parentBranch);
 	}
 
+	/**
+	 * Passes a row of feature values to a leaf node, as {@link #filterInstanceToLeaf(I_Instance, SplitNode, int)}
+	 * does for an instance.
+	 * @param values the feature values of the row.
+	 * @param n the number of features in the row.
+	 * @param parent the parent split node.
+	 * @param parentBranch the index of this node in the parent.
+	 * @return the leaf node found.
+	 */
+	public FoundNode filterValuesToLeaf(double[] values, int n, SplitNode parent, int parentBranch) 
+	{
+		return new FoundNode(this, parent, parentBranch);
+	}
+
+	/**
+	 * Finds the leaf node an instance reaches, in the same way as
+	 * {@link #filterInstanceToLeaf(I_Instance, SplitNode, int)}, but iteratively and
+	 * without creating any objects. The result is written in to a holder, which the
+	 * caller can re-use for every instance.
+	 * @param root the root of the tree.
+	 * @param inst the instance to filter down.
+	 * @param result the holder the node found, its parent and branch are written to.
+	 * @return the result holder.
+	 */
+	public static FoundNode findLeaf(Node root, I_Instance inst, FoundNode result) 
+	{
+		Node node = root;
+		SplitNode parent = null;
+		int parentBranch = -1;
+
+		while (node instanceof SplitNode)
+		{
+			SplitNode split = (SplitNode) node;
+
+			// Numeric splits are tested inline, avoiding a call through the split test.
+			int childIndex = split instanceof NumericBinarySplitNode 
+					? ((NumericBinarySplitNode) split).branchFor(inst.value(((NumericBinarySplitNode) split).attIndex))
+					: split.instanceChildIndex(inst);
+
+			// The instance cannot be tested, so stops at this split.
+			if (childIndex < 0)
+				break;
+
+			parent = split;
+			parentBranch = childIndex;
+			node = split.getChild(childIndex);
+		}
+
+		return result.set(node, parent, parentBranch);
+	}
+
+	/**
+	 * Finds the leaf node a row of feature values reaches, as {@link #findLeaf(Node, I_Instance, FoundNode)}
+	 * does for an instance.
+	 * @param root the root of the tree.
+	 * @param values the feature values of the row.
+	 * @param n the number of features in the row.
+	 * @param result the holder the node found, its parent and branch are written to.
+	 * @return the result holder.
+	 */
+	public static FoundNode findLeaf(Node root, double[] values, int n, FoundNode result) 
+	{
+		Node node = root;
+		SplitNode parent = null;
+		int parentBranch = -1;
+
+		while (node instanceof SplitNode)
+		{
+			SplitNode split = (SplitNode) node;
+
+			int childIndex = split instanceof NumericBinarySplitNode 
+					? ((NumericBinarySplitNode) split).branchFor(values[((NumericBinarySplitNode) split).attIndex])
+					: split.valuesChildIndex(values, n);
+
+			if (childIndex < 0)
+				break;
+
+			parent = split;
+			parentBranch = childIndex;
+			node = split.getChild(childIndex);
+		}
+
+		return result.set(node, parent, parentBranch);
+	}
+
 	/**
 	 * @return true if all examples observed by this node belong
 	 * to a single class.
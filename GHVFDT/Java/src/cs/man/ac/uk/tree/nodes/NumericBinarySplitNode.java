@@ -0,0 +1,116 @@
+/**
+ *
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	NumericBinarySplitNode.java
+ * Package: cs.man.ac.uk.tree.nodes
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.tree.nodes;
+
+import cs.man.ac.uk.data.I_Instance;
+import cs.man.ac.uk.split.NumericAttributeBinaryTest;
+
+/**
+ * A split node for a {@link NumericAttributeBinaryTest}, the only kind of split
+ * the tree makes. The index of the value tested and the split value are copied
+ * in to the node, so choosing a branch reads two fields of the node rather than
+ * calling through the split test, see {@link Node#findLeaf(Node, I_Instance, FoundNode)}.
+ * Branches are chosen exactly as the split test chooses them.
+ */
+public class NumericBinarySplitNode extends SplitNode
+{
+	//*****************************************
+	//*****************************************
+	//              Variables
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * The index of the value read from an instance, see {@link NumericAttributeBinaryTest#getInstanceAttIndex()}.
+	 */
+	protected final int attIndex;
+
+	/**
+	 * The value the tested value is compared to.
+	 */
+	protected final double threshold;
+
+	/**
+	 * True if values equal to the threshold take the first branch.
+	 */
+	protected final boolean equalsFirst;
+
+	//*****************************************
+	//*****************************************
+	//              Constructor
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Creates a new binary split point.
+	 * @param splitTest the actual split test.
+	 * @param classObservations the class distribution used to initialize this node.
+	 */
+	public NumericBinarySplitNode(NumericAttributeBinaryTest splitTest, double[] classObservations)
+	{
+		super(splitTest, classObservations, 2);
+		this.attIndex = splitTest.getInstanceAttIndex();
+		this.threshold = splitTest.getAttValue();
+		this.equalsFirst = splitTest.equalsPassesTest();
+	}
+
+	//*****************************************
+	//*****************************************
+	//              Methods
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Chooses the branch for a value.
+	 * @param v the value tested.
+	 * @return the branch, else -1 if the value is missing.
+	 */
+	public int branchFor(double v)
+	{
+		if (Double.isNaN(v)) // Missing values cannot be tested.
+			return -1;
+
+		return (v < this.threshold || (v == this.threshold && this.equalsFirst)) ? 0 : 1;
+	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.tree.nodes.SplitNode#instanceChildIndex(cs.man.ac.uk.data.I_Instance)
+	 */
+	@Override
+	public int instanceChildIndex(I_Instance inst) { return branchFor(inst.value(this.attIndex)); }
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.tree.nodes.SplitNode#valuesChildIndex(double[], int)
+	 */
+	@Override
+	public int valuesChildIndex(double[] values, int n) { return branchFor(values[this.attIndex]); }
+
+	/**
+	 * @return the index of the value read from an instance.
+	 */
+	public int getAttIndex() { return this.attIndex; }
+
+	/**
+	 * @return the value the tested value is compared to.
+	 */
+	public double getThreshold() { return this.threshold; }
+}
@@ -106,6 +106,11 @@ public class SplitNode extends Node
 
 	public Node getChild(int index) { return this.children.get(index); }
 
+	/**
+	 * @return the split test used at this node.
+	 */
+	public InstanceConditionalTest getSplitTest() { return this.splitTest; }
+
 	//*****************************************
 	//*****************************************
 	//              Methods
@@ -114,6 +119,13 @@ public class SplitNode extends Node
 
 	public int instanceChildIndex(I_Instance inst) { return this.splitTest.branchForInstance(inst); }
 
+	/**
+	 * @param values the feature values of a row.
+	 * @param n the number of features in the row.
+	 * @return the branch the row takes, else -1 if the test cannot be applied to it.
+	 */
+	public int valuesChildIndex(double[] values, int n) { return this.splitTest.branchForValues(values, n); }
+
 	/* (non-Javadoc)
 	 * @see cs.man.ac.uk.tree.nodes.Node#isLeaf()
 	 */
@@ -139,4 +151,24 @@ public class SplitNode extends Node
 		}
 		return new FoundNode(this, parent, parentBranch);
 	}
+
+	/* (non-Javadoc)
+	 * @see cs.man.ac.uk.tree.nodes.Node#filterValuesToLeaf(double[], int, cs.man.ac.uk.tree.nodes.SplitNode, int)
+	 */
+	@Override
+	public FoundNode filterValuesToLeaf(double[] values, int n, SplitNode parent,int parentBranch) 
+	{
+		int childIndex = valuesChildIndex(values, n);
+
+		if (childIndex >= 0) 
+		{
+			Node child = getChild(childIndex);
+
+			if (child != null) 
+				return child.filterValuesToLeaf(values, n, this, childIndex);
+
+			return new FoundNode(null, this, childIndex);
+		}
+		return new FoundNode(this, parent, parentBranch);
+	}
 }
\ No newline at end of file
@@ -67,8 +67,11 @@ public class AutoExpandVector<T> extends ArrayList<T>
 	{
 		if (pos > size()) 
 		{
+			// Pad in one pass, rather than trimming after each null added.
+			ensureCapacity(pos + 1);
+
 			while (pos > size()) 
-				add(null);
+				super.add(null);
 
 			trimToSize();
 		}
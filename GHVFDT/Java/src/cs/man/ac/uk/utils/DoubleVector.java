@@ -25,6 +25,8 @@
  */
 package cs.man.ac.uk.utils;
 
+import java.util.Arrays;
+
 /**
  * Double vector, basically a wrapper for a double array.
  *
@@ -148,6 +150,21 @@ public class DoubleVector
 		return count;
 	}
 
+	/**
+	 * @return the index of the largest value, the first if several are equal,
+	 * else zero if the vector is empty.
+	 */
+	public int maxIndex() 
+	{
+		int maxIndex = 0;
+
+		for (int i = 1; i < this.array.length; i++) 
+			if (this.array[i] > this.array[maxIndex]) 
+				maxIndex = i;
+
+		return maxIndex;
+	}
+
 	/**
 	 * @return a copy of the underlying array that this class wraps.
 	 */
@@ -158,6 +175,21 @@ public class DoubleVector
 		return aCopy;
 	}
 
+	/**
+	 * Copies the values in to an existing array, without creating any objects.
+	 * Entries of the array beyond the values copied are set to zero.
+	 * @param out the array to copy in to.
+	 * @return the number of values in the vector, which may exceed the number
+	 * copied if the array is too short.
+	 */
+	public int copyInto(double[] out) 
+	{
+		int n = Math.min(this.array.length, out.length);
+		System.arraycopy(this.array, 0, out, 0, n);
+		Arrays.fill(out, n, out.length, 0.0);
+		return this.array.length;
+	}
+
 	/**
 	 * @return the array as a double.
 	 */
@@ -0,0 +1,59 @@
+/**
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	PoolUtils.java
+ * Package: cs.man.ac.uk.utils
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.utils;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Holds the fork-join pool used by parallel readers and batch prediction when
+ * no pool is supplied. A single pool is shared, so that reading and predicting
+ * at the same time does not start one set of worker threads for each.
+ */
+public class PoolUtils
+{
+	//*****************************************
+	//*****************************************
+	//              Variables
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * The default pool, with one thread per processor.
+	 */
+	private static final ForkJoinPool DEFAULT_POOL = new ForkJoinPool();
+
+	//*****************************************
+	//*****************************************
+	//              Methods
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * @return the pool shared by default, with one thread per processor.
+	 */
+	public static ForkJoinPool getDefaultPool() { return DEFAULT_POOL; }
+
+	/**
+	 * @param pool a pool, or null for the default pool.
+	 * @return the pool if it is not null, else the default pool.
+	 */
+	public static ForkJoinPool orDefault(ForkJoinPool pool) { return pool == null ? DEFAULT_POOL : pool; }
+}
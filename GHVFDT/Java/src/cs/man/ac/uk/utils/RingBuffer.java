@@ -0,0 +1,241 @@
+/**
+ * This file is part of GHVFDT.
+ *
+ * GHVFDT is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GHVFDT is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GHVFDT.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * File name: 	RingBuffer.java
+ * Package: cs.man.ac.uk.utils
+ * Created:	October 16th, 2026
+ */
+package cs.man.ac.uk.utils;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock free, single producer single consumer queue. Exactly one thread
+ * may add items, and exactly one (other) thread may remove them. The producer
+ * blocks in {@link #put(Object)} while the buffer is full, which stops it running
+ * too far ahead of the consumer, and the consumer blocks in {@link #take()} while
+ * the buffer is empty. Waiting threads spin briefly before yielding and then
+ * parking until the other thread adds or removes an item, so hand-offs are fast
+ * when both threads are busy, and an idle thread uses no processor time.
+ *
+ * @param <T> the type of item held in the buffer, null items are not permitted.
+ */
+public class RingBuffer<T>
+{
+	//*****************************************
+	//*****************************************
+	//              Variables
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * The number of times a waiting thread spins before yielding.
+	 */
+	private static final int SPINS = 100;
+
+	/**
+	 * The number of times a waiting thread yields before parking.
+	 */
+	private static final int YIELDS = 100;
+
+
+	/**
+	 * Holds the items, the length is a power of two.
+	 */
+	private final Object[] items;
+
+	/**
+	 * Used to map a sequence number to an index in the items array.
+	 */
+	private final int mask;
+
+	/**
+	 * The sequence number of the next item to remove, only written by the consumer.
+	 */
+	private volatile long head = 0;
+
+	/**
+	 * The sequence number of the next item to add, only written by the producer.
+	 */
+	private volatile long tail = 0;
+
+	/**
+	 * The consumer, while it is parked waiting for an item, else null.
+	 */
+	private volatile Thread consumerWaiter = null;
+
+	/**
+	 * The producer, while it is parked waiting for space, else null.
+	 */
+	private volatile Thread producerWaiter = null;
+
+	//*****************************************
+	//*****************************************
+	//              Constructor
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Creates a new ring buffer.
+	 * @param capacity the maximum number of items held, rounded up to a power of two.
+	 */
+	public RingBuffer(int capacity)
+	{
+		int size = 1;
+		while(size < capacity)
+			size <<= 1;
+
+		this.items = new Object[size];
+		this.mask = size - 1;
+	}
+
+	//*****************************************
+	//*****************************************
+	//              Methods
+	//*****************************************
+	//*****************************************
+
+	/**
+	 * Adds an item if there is space, should only be called by the producer.
+	 * @param item the item to add.
+	 * @return true if the item was added, else false if the buffer is full.
+	 */
+	public boolean offer(T item)
+	{
+		long t = this.tail;
+
+		if(t - this.head == this.items.length)
+			return false;
+
+		this.items[(int) t & this.mask] = item;
+		this.tail = t + 1; // Publishes the item to the consumer.
+		wake(this.consumerWaiter);
+		return true;
+	}
+
+	/**
+	 * Removes an item if one is available, should only be called by the consumer.
+	 * @return the item, else null if the buffer is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public T poll()
+	{
+		long h = this.head;
+
+		if(h == this.tail)
+			return null;
+
+		int index = (int) h & this.mask;
+		T item = (T) this.items[index];
+		this.items[index] = null;
+		this.head = h + 1; // Releases the slot to the producer.
+		wake(this.producerWaiter);
+		return item;
+	}
+
+	/**
+	 * Adds an item, waiting for space if the buffer is full.
+	 * @param item the item to add.
+	 * @throws InterruptedException if the producer is interrupted while waiting.
+	 */
+	public void put(T item) throws InterruptedException
+	{
+		for(int waits = 0; !offer(item); waits++)
+		{
+			if(idle(waits))
+			{
+				// The producer is recorded before checking for space again, so
+				// a slot cannot be released without the producer being woken.
+				this.producerWaiter = Thread.currentThread();
+
+				if(this.tail - this.head == this.items.length)
+					LockSupport.park(this);
+
+				this.producerWaiter = null;
+			}
+		}
+	}
+
+	/**
+	 * Removes an item, waiting for one if the buffer is empty.
+	 * @return the item.
+	 * @throws InterruptedException if the consumer is interrupted while waiting.
+	 */
+	public T take() throws InterruptedException
+	{
+		T item;
+
+		for(int waits = 0; (item = poll()) == null; waits++)
+		{
+			if(idle(waits))
+			{
+				// The consumer is recorded before checking for an item again, so
+				// an item cannot be published without the consumer being woken.
+				this.consumerWaiter = Thread.currentThread();
+
+				if(this.head == this.tail)
+					LockSupport.park(this);
+
+				this.consumerWaiter = null;
+			}
+		}
+
+		return item;
+	}
+
+	/**
+	 * @return the number of items currently in the buffer.
+	 */
+	public int size() { return (int) (this.tail - this.head); }
+
+	/**
+	 * @return the maximum number of items the buffer can hold.
+	 */
+	public int capacity() { return this.items.length; }
+
+	/**
+	 * Waits a little before trying again, backing off from spinning to
+	 * yielding, and then to parking as the number of waits increases.
+	 * @param waits the number of times the thread has already waited.
+	 * @return true if the thread should now park, else false.
+	 * @throws InterruptedException if the thread has been interrupted.
+	 */
+	private static boolean idle(int waits) throws InterruptedException
+	{
+		if(Thread.interrupted())
+			throw new InterruptedException();
+
+		if(waits < SPINS)
+			return false;
+		else if(waits < SPINS + YIELDS)
+		{
+			Thread.yield();
+			return false;
+		}
+		else
+			return true;
+	}
+
+	/**
+	 * Wakes a thread parked waiting on the buffer.
+	 * @param waiter the thread, else null if no thread is waiting.
+	 */
+	private static void wake(Thread waiter)
+	{
+		if(waiter != null)
+			LockSupport.unpark(waiter);
+	}
+}